@@ -10,12 +10,24 @@ import burp.api.montoya.http.handler.RequestToBeSentAction;
 import burp.api.montoya.http.handler.ResponseReceivedAction;
 import burp.api.montoya.logging.Logging;
 import org.oxff.config.ConfigManager;
+import org.oxff.extractor.ExtractionEngine;
+import org.oxff.coverage.CoverageCatalog;
+import org.oxff.index.ExtractionJournal;
+import org.oxff.index.InterfaceInventory;
+import org.oxff.index.NamePool;
+import org.oxff.http.AnnotationWriter;
+import org.oxff.http.HistoryProcessor;
 import org.oxff.http.RequestProcessor;
+import org.oxff.http.WebSocketProcessor;
+import org.oxff.job.JobScheduler;
 import org.oxff.http.RequestProcessor.ProcessResult;
 import org.oxff.ui.ConfigTab;
 import org.oxff.ui.ContextMenuHandler;
+import org.oxff.ui.CoveragePanel;
 
 import javax.swing.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -38,8 +50,24 @@ public class ShowMeUCode implements BurpExtension, HttpHandler {
     private RequestProcessor requestProcessor;
     // 配置管理器
     private ConfigManager configManager;
+    // 提取引擎: 实时处理和批量处理共用
+    private ExtractionEngine extractionEngine;
+    // 接口清单: 实时处理和批量处理共同维护
+    private InterfaceInventory interfaceInventory;
+    // 接口覆盖率目录: 随流量增量更新
+    private CoverageCatalog coverageCatalog;
+    // 提取日志: 插件重新加载时回放
+    private ExtractionJournal extractionJournal;
     // 右键菜单处理器
     private ContextMenuHandler contextMenuHandler;
+    // 后台任务调度器
+    private JobScheduler jobScheduler;
+    // 备注回写器: 批量处理时按批次写回备注
+    private AnnotationWriter annotationWriter;
+    // WebSocket消息备注回写器: 与批量处理分开，持续到达的消息不会让批量任务等待写入完成
+    private AnnotationWriter webSocketAnnotationWriter;
+    // WebSocket消息处理器
+    private WebSocketProcessor webSocketProcessor;
     // 需要处理的Burp工具类型
     private final Set<ToolType> toolsToProcess = new HashSet<>();
     // 是否启用插件
@@ -70,11 +98,34 @@ public class ShowMeUCode implements BurpExtension, HttpHandler {
             // 初始化配置管理器
             configManager = new ConfigManager(montoyaApi);
             
+            // 初始化接口名称驻留池和提取引擎
+            NamePool namePool = new NamePool();
+            extractionEngine = new ExtractionEngine(logger, configManager, namePool);
+            
+            // 初始化接口清单
+            interfaceInventory = new InterfaceInventory(namePool);
+            
+            // 初始化接口覆盖率目录
+            coverageCatalog = new CoverageCatalog(montoyaApi);
+            
             // 初始化请求处理器
-            requestProcessor = new RequestProcessor(montoyaApi, configManager);
+            requestProcessor = new RequestProcessor(montoyaApi, configManager, extractionEngine, interfaceInventory,
+                    coverageCatalog);
+            
+            // 初始化后台任务调度器，并在插件卸载时关闭
+            jobScheduler = new JobScheduler(logger);
+            montoyaApi.extension().registerUnloadingHandler(this::extensionUnloaded);
+            
+            // 初始化备注回写器和历史记录处理器
+            annotationWriter = new AnnotationWriter(logger);
+            extractionJournal = openExtractionJournal();
+            HistoryProcessor historyProcessor = new HistoryProcessor(montoyaApi, configManager, extractionEngine,
+                    annotationWriter, interfaceInventory, coverageCatalog, extractionJournal);
+            historyProcessor.restoreFromJournal();
             
             // 初始化右键菜单处理器
-            contextMenuHandler = new ContextMenuHandler(montoyaApi, configManager);
+            contextMenuHandler = new ContextMenuHandler(montoyaApi, configManager, extractionEngine,
+                    historyProcessor, jobScheduler);
             
             // 初始化需要处理的工具类型
             initToolTypes();
@@ -82,19 +133,30 @@ public class ShowMeUCode implements BurpExtension, HttpHandler {
             // 注册HTTP请求处理器
             montoyaApi.http().registerHttpHandler(this);
             
+            // 注册代理WebSocket连接处理器: 消息在独立线程上提取，与HTTP请求共用启用状态和代理工具设置
+            webSocketAnnotationWriter = new AnnotationWriter(logger, "showMeUCode-websocket-annotation-writer");
+            webSocketProcessor = new WebSocketProcessor(logger, extractionEngine, webSocketAnnotationWriter,
+                    interfaceInventory, coverageCatalog, () -> isEnabled && toolsToProcess.contains(ToolType.PROXY));
+            montoyaApi.proxy().registerWebSocketCreationHandler(webSocketProcessor);
+            
             // 注册右键菜单处理器
             montoyaApi.userInterface().registerContextMenuItemsProvider(contextMenuHandler);
             
             // 注册UI组件
             SwingUtilities.invokeLater(() -> {
                 ConfigTab configTab = new ConfigTab(montoyaApi, configManager, this);
-                montoyaApi.userInterface().registerSuiteTab("ShowMeUCode", configTab);
+                CoveragePanel coveragePanel = new CoveragePanel(montoyaApi, coverageCatalog, interfaceInventory);
+                JTabbedPane tabbedPane = new JTabbedPane();
+                tabbedPane.addTab("配置", configTab);
+                tabbedPane.addTab("接口覆盖率", coveragePanel);
+                montoyaApi.userInterface().registerSuiteTab("ShowMeUCode", tabbedPane);
             });
             
             logger.logToOutput("插件初始化完成，已准备就绪");
             logger.logToOutput("功能介绍:");
             logger.logToOutput("- 自动提取HTTP请求中的接口名称并添加到备注");
             logger.logToOutput("- 在代理历史记录中右键可批量处理历史请求");
+            logger.logToOutput("- 从代理中的WebSocket消息提取接口名称");
             logger.logToOutput("- 支持Target范围过滤和自定义提取规则");
         } catch (Exception e) {
             logger.logToError("插件初始化失败: " + e.getMessage());
@@ -102,6 +164,47 @@ public class ShowMeUCode implements BurpExtension, HttpHandler {
         }
     }
 
+    /**
+     * 插件卸载处理: 取消正在运行的后台任务并关闭线程池，写完剩余备注
+     */
+    private void extensionUnloaded() {
+        if (jobScheduler != null) {
+            jobScheduler.shutdown();
+        }
+        if (webSocketProcessor != null) {
+            webSocketProcessor.shutdown();
+        }
+        if (webSocketAnnotationWriter != null) {
+            webSocketAnnotationWriter.shutdown();
+        }
+        if (annotationWriter != null) {
+            annotationWriter.shutdown();
+        }
+        if (extractionJournal != null) {
+            extractionJournal.close();
+        }
+        if (configManager != null) {
+            configManager.shutdown();
+        }
+        logger.logToOutput("插件已卸载");
+    }
+
+    /**
+     * 打开当前项目的提取日志: 日志文件按项目ID命名，保存在配置的提取日志目录中
+     * @return 提取日志，打开失败时返回null
+     */
+    private ExtractionJournal openExtractionJournal() {
+        try {
+            Path journalPath = Paths.get(configManager.getJournalDirectory(),
+                    montoyaApi.project().id() + ".journal");
+            logger.logToOutput("提取日志: " + journalPath);
+            return new ExtractionJournal(journalPath, logger);
+        } catch (Exception e) {
+            logger.logToError("打开提取日志失败，本次不记录提取日志: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 初始化需要处理的Burp工具类型: 默认处理代理、入侵者、日志器和扩展的请求
      */
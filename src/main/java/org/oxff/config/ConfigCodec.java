@@ -0,0 +1,339 @@
+package org.oxff.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 配置编解码器: 使用Jackson流式API读写配置，不构建中间树，大型规则包也只需一次顺序扫描
+ * <p>
+ * 格式版本2在每条提取规则上保存ID、优先级、主机范围和类型选项，URL匹配规则也可以限定主机范围；
+ * 没有schemaVersion字段的旧版导出文件按版本1读取，缺少的字段使用默认值。无效的条目会被跳过并记录到配置文档的问题列表中，不会中断整个导入。
+ */
+public final class ConfigCodec {
+    // 当前配置格式版本
+    public static final int SCHEMA_VERSION = 2;
+    // 旧版导出文件的格式版本
+    private static final int LEGACY_SCHEMA_VERSION = 1;
+    // 线程安全，可共享
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ConfigCodec() {
+    }
+
+    /**
+     * 写出配置文档
+     * @param document 配置文档
+     * @param out 输出流，不会被关闭
+     * @param pretty 是否缩进排版，导出文件时使用
+     * @throws IOException 写入失败时抛出
+     */
+    public static void write(ConfigDocument document, OutputStream out, boolean pretty) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        write(document, generator, pretty);
+    }
+
+    /**
+     * 序列化配置文档为紧凑的JSON字符串: 用于整体持久化
+     * @param document 配置文档
+     * @return JSON字符串
+     * @throws IOException 序列化失败时抛出
+     */
+    public static String toJson(ConfigDocument document) throws IOException {
+        StringWriter writer = new StringWriter(256 + document.getExtractionRules().size() * 64);
+        write(document, JSON_FACTORY.createGenerator(writer), false);
+        return writer.toString();
+    }
+
+    /**
+     * 读取配置文档
+     * @param in 输入流，不会被关闭
+     * @return 配置文档
+     * @throws IOException 读取失败、格式错误或格式版本不受支持时抛出
+     */
+    public static ConfigDocument read(InputStream in) throws IOException {
+        JsonParser parser = JSON_FACTORY.createParser(in);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        try (parser) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * 从JSON字符串读取配置文档
+     * @param json JSON字符串
+     * @return 配置文档
+     * @throws IOException 格式错误或格式版本不受支持时抛出
+     */
+    public static ConfigDocument fromJson(String json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    private static void write(ConfigDocument document, JsonGenerator generator, boolean pretty) throws IOException {
+        try (generator) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            }
+            generator.writeStartObject();
+            generator.writeNumberField("schemaVersion", SCHEMA_VERSION);
+            generator.writeBooleanField("enabled", document.isEnabled());
+            generator.writeStringField("defaultRuleType", document.getDefaultRuleType().name());
+            if (document.getConfigVersion() >= 0) {
+                generator.writeNumberField("configVersion", document.getConfigVersion());
+            }
+            if (document.getNextRuleId() >= 0) {
+                generator.writeNumberField("nextRuleId", document.getNextRuleId());
+            }
+            generator.writeArrayFieldStart("urlPatterns");
+            for (UrlPattern pattern : document.getUrlPatterns()) {
+                generator.writeStartObject();
+                generator.writeStringField("pattern", pattern.getPattern());
+                generator.writeBooleanField("enabled", pattern.isEnabled());
+                if (pattern.getHostScope() != null) {
+                    generator.writeStringField("hostScope", pattern.getHostScope());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("extractionRules");
+            for (ExtractionRule rule : document.getExtractionRules()) {
+                writeRule(rule, document.getConfigVersion() >= 0, generator);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * 写入提取规则: 包含配置版本号时同时写入规则的修改版本号，导出的配置不包含本地版本信息
+     */
+    private static void writeRule(ExtractionRule rule, boolean includeState, JsonGenerator generator)
+            throws IOException {
+        generator.writeStartObject();
+        if (rule.getId() > 0) {
+            generator.writeNumberField("id", rule.getId());
+        }
+        if (includeState) {
+            generator.writeNumberField("modifiedVersion", rule.getModifiedVersion());
+        }
+        generator.writeStringField("ruleType", rule.getRuleType().name());
+        generator.writeStringField("pattern", rule.getPattern());
+        generator.writeBooleanField("enabled", rule.isEnabled());
+        if (rule.getPriority() != 0) {
+            generator.writeNumberField("priority", rule.getPriority());
+        }
+        if (rule.getHostScope() != null) {
+            generator.writeStringField("hostScope", rule.getHostScope());
+        }
+        if (!rule.getOptions().isEmpty()) {
+            generator.writeObjectFieldStart("options");
+            for (Map.Entry<String, String> option : rule.getOptions().entrySet()) {
+                generator.writeStringField(option.getKey(), option.getValue());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private static ConfigDocument read(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("配置文件格式错误: 根节点必须是JSON对象");
+        }
+        ConfigDocument document = new ConfigDocument();
+        document.setSchemaVersion(LEGACY_SCHEMA_VERSION);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "schemaVersion":
+                    document.setSchemaVersion(parser.getIntValue());
+                    if (document.getSchemaVersion() > SCHEMA_VERSION) {
+                        throw new IOException("不支持的配置格式版本: " + document.getSchemaVersion()
+                                + "，请升级插件");
+                    }
+                    break;
+                case "enabled":
+                    document.setEnabled(parser.getValueAsBoolean(true));
+                    break;
+                case "defaultRuleType":
+                    RuleType defaultRuleType = parseRuleType(parser.getText(), document);
+                    if (defaultRuleType != null) {
+                        document.setDefaultRuleType(defaultRuleType);
+                    }
+                    break;
+                case "configVersion":
+                    document.setConfigVersion(parser.getIntValue());
+                    break;
+                case "nextRuleId":
+                    document.setNextRuleId(parser.getIntValue());
+                    break;
+                case "urlPatterns":
+                    readUrlPatterns(parser, document);
+                    break;
+                case "extractionRules":
+                    readExtractionRules(parser, document);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return document;
+    }
+
+    /**
+     * 读取URL匹配规则数组: 每项为{"pattern", "enabled", "hostScope"}对象
+     */
+    private static void readUrlPatterns(JsonParser parser, ConfigDocument document) throws IOException {
+        expectArray(parser, "urlPatterns");
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String pattern = null;
+            boolean enabled = true;
+            String hostScope = null;
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("pattern".equals(field)) {
+                        pattern = parser.getValueAsString();
+                    } else if ("enabled".equals(field)) {
+                        enabled = parser.getValueAsBoolean(true);
+                    } else if ("hostScope".equals(field)) {
+                        hostScope = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+            if (pattern == null) {
+                document.getErrors().add("URL匹配规则缺少pattern字段");
+                continue;
+            }
+            try {
+                UrlPattern urlPattern = new UrlPattern(pattern, enabled);
+                urlPattern.setHostScope(hostScope);
+                document.getUrlPatterns().add(urlPattern);
+            } catch (PatternSyntaxException e) {
+                document.getErrors().add("无效的URL匹配规则: " + pattern + " - " + e.getDescription());
+            }
+        }
+    }
+
+    /**
+     * 读取提取规则数组: 每项为对象，旧版导出文件只包含ruleType、pattern和enabled字段
+     */
+    private static void readExtractionRules(JsonParser parser, ConfigDocument document) throws IOException {
+        expectArray(parser, "extractionRules");
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            int id = 0;
+            int modifiedVersion = -1;
+            String ruleType = null;
+            String pattern = null;
+            boolean enabled = true;
+            int priority = 0;
+            String hostScope = null;
+            Map<String, String> options = null;
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "id":
+                            id = parser.getValueAsInt(0);
+                            break;
+                        case "modifiedVersion":
+                            modifiedVersion = parser.getValueAsInt(-1);
+                            break;
+                        case "ruleType":
+                            ruleType = parser.getValueAsString();
+                            break;
+                        case "pattern":
+                            pattern = parser.getValueAsString();
+                            break;
+                        case "enabled":
+                            enabled = parser.getValueAsBoolean(true);
+                            break;
+                        case "priority":
+                            priority = parser.getValueAsInt(0);
+                            break;
+                        case "hostScope":
+                            hostScope = parser.getValueAsString();
+                            break;
+                        case "options":
+                            options = readOptions(parser);
+                            break;
+                        default:
+                            parser.skipChildren();
+                            break;
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+            if (pattern == null || ruleType == null) {
+                document.getErrors().add("提取规则缺少ruleType或pattern字段");
+                continue;
+            }
+            RuleType type = parseRuleType(ruleType, document);
+            if (type == null) {
+                continue;
+            }
+            ExtractionRule rule = new ExtractionRule(type, pattern, enabled);
+            rule.setId(Math.max(id, 0));
+            rule.setModifiedVersion(modifiedVersion);
+            rule.setPriority(priority);
+            rule.setHostScope(hostScope);
+            rule.setOptions(options);
+            document.getExtractionRules().add(rule);
+        }
+    }
+
+    private static Map<String, String> readOptions(JsonParser parser) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return options;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if (parser.currentToken().isScalarValue()) {
+                options.put(key, parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return options;
+    }
+
+    private static RuleType parseRuleType(String name, ConfigDocument document) {
+        try {
+            return RuleType.valueOf(name);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            document.getErrors().add("无效的规则类型: " + name);
+            return null;
+        }
+    }
+
+    private static void expectArray(JsonParser parser, String field) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("配置文件格式错误: " + field + "必须是数组");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.oxff.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置文档: 一份完整配置的内存表示，用于导入导出和整体持久化
+ * <p>
+ * 导入时先解析为配置文档并完成校验，再由ConfigManager一次性替换当前配置。
+ */
+public class ConfigDocument {
+    // 配置格式版本
+    private int schemaVersion = ConfigCodec.SCHEMA_VERSION;
+    private boolean enabled = true;
+    private RuleType defaultRuleType = RuleType.REGEX;
+    // 配置版本号和下一个规则ID: 仅整体持久化时保存，导出文件中不包含，-1表示未设置
+    private int configVersion = -1;
+    private int nextRuleId = -1;
+    private final List<UrlPattern> urlPatterns = new ArrayList<>();
+    private final List<ExtractionRule> extractionRules = new ArrayList<>();
+    // 解析和校验过程中发现的问题，对应条目已被跳过
+    private final List<String> errors = new ArrayList<>();
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public RuleType getDefaultRuleType() {
+        return defaultRuleType;
+    }
+
+    public void setDefaultRuleType(RuleType defaultRuleType) {
+        this.defaultRuleType = defaultRuleType;
+    }
+
+    public int getConfigVersion() {
+        return configVersion;
+    }
+
+    public void setConfigVersion(int configVersion) {
+        this.configVersion = configVersion;
+    }
+
+    public int getNextRuleId() {
+        return nextRuleId;
+    }
+
+    public void setNextRuleId(int nextRuleId) {
+        this.nextRuleId = nextRuleId;
+    }
+
+    public List<UrlPattern> getUrlPatterns() {
+        return urlPatterns;
+    }
+
+    public List<ExtractionRule> getExtractionRules() {
+        return extractionRules;
+    }
+
+    /**
+     * 获取解析和校验过程中发现的问题
+     * @return 问题描述列表
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
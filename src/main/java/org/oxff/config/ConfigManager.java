@@ -2,15 +2,27 @@ package org.oxff.config;
 
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.persistence.PersistedObject;
+import burp.api.montoya.persistence.Preferences;
 import burp.api.montoya.logging.Logging;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 /**
  * 配置管理类: 负责插件配置的存储和加载
+ * <p>
+ * 整个配置通过ConfigCodec序列化为一个紧凑的JSON字符串保存在单个键中。每次修改只标记为待保存，由后台写入线程在
+ * SAVE_DELAY_MILLIS内没有新修改后写入一次；通过runBatch执行的一组修改只递增一次配置版本、只保存一次。
  */
 public class ConfigManager {
     // 配置常量定义
@@ -20,6 +32,12 @@ public class ConfigManager {
     private static final String CONFIG_DEFAULT_RULE_TYPE = "config.default_rule_type";
     private static final String CONFIG_COUNT_URL_PATTERNS = "config.count.url_patterns";
     private static final String CONFIG_COUNT_EXTRACTION_RULES = "config.count.extraction_rules";
+    // 整体序列化后的配置
+    private static final String CONFIG_BLOB = "config.blob";
+    // 最后一次修改后延迟保存的时间（毫秒）
+    private static final long SAVE_DELAY_MILLIS = 500;
+    // 全局偏好设置: 提取日志目录，所有项目共用
+    private static final String PREF_JOURNAL_DIRECTORY = "journal.directory";
     
     // Burp Suite API
     private final MontoyaApi montoyaApi;
@@ -27,12 +45,34 @@ public class ConfigManager {
     private final Logging logger;
     // 持久化对象，用于保存配置
     private final PersistedObject persistedObject;
+    // 全局偏好设置
+    private final Preferences preferences;
     
     // 配置项
     private boolean enabled = true;
     private List<UrlPattern> urlPatterns = new ArrayList<>();
     private List<ExtractionRule> extractionRules = new ArrayList<>();
     private RuleType defaultRuleType = RuleType.REGEX;
+    // 配置版本号: 每次规则变更时递增，用于规则版本标记和增量重新标注
+    private volatile int configVersion = 0;
+    // 下一个可分配的规则ID
+    private int nextRuleId = 1;
+    
+    // 后台写入线程
+    private final ScheduledExecutorService saveExecutor;
+    // 已计划但尚未执行的保存任务
+    private ScheduledFuture<?> pendingSave;
+    // 是否有尚未保存的修改
+    private boolean dirty = false;
+    // 批量修改的嵌套深度
+    private int batchDepth = 0;
+    // 批量修改期间规则是否发生变更
+    private boolean batchChanged = false;
+    // 是否仍存在旧格式的逐项配置，首次保存后删除
+    private boolean legacyKeysPresent = false;
+    // 已启用URL匹配规则的路由器及其对应的配置版本
+    private volatile UrlRouter urlRouter;
+    private volatile int urlRouterVersion = -1;
     
     /**
      * 构造函数: 初始化配置管理器并加载保存的配置
@@ -42,9 +82,23 @@ public class ConfigManager {
         this.montoyaApi = montoyaApi;
         this.logger = montoyaApi.logging();
         this.persistedObject = montoyaApi.persistence().extensionData();
+        this.preferences = montoyaApi.persistence().preferences();
+        this.saveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "showMeUCode-config-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
         
         // 加载保存的配置
-        loadConfig();
+        String blob = persistedObject.getString(CONFIG_BLOB);
+        if (blob != null) {
+            loadBlob(blob);
+        } else {
+            loadConfig();
+            if (legacyKeysPresent) {
+                markDirty();
+            }
+        }
         
         // 如果没有配置规则，添加默认规则
         if (urlPatterns.isEmpty()) {
@@ -56,10 +110,46 @@ public class ConfigManager {
     }
     
     /**
-     * 加载保存的配置: 从Burp Suite的持久化存储中加载配置
+     * 加载整体序列化的配置
+     * @param blob 配置JSON字符串
+     */
+    private void loadBlob(String blob) {
+        try {
+            ConfigDocument document = ConfigCodec.fromJson(blob);
+            for (String error : document.getErrors()) {
+                logger.logToError(error);
+            }
+            enabled = document.isEnabled();
+            defaultRuleType = document.getDefaultRuleType();
+            configVersion = Math.max(document.getConfigVersion(), 0);
+            nextRuleId = Math.max(document.getNextRuleId(), 1);
+            urlPatterns = new ArrayList<>(document.getUrlPatterns());
+            extractionRules = new ArrayList<>(document.getExtractionRules().size());
+            for (ExtractionRule rule : document.getExtractionRules()) {
+                if (rule.getId() > 0) {
+                    nextRuleId = Math.max(nextRuleId, rule.getId() + 1);
+                } else {
+                    rule.setId(nextRuleId++);
+                }
+                // 保存的修改版本号缺失或超出当前配置版本号时才视为在当前版本修改，避免重启后所有历史记录都被判定为过期
+                if (rule.getModifiedVersion() < 0 || rule.getModifiedVersion() > configVersion) {
+                    rule.setModifiedVersion(configVersion);
+                }
+                extractionRules.add(rule);
+            }
+            logger.logToOutput("配置加载完成");
+        } catch (IOException e) {
+            logger.logToError("加载配置时发生错误: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 加载旧格式的配置: 从逐项保存的键中加载，下次保存时迁移为整体序列化格式
      */
     private void loadConfig() {
         try {
+            legacyKeysPresent = persistedObject.getInteger(CONFIG_COUNT_EXTRACTION_RULES) != null
+                    || persistedObject.getInteger(CONFIG_COUNT_URL_PATTERNS) != null;
             // 加载插件启用状态
             if (persistedObject.getBoolean(CONFIG_ENABLED) != null) {
                 enabled = persistedObject.getBoolean(CONFIG_ENABLED);
@@ -96,7 +186,12 @@ public class ConfigManager {
                         if (parts.length == 3) {
                             try {
                                 RuleType ruleType = RuleType.valueOf(parts[0]);
-                                extractionRules.add(new ExtractionRule(ruleType, parts[1], Boolean.parseBoolean(parts[2])));
+                                ExtractionRule extractionRule = new ExtractionRule(ruleType, parts[1],
+                                        Boolean.parseBoolean(parts[2]));
+                                // 旧格式不保存规则ID和修改版本号，按顺序分配ID并视为在当前版本修改
+                                extractionRule.setId(nextRuleId++);
+                                extractionRule.setModifiedVersion(configVersion);
+                                extractionRules.add(extractionRule);
                             } catch (IllegalArgumentException e) {
                                 logger.logToError("无效的规则类型: " + parts[0]);
                             }
@@ -122,39 +217,185 @@ public class ConfigManager {
     }
     
     /**
-     * 保存配置: 将当前配置保存到Burp Suite的持久化存储中
+     * 保存配置: 立即把当前配置整体写入Burp Suite的持久化存储，并取消尚未执行的延迟保存
      */
     public void saveConfig() {
-        try {
-            // 保存插件启用状态
-            persistedObject.setBoolean(CONFIG_ENABLED, enabled);
-            
-            // 保存URL匹配规则
-            persistedObject.setInteger(CONFIG_COUNT_URL_PATTERNS, urlPatterns.size());
-            for (int i = 0; i < urlPatterns.size(); i++) {
-                UrlPattern pattern = urlPatterns.get(i);
-                persistedObject.setString(CONFIG_URL_PATTERNS + "." + i, 
-                        pattern.getPattern() + "|" + pattern.isEnabled());
+        String blob;
+        boolean removeLegacy;
+        synchronized (this) {
+            if (pendingSave != null) {
+                pendingSave.cancel(false);
+                pendingSave = null;
             }
-            
-            // 保存提取规则
-            persistedObject.setInteger(CONFIG_COUNT_EXTRACTION_RULES, extractionRules.size());
-            for (int i = 0; i < extractionRules.size(); i++) {
-                ExtractionRule rule = extractionRules.get(i);
-                persistedObject.setString(CONFIG_EXTRACTION_RULES + "." + i, 
-                        rule.getRuleType().name() + "|" + rule.getPattern() + "|" + rule.isEnabled());
+            try {
+                blob = ConfigCodec.toJson(toDocument(true));
+            } catch (IOException e) {
+                logger.logToError("保存配置时发生错误: " + e.getMessage());
+                return;
+            }
+            dirty = false;
+            removeLegacy = legacyKeysPresent;
+            legacyKeysPresent = false;
+        }
+        try {
+            persistedObject.setString(CONFIG_BLOB, blob);
+            if (removeLegacy) {
+                deleteLegacyKeys();
             }
-            
-            // 保存默认规则类型
-            persistedObject.setString(CONFIG_DEFAULT_RULE_TYPE, defaultRuleType.name());
-            
-            logger.logToOutput("配置已保存");
         } catch (Exception e) {
             logger.logToError("保存配置时发生错误: " + e.getMessage());
-            e.printStackTrace();
         }
     }
     
+    /**
+     * 批量修改配置: 期间的所有修改只递增一次配置版本，结束后只保存一次
+     * @param changes 修改操作
+     */
+    public void runBatch(Runnable changes) {
+        synchronized (this) {
+            batchDepth++;
+        }
+        try {
+            changes.run();
+        } finally {
+            synchronized (this) {
+                if (--batchDepth == 0) {
+                    if (batchChanged) {
+                        batchChanged = false;
+                        configVersion++;
+                    }
+                    if (dirty) {
+                        scheduleSave();
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * 关闭配置管理器: 写入尚未保存的修改并停止后台写入线程，由插件卸载处理器调用
+     */
+    public void shutdown() {
+        saveExecutor.shutdownNow();
+        boolean needsSave;
+        synchronized (this) {
+            needsSave = dirty;
+        }
+        if (needsSave) {
+            saveConfig();
+        }
+    }
+    
+    /**
+     * 标记配置已修改: 批量修改期间只记录，否则计划一次延迟保存
+     */
+    private synchronized void markDirty() {
+        dirty = true;
+        if (batchDepth == 0) {
+            scheduleSave();
+        }
+    }
+    
+    /**
+     * 计划延迟保存: 已有计划时推迟到最后一次修改之后
+     */
+    private synchronized void scheduleSave() {
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+        }
+        if (saveExecutor.isShutdown()) {
+            pendingSave = null;
+            return;
+        }
+        pendingSave = saveExecutor.schedule(this::saveConfig, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 规则发生变更: 批量修改期间推迟到批量结束时统一递增配置版本
+     */
+    private void bumpVersion() {
+        if (batchDepth > 0) {
+            batchChanged = true;
+        } else {
+            configVersion++;
+        }
+    }
+    
+    /**
+     * 生成当前配置的配置文档
+     * @param includeState 是否包含配置版本号和规则ID计数器，整体持久化时包含，导出文件时不包含
+     * @return 配置文档，规则列表为当前列表的副本
+     */
+    public synchronized ConfigDocument toDocument(boolean includeState) {
+        ConfigDocument document = new ConfigDocument();
+        document.setEnabled(enabled);
+        document.setDefaultRuleType(defaultRuleType);
+        if (includeState) {
+            document.setConfigVersion(configVersion);
+            document.setNextRuleId(nextRuleId);
+        }
+        document.getUrlPatterns().addAll(urlPatterns);
+        document.getExtractionRules().addAll(extractionRules);
+        return document;
+    }
+    
+    /**
+     * 整体替换配置: 用于导入已解析并校验过的配置文档，新的规则列表准备好后一次性替换，只递增一次配置版本、只保存一次
+     * <p>
+     * 导入文件中的规则ID在不重复时保留，缺失或重复的ID重新分配。
+     * @param document 配置文档
+     */
+    public synchronized void replaceConfig(ConfigDocument document) {
+        int newVersion = configVersion + 1;
+        Set<Integer> usedIds = new HashSet<>();
+        for (ExtractionRule rule : document.getExtractionRules()) {
+            if (rule.getId() > 0 && usedIds.add(rule.getId())) {
+                nextRuleId = Math.max(nextRuleId, rule.getId() + 1);
+            } else {
+                rule.setId(0);
+            }
+        }
+        List<ExtractionRule> rules = new ArrayList<>(document.getExtractionRules().size());
+        for (ExtractionRule rule : document.getExtractionRules()) {
+            if (rule.getId() <= 0) {
+                rule.setId(nextRuleId++);
+            }
+            rule.setModifiedVersion(newVersion);
+            rules.add(rule);
+        }
+        urlPatterns = new ArrayList<>(document.getUrlPatterns());
+        extractionRules = rules;
+        enabled = document.isEnabled();
+        defaultRuleType = document.getDefaultRuleType();
+        // 新列表就绪后再发布版本号，提取引擎不会用旧规则编译出新版本的快照
+        if (batchDepth > 0) {
+            batchChanged = true;
+        } else {
+            configVersion = newVersion;
+        }
+        markDirty();
+        logger.logToOutput("配置已整体替换: " + urlPatterns.size() + " 条URL匹配规则，" + rules.size() + " 条提取规则");
+    }
+    
+    /**
+     * 删除旧格式的逐项配置
+     */
+    private void deleteLegacyKeys() {
+        Integer urlCount = persistedObject.getInteger(CONFIG_COUNT_URL_PATTERNS);
+        for (int i = 0; urlCount != null && i < urlCount; i++) {
+            persistedObject.deleteString(CONFIG_URL_PATTERNS + "." + i);
+        }
+        Integer ruleCount = persistedObject.getInteger(CONFIG_COUNT_EXTRACTION_RULES);
+        for (int i = 0; ruleCount != null && i < ruleCount; i++) {
+            persistedObject.deleteString(CONFIG_EXTRACTION_RULES + "." + i);
+        }
+        persistedObject.deleteInteger(CONFIG_COUNT_URL_PATTERNS);
+        persistedObject.deleteInteger(CONFIG_COUNT_EXTRACTION_RULES);
+        persistedObject.deleteBoolean(CONFIG_ENABLED);
+        persistedObject.deleteString(CONFIG_DEFAULT_RULE_TYPE);
+        logger.logToOutput("已将旧格式配置迁移为整体保存格式");
+    }
+    
     /**
      * 添加默认URL匹配规则: 在没有配置规则的情况下添加默认规则
      */
@@ -173,6 +414,10 @@ public class ConfigManager {
         extractionRules.add(new ExtractionRule(RuleType.REGEX, "\"action\"\\s*:\\s*\"([^\"]+)\"", true));
         extractionRules.add(new ExtractionRule(RuleType.JSON_PATH, "$.method", true));
         extractionRules.add(new ExtractionRule(RuleType.JSON_PATH, "$.action", true));
+        configVersion++;
+        for (ExtractionRule rule : extractionRules) {
+            stampRule(rule);
+        }
         logger.logToOutput("已添加默认提取规则");
     }
     
@@ -182,65 +427,176 @@ public class ConfigManager {
         return enabled;
     }
     
-    public void setEnabled(boolean enabled) {
+    public synchronized void setEnabled(boolean enabled) {
         this.enabled = enabled;
-        saveConfig();
+        markDirty();
     }
     
-    public List<UrlPattern> getUrlPatterns() {
-        return urlPatterns;
+    /**
+     * 获取URL匹配规则: 返回当前规则列表的快照，后台线程遍历时不受界面修改影响
+     * @return URL匹配规则列表副本
+     */
+    public synchronized List<UrlPattern> getUrlPatterns() {
+        return new ArrayList<>(urlPatterns);
     }
     
-    public void setUrlPatterns(List<UrlPattern> urlPatterns) {
-        this.urlPatterns = urlPatterns;
-        saveConfig();
+    /**
+     * 获取已启用URL匹配规则的路由器: 配置版本变化时重建
+     * @return URL规则路由器
+     */
+    public UrlRouter getUrlRouter() {
+        // 先读版本再读路由器: 写入方先替换路由器再更新版本，读到的版本对应的路由器一定可见
+        int version = urlRouterVersion;
+        UrlRouter router = urlRouter;
+        if (router == null || version != configVersion) {
+            synchronized (this) {
+                router = urlRouter;
+                if (router == null || urlRouterVersion != configVersion) {
+                    List<UrlPattern> enabledPatterns = new ArrayList<>();
+                    for (UrlPattern pattern : urlPatterns) {
+                        if (pattern.isEnabled()) {
+                            enabledPatterns.add(pattern);
+                        }
+                    }
+                    router = new UrlRouter(enabledPatterns);
+                    urlRouter = router;
+                    urlRouterVersion = configVersion;
+                }
+            }
+        }
+        return router;
     }
     
-    public void addUrlPattern(UrlPattern urlPattern) {
+    public synchronized void setUrlPatterns(List<UrlPattern> urlPatterns) {
+        this.urlPatterns = new ArrayList<>(urlPatterns);
+        bumpVersion();
+        markDirty();
+    }
+    
+    public synchronized void addUrlPattern(UrlPattern urlPattern) {
         urlPatterns.add(urlPattern);
-        saveConfig();
+        bumpVersion();
+        markDirty();
     }
     
-    public void removeUrlPattern(UrlPattern urlPattern) {
+    public synchronized void removeUrlPattern(UrlPattern urlPattern) {
         urlPatterns.remove(urlPattern);
-        saveConfig();
+        bumpVersion();
+        markDirty();
+    }
+    
+    /**
+     * 更新URL匹配规则: 在规则内容或状态被修改后调用，递增配置版本并保存
+     * @param urlPattern 被修改的URL匹配规则
+     */
+    public synchronized void updateUrlPattern(UrlPattern urlPattern) {
+        if (urlPattern == null || !urlPatterns.contains(urlPattern)) {
+            return;
+        }
+        bumpVersion();
+        markDirty();
     }
     
-    public List<ExtractionRule> getExtractionRules() {
-        return extractionRules;
+    /**
+     * 获取提取规则: 返回当前规则列表的快照，后台线程遍历时不受界面修改影响
+     * @return 提取规则列表副本
+     */
+    public synchronized List<ExtractionRule> getExtractionRules() {
+        return new ArrayList<>(extractionRules);
     }
     
-    public void setExtractionRules(List<ExtractionRule> extractionRules) {
-        this.extractionRules = extractionRules;
-        saveConfig();
+    public synchronized void setExtractionRules(List<ExtractionRule> extractionRules) {
+        this.extractionRules = new ArrayList<>(extractionRules);
+        bumpVersion();
+        for (ExtractionRule rule : extractionRules) {
+            stampRule(rule);
+        }
+        markDirty();
     }
     
-    public void addExtractionRule(ExtractionRule extractionRule) {
+    public synchronized void addExtractionRule(ExtractionRule extractionRule) {
         extractionRules.add(extractionRule);
-        saveConfig();
+        bumpVersion();
+        stampRule(extractionRule);
+        markDirty();
     }
     
-    public void removeExtractionRule(ExtractionRule extractionRule) {
+    public synchronized void removeExtractionRule(ExtractionRule extractionRule) {
         extractionRules.remove(extractionRule);
-        saveConfig();
+        bumpVersion();
+        markDirty();
+    }
+    
+    /**
+     * 更新提取规则: 在规则类型、内容或状态被修改后调用，为规则打上新的版本号并保存
+     * @param extractionRule 被修改的提取规则
+     */
+    public synchronized void updateExtractionRule(ExtractionRule extractionRule) {
+        if (extractionRule == null || !extractionRules.contains(extractionRule)) {
+            return;
+        }
+        bumpVersion();
+        stampRule(extractionRule);
+        markDirty();
+    }
+    
+    /**
+     * 获取当前配置版本号: 每次规则发生变更时递增
+     * @return 配置版本号
+     */
+    public int getConfigVersion() {
+        return configVersion;
+    }
+    
+    /**
+     * 为规则打上版本标记: 未分配ID的规则同时分配新ID，批量修改期间使用批量结束后的版本号
+     * @param rule 提取规则
+     */
+    private void stampRule(ExtractionRule rule) {
+        if (rule.getId() <= 0) {
+            rule.setId(nextRuleId++);
+        }
+        rule.setModifiedVersion(batchDepth > 0 ? configVersion + 1 : configVersion);
+    }
+    
+    /**
+     * 获取提取日志目录: 未设置时使用用户目录下的.showMeUCode/journal
+     * @return 提取日志目录
+     */
+    public String getJournalDirectory() {
+        String directory = preferences.getString(PREF_JOURNAL_DIRECTORY);
+        if (directory == null || directory.trim().isEmpty()) {
+            return Paths.get(System.getProperty("user.home"), ".showMeUCode", "journal").toString();
+        }
+        return directory;
+    }
+    
+    /**
+     * 设置提取日志目录: 重新加载插件后生效
+     * @param directory 提取日志目录
+     */
+    public void setJournalDirectory(String directory) {
+        preferences.setString(PREF_JOURNAL_DIRECTORY, directory);
+        logger.logToOutput("提取日志目录已设置为: " + directory + "，重新加载插件后生效");
     }
     
     public RuleType getDefaultRuleType() {
         return defaultRuleType;
     }
     
-    public void setDefaultRuleType(RuleType defaultRuleType) {
+    public synchronized void setDefaultRuleType(RuleType defaultRuleType) {
         this.defaultRuleType = defaultRuleType;
-        saveConfig();
+        markDirty();
     }
     
     /**
      * 清空所有规则: 清空URL匹配规则和提取规则
      */
-    public void clearAllRules() {
+    public synchronized void clearAllRules() {
         urlPatterns.clear();
         extractionRules.clear();
-        saveConfig();
+        bumpVersion();
+        markDirty();
         logger.logToOutput("已清空所有规则");
     }
 } 
\ No newline at end of file
@@ -1,12 +1,26 @@
 package org.oxff.config;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * 提取规则类: 用于从HTTP请求体中提取接口名称
  */
 public class ExtractionRule {
+    // 规则ID: 由ConfigManager分配，0表示尚未分配
+    private int id;
+    // 最近一次修改时的配置版本号: 用于判断已有备注是否需要重新提取
+    private int modifiedVersion;
     private RuleType ruleType;
     private String pattern;
     private boolean enabled;
+    // 优先级: 数值越大越先尝试，相同优先级按列表顺序
+    private int priority;
+    // 主机范围: 为空时对所有主机生效，支持精确主机名和*.example.com形式的通配
+    private String hostScope;
+    // 规则类型相关的选项，例如正则表达式的group、caseInsensitive
+    private Map<String, String> options = Collections.emptyMap();
     
     /**
      * 构造函数: 创建提取规则，默认启用
@@ -29,6 +43,38 @@ public class ExtractionRule {
         this.enabled = enabled;
     }
     
+    /**
+     * 获取规则ID
+     * @return 规则ID，0表示尚未分配
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * 设置规则ID: 仅由ConfigManager在添加或加载规则时调用
+     * @param id 规则ID
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+    
+    /**
+     * 获取最近一次修改时的配置版本号
+     * @return 配置版本号
+     */
+    public int getModifiedVersion() {
+        return modifiedVersion;
+    }
+    
+    /**
+     * 设置最近一次修改时的配置版本号: 仅由ConfigManager调用
+     * @param modifiedVersion 配置版本号
+     */
+    public void setModifiedVersion(int modifiedVersion) {
+        this.modifiedVersion = modifiedVersion;
+    }
+    
     /**
      * 获取规则类型
      * @return 规则类型
@@ -77,6 +123,65 @@ public class ExtractionRule {
         this.enabled = enabled;
     }
     
+    public int getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+    
+    /**
+     * 获取主机范围
+     * @return 主机范围，为null时对所有主机生效
+     */
+    public String getHostScope() {
+        return hostScope;
+    }
+    
+    /**
+     * 设置主机范围: 统一转为小写，空字符串视为不限主机
+     * @param hostScope 精确主机名或*.example.com形式的通配
+     */
+    public void setHostScope(String hostScope) {
+        this.hostScope = HostPartition.normalizeScope(hostScope);
+    }
+    
+    /**
+     * 获取规则类型相关的选项
+     * @return 只读的选项映射
+     */
+    public Map<String, String> getOptions() {
+        return options;
+    }
+    
+    /**
+     * 设置规则类型相关的选项
+     * @param options 选项映射，为null时清空
+     */
+    public void setOptions(Map<String, String> options) {
+        this.options = options == null || options.isEmpty()
+                ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(options));
+    }
+    
+    /**
+     * 获取选项值
+     * @param key 选项名称
+     * @return 选项值，未设置时返回null
+     */
+    public String getOption(String key) {
+        return options.get(key);
+    }
+    
+    /**
+     * 检查规则是否适用于指定主机
+     * @param host 请求主机名，未知时为null
+     * @return 如果规则不限主机或主机在范围内，则返回true，否则返回false
+     */
+    public boolean appliesToHost(String host) {
+        return HostPartition.matches(hostScope, host);
+    }
+    
     @Override
     public String toString() {
         return ruleType.getDisplayName() + ": " + pattern + (enabled ? " [已启用]" : " [已禁用]");
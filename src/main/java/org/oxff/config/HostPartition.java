@@ -0,0 +1,207 @@
+package org.oxff.config;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 按主机分组的规则集合: 把规则按主机范围分为全局组、精确主机组和通配后缀组，每个请求只检查与其主机相关的规则
+ * <p>
+ * 精确主机和*.example.com形式的通配各用一个哈希表索引，查找时依次取主机名的各级后缀查表，
+ * 开销只与主机名的层级数和命中的规则数量有关，与规则总数无关。合并后的规则序号按原始顺序排列并按主机缓存。
+ * 构建后不可修改，规则变更时整体重建。
+ * @param <T> 规则类型
+ */
+public final class HostPartition<T> {
+    // 最多缓存的主机数量，超过后不再缓存新主机
+    private static final int MAX_CACHED_HOSTS = 4096;
+    private static final int[] EMPTY = new int[0];
+
+    // 按原始顺序排列的所有规则
+    private final List<T> items;
+    // 不限主机的规则序号
+    private final int[] globalIndexes;
+    // 精确主机名到规则序号的映射
+    private final Map<String, int[]> exactIndexes;
+    // 通配后缀（以.开头）到规则序号的映射
+    private final Map<String, int[]> suffixIndexes;
+    // 主机名到合并后规则序号的缓存
+    private final Map<String, int[]> hostCache = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数: 按主机范围对规则分组
+     * @param items 按求值顺序排列的规则
+     * @param scopeOf 获取规则主机范围的函数，返回null表示不限主机
+     */
+    public HostPartition(List<T> items, Function<T, String> scopeOf) {
+        this.items = new ArrayList<>(items);
+        List<Integer> global = new ArrayList<>();
+        Map<String, List<Integer>> exact = new HashMap<>();
+        Map<String, List<Integer>> suffix = new HashMap<>();
+        for (int i = 0; i < this.items.size(); i++) {
+            String scope = normalizeScope(scopeOf.apply(this.items.get(i)));
+            if (scope == null) {
+                global.add(i);
+            } else if (scope.startsWith("*.")) {
+                suffix.computeIfAbsent(scope.substring(1), key -> new ArrayList<>()).add(i);
+            } else {
+                exact.computeIfAbsent(scope, key -> new ArrayList<>()).add(i);
+            }
+        }
+        this.globalIndexes = toArray(global);
+        this.exactIndexes = toArrays(exact);
+        this.suffixIndexes = toArrays(suffix);
+    }
+
+    /**
+     * 获取适用于主机的规则序号
+     * @param host 请求主机名，未知时为null，此时只返回不限主机的规则
+     * @return 按原始顺序排列的规则序号，调用方不得修改
+     */
+    public int[] indexesFor(String host) {
+        if (host == null || (exactIndexes.isEmpty() && suffixIndexes.isEmpty())) {
+            return globalIndexes;
+        }
+        int[] cached = hostCache.get(host);
+        if (cached != null) {
+            return cached;
+        }
+        int[] merged = merge(host.toLowerCase(Locale.ROOT));
+        if (hostCache.size() < MAX_CACHED_HOSTS) {
+            hostCache.put(host, merged);
+        }
+        return merged;
+    }
+
+    /**
+     * 获取适用于主机的规则
+     * @param host 请求主机名，未知时为null
+     * @return 按原始顺序排列的只读规则视图
+     */
+    public List<T> itemsFor(String host) {
+        int[] indexes = indexesFor(host);
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                return items.get(indexes[index]);
+            }
+
+            @Override
+            public int size() {
+                return indexes.length;
+            }
+        };
+    }
+
+    /**
+     * 获取指定序号的规则
+     * @param index 规则序号
+     * @return 规则
+     */
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * 获取规则总数
+     * @return 规则数量
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * 获取限定了主机范围的分组数量
+     * @return 精确主机组和通配后缀组的数量之和
+     */
+    public int scopedGroupCount() {
+        return exactIndexes.size() + suffixIndexes.size();
+    }
+
+    /**
+     * 规范化主机范围: 去除首尾空白并转为小写
+     * @param scope 主机范围
+     * @return 规范化后的主机范围，为空时返回null
+     */
+    public static String normalizeScope(String scope) {
+        if (scope == null || scope.trim().isEmpty()) {
+            return null;
+        }
+        return scope.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 检查主机是否在范围内
+     * @param scope 规范化后的主机范围，为null时不限主机
+     * @param host 请求主机名，未知时为null
+     * @return 如果主机在范围内，则返回true，否则返回false
+     */
+    public static boolean matches(String scope, String host) {
+        if (scope == null) {
+            return true;
+        }
+        if (host == null) {
+            return false;
+        }
+        String normalized = host.toLowerCase(Locale.ROOT);
+        if (scope.startsWith("*.")) {
+            return normalized.endsWith(scope.substring(1));
+        }
+        return normalized.equals(scope);
+    }
+
+    /**
+     * 合并全局组、精确主机组和各级通配后缀组
+     * @param host 小写的主机名
+     * @return 按原始顺序排列的规则序号
+     */
+    private int[] merge(String host) {
+        int[] exact = exactIndexes.getOrDefault(host, EMPTY);
+        List<int[]> groups = new ArrayList<>(4);
+        int total = globalIndexes.length + exact.length;
+        if (!suffixIndexes.isEmpty()) {
+            for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+                int[] group = suffixIndexes.get(host.substring(dot));
+                if (group != null) {
+                    groups.add(group);
+                    total += group.length;
+                }
+            }
+        }
+        if (total == globalIndexes.length) {
+            return globalIndexes;
+        }
+        int[] merged = Arrays.copyOf(globalIndexes, total);
+        int size = globalIndexes.length;
+        System.arraycopy(exact, 0, merged, size, exact.length);
+        size += exact.length;
+        for (int[] group : groups) {
+            System.arraycopy(group, 0, merged, size, group.length);
+            size += group.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> groups) {
+        Map<String, int[]> result = new HashMap<>(groups.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : groups.entrySet()) {
+            result.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
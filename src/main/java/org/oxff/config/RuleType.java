@@ -22,7 +22,27 @@ public enum RuleType {
     /**
      * 表单参数规则
      */
-    FORM("表单参数");
+    FORM("表单参数"),
+    
+    /**
+     * 请求头规则: 在读取请求体之前求值
+     */
+    HEADER("请求头"),
+    
+    /**
+     * GraphQL操作规则
+     */
+    GRAPHQL("GraphQL操作"),
+    
+    /**
+     * 多部分表单字段规则
+     */
+    MULTIPART_FIELD("多部分表单字段"),
+    
+    /**
+     * Protobuf字段规则
+     */
+    PROTOBUF_FIELD("Protobuf字段");
     
     private final String displayName;
     
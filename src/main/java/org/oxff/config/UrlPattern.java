@@ -1,5 +1,6 @@
 package org.oxff.config;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -10,6 +11,8 @@ public class UrlPattern {
     private String pattern;
     private Pattern compiledPattern;
     private boolean enabled;
+    // 主机范围: 为空时对所有主机生效，支持精确主机名和*.example.com形式的通配
+    private String hostScope;
     
     /**
      * 构造函数: 创建URL匹配规则，默认启用
@@ -44,6 +47,15 @@ public class UrlPattern {
         return compiledPattern.matcher(url).find();
     }
     
+    /**
+     * 创建匹配器: 复用已编译的正则表达式，用于读取捕获组
+     * @param url 要匹配的URL
+     * @return 匹配器
+     */
+    public Matcher matcher(CharSequence url) {
+        return compiledPattern.matcher(url);
+    }
+    
     /**
      * 获取正则表达式模式
      * @return 正则表达式模式
@@ -78,6 +90,22 @@ public class UrlPattern {
         this.enabled = enabled;
     }
     
+    /**
+     * 获取主机范围
+     * @return 主机范围，为null时对所有主机生效
+     */
+    public String getHostScope() {
+        return hostScope;
+    }
+    
+    /**
+     * 设置主机范围: 统一转为小写，空字符串视为不限主机
+     * @param hostScope 精确主机名或*.example.com形式的通配
+     */
+    public void setHostScope(String hostScope) {
+        this.hostScope = HostPartition.normalizeScope(hostScope);
+    }
+    
     @Override
     public String toString() {
         return pattern + (enabled ? " [已启用]" : " [已禁用]");
@@ -0,0 +1,313 @@
+package org.oxff.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * URL规则路由器: 为每条URL匹配规则找出一段任何匹配都必须包含的字面量（锚点），把所有锚点构建为一个字面量前缀树，
+ * 并补上失败跳转形成Aho-Corasick自动机。每个URL只需顺序扫描一遍，就能得到锚点出现在URL中的候选规则，
+ * 只有候选规则才执行正则表达式。
+ * <p>
+ * 路径前缀（如/api/v1/）和查询参数（如method=）都是锚点的特例，同一个自动机可以同时处理，而且不要求规则锚定在URL开头。
+ * 锚点只从正则表达式顶层的确定字面量中提取，遇到分组、字符类、转义字母等无法确定的结构就停止，含顶层分支的规则不提取锚点；
+ * 没有锚点的规则每次都作为候选，因此路由不会漏掉任何可能匹配的规则。
+ * 只处理ASCII字符，构建后不可修改，规则变更时整体重建。
+ */
+public final class UrlRouter {
+    // 锚点最短长度，过短的锚点几乎出现在所有URL中，不值得索引
+    private static final int MIN_ANCHOR_LENGTH = 2;
+    // 自动机字母表大小: 只处理ASCII
+    private static final int ALPHABET = 128;
+    private static final int ROOT = 0;
+
+    // 按列表顺序排列的已启用规则
+    private final List<UrlPattern> patterns;
+    // 没有锚点、每次都需要检查的规则序号
+    private final int[] unanchored;
+    // 自动机状态转移表: state * ALPHABET + ch
+    private final int[] transitions;
+    // 每个状态命中的规则序号（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    /**
+     * 构造函数: 提取锚点并构建自动机
+     * @param patterns 按列表顺序排列的已启用URL匹配规则
+     */
+    public UrlRouter(List<UrlPattern> patterns) {
+        this.patterns = new ArrayList<>(patterns);
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(newNode());
+        trieOutputs.add(new ArrayList<>());
+        List<Integer> always = new ArrayList<>();
+        for (int i = 0; i < this.patterns.size(); i++) {
+            String anchor = anchorOf(this.patterns.get(i).getPattern());
+            if (anchor == null) {
+                always.add(i);
+                continue;
+            }
+            int state = ROOT;
+            for (int k = 0; k < anchor.length(); k++) {
+                int ch = anchor.charAt(k);
+                int next = trie.get(state)[ch];
+                if (next < 0) {
+                    next = trie.size();
+                    trie.get(state)[ch] = next;
+                    trie.add(newNode());
+                    trieOutputs.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            trieOutputs.get(state).add(i);
+        }
+        this.unanchored = always.stream().mapToInt(Integer::intValue).toArray();
+        this.transitions = new int[trie.size() * ALPHABET];
+        this.outputs = new int[trie.size()][];
+        buildAutomaton(trie, trieOutputs);
+    }
+
+    /**
+     * 获取可能匹配URL的候选规则: 锚点出现在URL中或没有锚点，且主机范围适用
+     * @param url 请求URL
+     * @param host 请求主机名，未知时为null，此时跳过限定了主机范围的规则
+     * @return 按列表顺序排列的候选规则
+     */
+    public List<UrlPattern> candidatesFor(String url, String host) {
+        int[] hits = new int[8];
+        int hitCount = 0;
+        if (transitions.length > ALPHABET || outputs[ROOT].length > 0) {
+            int state = ROOT;
+            for (int k = 0; k < url.length(); k++) {
+                char ch = url.charAt(k);
+                state = ch < ALPHABET ? transitions[state * ALPHABET + ch] : ROOT;
+                for (int index : outputs[state]) {
+                    if (hitCount == hits.length) {
+                        hits = Arrays.copyOf(hits, hitCount * 2);
+                    }
+                    hits[hitCount++] = index;
+                }
+            }
+        }
+        Arrays.sort(hits, 0, hitCount);
+
+        // 合并命中的规则和没有锚点的规则，保持列表顺序并去重
+        List<UrlPattern> candidates = new ArrayList<>(Math.min(hitCount, 16) + unanchored.length);
+        int h = 0;
+        int u = 0;
+        int last = -1;
+        while (h < hitCount || u < unanchored.length) {
+            int next;
+            if (u >= unanchored.length || (h < hitCount && hits[h] < unanchored[u])) {
+                next = hits[h++];
+            } else {
+                next = unanchored[u++];
+            }
+            if (next == last) {
+                continue;
+            }
+            last = next;
+            UrlPattern pattern = patterns.get(next);
+            if (HostPartition.matches(pattern.getHostScope(), host)) {
+                candidates.add(pattern);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 获取规则总数
+     * @return 规则数量
+     */
+    public int size() {
+        return patterns.size();
+    }
+
+    /**
+     * 获取提取到锚点的规则数量
+     * @return 规则数量
+     */
+    public int anchoredCount() {
+        return patterns.size() - unanchored.length;
+    }
+
+    /**
+     * 提取锚点: 取正则表达式顶层确定字面量中最长的一段
+     * @param regex 正则表达式
+     * @return 锚点，无法确定或过短时返回null
+     */
+    static String anchorOf(String regex) {
+        if (regex == null || hasTopLevelAlternation(regex)) {
+            return null;
+        }
+        String best = null;
+        StringBuilder run = new StringBuilder();
+        scan:
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= regex.length()) {
+                        break scan;
+                    }
+                    char escaped = regex.charAt(i + 1);
+                    if (Character.isLetterOrDigit(escaped) || escaped >= ALPHABET) {
+                        // \d、\Q、\x41、反向引用等: 无法确定字面量，停止
+                        break scan;
+                    }
+                    run.append(escaped);
+                    i++;
+                    break;
+                case '?':
+                case '*':
+                case '{':
+                    // 前一个字符可能出现0次
+                    if (run.length() > 0) {
+                        run.setLength(run.length() - 1);
+                    }
+                    best = longer(best, run);
+                    run.setLength(0);
+                    if (c == '{') {
+                        int close = regex.indexOf('}', i);
+                        if (close < 0) {
+                            break scan;
+                        }
+                        i = close;
+                    }
+                    break;
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                    best = longer(best, run);
+                    run.setLength(0);
+                    break;
+                case '(':
+                case '[':
+                case ')':
+                case ']':
+                case '}':
+                case '|':
+                    // 分组、字符类: 内容和后续量词无法简单确定，停止
+                    break scan;
+                default:
+                    if (c >= ALPHABET) {
+                        best = longer(best, run);
+                        run.setLength(0);
+                    } else {
+                        run.append(c);
+                    }
+                    break;
+            }
+        }
+        // 停止扫描处的分组、字符类或转义序列是新的原子，其后的量词不影响当前字面量
+        best = longer(best, run);
+        return best != null && best.length() >= MIN_ANCHOR_LENGTH ? best : null;
+    }
+
+    private static String longer(String best, StringBuilder run) {
+        return run.length() > (best == null ? 0 : best.length()) ? run.toString() : best;
+    }
+
+    /**
+     * 检查正则表达式是否包含顶层分支: 顶层分支意味着没有任何字面量是必需的
+     * @param regex 正则表达式
+     * @return 如果包含顶层分支或结构无法识别，则返回true，否则返回false
+     */
+    private static boolean hasTopLevelAlternation(String regex) {
+        int groupDepth = 0;
+        int classDepth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", i + 2);
+                    if (end < 0) {
+                        return false;
+                    }
+                    i = end + 1;
+                } else {
+                    i++;
+                }
+            } else if (classDepth > 0) {
+                if (c == '[') {
+                    classDepth++;
+                } else if (c == ']') {
+                    classDepth--;
+                }
+            } else if (c == '[') {
+                classDepth++;
+                // 紧跟在[或[^之后的]是字面量
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == '(') {
+                groupDepth++;
+            } else if (c == ')') {
+                groupDepth--;
+                if (groupDepth < 0) {
+                    return true;
+                }
+            } else if (c == '|' && groupDepth == 0) {
+                return true;
+            }
+        }
+        return groupDepth != 0 || classDepth != 0;
+    }
+
+    /**
+     * 补全自动机: 按层次遍历计算失败跳转，把缺失的转移指向失败状态的转移，并沿失败链合并输出
+     */
+    private void buildAutomaton(List<int[]> trie, List<List<Integer>> trieOutputs) {
+        int[] fail = new int[trie.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int ch = 0; ch < ALPHABET; ch++) {
+            int next = trie.get(ROOT)[ch];
+            if (next < 0) {
+                transitions[ch] = ROOT;
+            } else {
+                transitions[ch] = next;
+                fail[next] = ROOT;
+                queue.add(next);
+            }
+        }
+        outputs[ROOT] = toArray(trieOutputs.get(ROOT));
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> merged = new ArrayList<>(trieOutputs.get(state));
+            for (int index : outputs[fail[state]]) {
+                merged.add(index);
+            }
+            outputs[state] = toArray(merged);
+            for (int ch = 0; ch < ALPHABET; ch++) {
+                int next = trie.get(state)[ch];
+                if (next < 0) {
+                    transitions[state * ALPHABET + ch] = transitions[fail[state] * ALPHABET + ch];
+                } else {
+                    transitions[state * ALPHABET + ch] = next;
+                    fail[next] = transitions[fail[state] * ALPHABET + ch];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static int[] newNode() {
+        int[] node = new int[ALPHABET];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+package org.oxff.coverage;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 接口目录解析器: 支持纯文本（每行一个接口名称）和OpenAPI/Swagger文档（JSON或YAML，读取operationId）
+ */
+public final class CatalogParser {
+    // YAML中的operationId行
+    private static final Pattern YAML_OPERATION_ID = Pattern.compile(
+            "^\\s*-?\\s*operationId\\s*:\\s*['\"]?([^'\"#\\s]+)['\"]?", Pattern.MULTILINE);
+    // 判断是否为OpenAPI/Swagger的YAML文档
+    private static final Pattern YAML_OPENAPI_HEADER = Pattern.compile("^\\s*(openapi|swagger)\\s*:", Pattern.MULTILINE);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private CatalogParser() {
+    }
+
+    /**
+     * 解析目录内容: JSON按OpenAPI文档处理，包含openapi/swagger头的文本按YAML处理，其余按纯文本处理
+     * @param content 文件内容
+     * @return 去重后的接口名称，保持出现顺序
+     * @throws IOException JSON格式错误时抛出
+     */
+    public static List<String> parse(String content) throws IOException {
+        String trimmed = content.trim();
+        if (trimmed.startsWith("{")) {
+            return parseOpenApiJson(trimmed);
+        }
+        if (YAML_OPENAPI_HEADER.matcher(trimmed).find()) {
+            return parseOpenApiYaml(trimmed);
+        }
+        return parsePlainText(trimmed);
+    }
+
+    /**
+     * 解析OpenAPI JSON文档: 流式读取，收集所有operationId字段
+     * @param content JSON内容
+     * @return 接口名称列表
+     * @throws IOException JSON格式错误时抛出
+     */
+    private static List<String> parseOpenApiJson(String content) throws IOException {
+        Set<String> operationIds = new LinkedHashSet<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && "operationId".equals(parser.getCurrentName())
+                        && parser.nextToken() == JsonToken.VALUE_STRING) {
+                    addName(operationIds, parser.getText());
+                }
+            }
+        }
+        return new ArrayList<>(operationIds);
+    }
+
+    /**
+     * 解析OpenAPI YAML文档: 按行匹配operationId
+     * @param content YAML内容
+     * @return 接口名称列表
+     */
+    private static List<String> parseOpenApiYaml(String content) {
+        Set<String> operationIds = new LinkedHashSet<>();
+        Matcher matcher = YAML_OPERATION_ID.matcher(content);
+        while (matcher.find()) {
+            addName(operationIds, matcher.group(1));
+        }
+        return new ArrayList<>(operationIds);
+    }
+
+    /**
+     * 解析纯文本: 每行一个接口名称，忽略空行和以#开头的注释行
+     * @param content 文本内容
+     * @return 接口名称列表
+     */
+    private static List<String> parsePlainText(String content) {
+        Set<String> interfaceNames = new LinkedHashSet<>();
+        for (String line : content.split("\\r?\\n")) {
+            String name = line.trim();
+            if (!name.startsWith("#")) {
+                addName(interfaceNames, name);
+            }
+        }
+        return new ArrayList<>(interfaceNames);
+    }
+
+    private static void addName(Set<String> names, String name) {
+        if (name != null && !name.trim().isEmpty()) {
+            names.add(name.trim());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.oxff.coverage;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.persistence.PersistedList;
+import burp.api.montoya.persistence.PersistedObject;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 接口覆盖率目录: 保存导入的预期接口列表，随流量增量标记已覆盖的接口
+ * <p>
+ * 目录按接口名称哈希到ID，覆盖状态保存在BitSet中，标记一次命中只需一次哈希查找。
+ * 目录外出现的接口名称单独记录，便于发现文档中缺失的接口。
+ */
+public class CoverageCatalog {
+    // 持久化键: 导入的目录内容保存在项目数据中
+    private static final String CATALOG_KEY = "coverage.catalog";
+    // 目录外接口名称最多记录的数量
+    private static final int MAX_UNEXPECTED = 10000;
+
+    // 日志记录器
+    private final Logging logger;
+    // 持久化对象
+    private final PersistedObject persistedObject;
+
+    // 接口名称到ID的映射
+    private Map<String, Integer> ids = new HashMap<>();
+    // ID到接口名称的映射
+    private String[] names = new String[0];
+    // 已覆盖的接口ID
+    private BitSet covered = new BitSet();
+    // 已覆盖的接口数量
+    private int coveredCount = 0;
+    // 目录外出现的接口名称
+    private final Set<String> unexpected = new LinkedHashSet<>();
+    // 修改计数: 覆盖状态或目录每次变化时递增，界面据此判断是否需要刷新
+    private volatile long modCount = 0;
+
+    /**
+     * 构造函数: 创建覆盖率目录并加载项目中保存的目录
+     * @param montoyaApi Burp Suite API接口
+     */
+    public CoverageCatalog(MontoyaApi montoyaApi) {
+        this.logger = montoyaApi.logging();
+        this.persistedObject = montoyaApi.persistence().extensionData();
+        load();
+    }
+
+    /**
+     * 加载保存的目录
+     */
+    private void load() {
+        try {
+            PersistedList<String> saved = persistedObject.getStringList(CATALOG_KEY);
+            if (saved != null && !saved.isEmpty()) {
+                replace(saved);
+                logger.logToOutput("已加载接口覆盖率目录，共 " + names.length + " 个接口");
+            }
+        } catch (Exception e) {
+            logger.logToError("加载接口覆盖率目录失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 导入目录: 替换当前目录并保存到项目数据，覆盖状态重新计算
+     * @param interfaceNames 预期的接口名称
+     * @param observedNames 导入前已经观察到的接口名称，用于初始化覆盖状态
+     */
+    public void importCatalog(Collection<String> interfaceNames, Collection<String> observedNames) {
+        synchronized (this) {
+            replace(interfaceNames);
+            for (String observed : observedNames) {
+                markCovered(observed);
+            }
+        }
+        try {
+            PersistedList<String> list = PersistedList.persistedStringList();
+            list.addAll(interfaceNames);
+            persistedObject.setStringList(CATALOG_KEY, list);
+        } catch (Exception e) {
+            logger.logToError("保存接口覆盖率目录失败: " + e.getMessage());
+        }
+        logger.logToOutput("已导入接口覆盖率目录，共 " + size() + " 个接口，已覆盖 " + getCoveredCount() + " 个");
+    }
+
+    /**
+     * 清空目录
+     */
+    public void clear() {
+        synchronized (this) {
+            replace(new ArrayList<>());
+        }
+        persistedObject.deleteStringList(CATALOG_KEY);
+    }
+
+    /**
+     * 标记接口已覆盖: 由实时流量和批量处理在提取到接口名称时调用
+     * @param interfaceName 接口名称
+     */
+    public synchronized void markCovered(String interfaceName) {
+        if (interfaceName == null || names.length == 0) {
+            return;
+        }
+        Integer id = ids.get(interfaceName);
+        if (id == null) {
+            if (unexpected.size() < MAX_UNEXPECTED && unexpected.add(interfaceName)) {
+                modCount++;
+            }
+            return;
+        }
+        if (!covered.get(id)) {
+            covered.set(id);
+            coveredCount++;
+            modCount++;
+        }
+    }
+
+    /**
+     * 判断接口是否已覆盖
+     * @param interfaceName 接口名称
+     * @return 如果在目录中且已覆盖，则返回true，否则返回false
+     */
+    public synchronized boolean isCovered(String interfaceName) {
+        Integer id = ids.get(interfaceName);
+        return id != null && covered.get(id);
+    }
+
+    /**
+     * 获取已覆盖的接口
+     * @return 按目录顺序排列的接口名称
+     */
+    public synchronized List<String> getCovered() {
+        List<String> result = new ArrayList<>(coveredCount);
+        for (int id = covered.nextSetBit(0); id >= 0; id = covered.nextSetBit(id + 1)) {
+            result.add(names[id]);
+        }
+        return result;
+    }
+
+    /**
+     * 获取尚未覆盖的接口
+     * @return 按目录顺序排列的接口名称
+     */
+    public synchronized List<String> getUncovered() {
+        List<String> result = new ArrayList<>(names.length - coveredCount);
+        for (int id = covered.nextClearBit(0); id < names.length; id = covered.nextClearBit(id + 1)) {
+            result.add(names[id]);
+        }
+        return result;
+    }
+
+    /**
+     * 获取目录外出现的接口名称
+     * @return 按首次出现顺序排列的接口名称
+     */
+    public synchronized List<String> getUnexpected() {
+        return new ArrayList<>(unexpected);
+    }
+
+    public synchronized int size() {
+        return names.length;
+    }
+
+    public synchronized int getCoveredCount() {
+        return coveredCount;
+    }
+
+    public long getModCount() {
+        return modCount;
+    }
+
+    /**
+     * 替换目录内容: 去重并重置覆盖状态，调用方负责同步
+     * @param interfaceNames 预期的接口名称
+     */
+    private void replace(Collection<String> interfaceNames) {
+        Map<String, Integer> newIds = new HashMap<>(interfaceNames.size() * 2);
+        List<String> newNames = new ArrayList<>(interfaceNames.size());
+        for (String interfaceName : interfaceNames) {
+            if (interfaceName != null && !interfaceName.isEmpty() && !newIds.containsKey(interfaceName)) {
+                newIds.put(interfaceName, newNames.size());
+                newNames.add(interfaceName);
+            }
+        }
+        ids = newIds;
+        names = newNames.toArray(new String[0]);
+        covered = new BitSet(names.length);
+        coveredCount = 0;
+        unexpected.clear();
+        modCount++;
+    }
+}
@@ -0,0 +1,36 @@
+package org.oxff.export;
+
+/**
+ * 导出格式枚举
+ */
+public enum ExportFormat {
+    /**
+     * 逗号分隔值，首行为表头
+     */
+    CSV("csv"),
+
+    /**
+     * 每行一个JSON对象
+     */
+    JSONL("jsonl");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 根据文件名判断导出格式: 以.jsonl或.json结尾时使用JSONL，其余使用CSV
+     * @param fileName 文件名
+     * @return 导出格式
+     */
+    public static ExportFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".jsonl") || lower.endsWith(".json") ? JSONL : CSV;
+    }
+}
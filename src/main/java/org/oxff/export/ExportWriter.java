@@ -0,0 +1,180 @@
+package org.oxff.export;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * 导出写入器: 把提取结果逐行编码到固定大小的缓冲区，写满后通过文件通道写出，内存占用与记录数量无关
+ * <p>
+ * 每条记录包含历史位置、URL、请求方法、接口名称、规则ID和时间戳。
+ */
+public class ExportWriter implements Closeable {
+    // 字节缓冲区大小
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "index,url,method,interface_name,rule_id,timestamp\n";
+
+    private final FileChannel channel;
+    private final ExportFormat format;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    // 复用的行缓冲
+    private final StringBuilder line = new StringBuilder(256);
+    // 已写入的记录数量
+    private long recordCount = 0;
+
+    /**
+     * 构造函数: 创建或覆盖目标文件，CSV格式先写入表头
+     * @param path 目标文件路径
+     * @param format 导出格式
+     * @throws IOException 打开文件失败时抛出
+     */
+    public ExportWriter(Path path, ExportFormat format) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.format = format;
+        if (format == ExportFormat.CSV) {
+            line.append(CSV_HEADER);
+            encodeLine();
+        }
+    }
+
+    /**
+     * 写入一条记录
+     * @param index 代理历史位置，未知时为-1
+     * @param url 请求URL
+     * @param method 请求方法
+     * @param interfaceName 接口名称
+     * @param ruleId 产生结果的规则ID
+     * @param timeMillis 请求时间
+     * @throws IOException 写入失败时抛出
+     */
+    public synchronized void write(int index, String url, String method, String interfaceName, int ruleId,
+                                   long timeMillis) throws IOException {
+        String timestamp = Instant.ofEpochMilli(timeMillis).toString();
+        if (format == ExportFormat.CSV) {
+            line.append(index).append(',');
+            appendCsv(url).append(',');
+            appendCsv(method).append(',');
+            appendCsv(interfaceName).append(',');
+            line.append(ruleId).append(',').append(timestamp).append('\n');
+        } else {
+            line.append("{\"index\":").append(index);
+            line.append(",\"url\":");
+            appendJson(url);
+            line.append(",\"method\":");
+            appendJson(method);
+            line.append(",\"interface_name\":");
+            appendJson(interfaceName);
+            line.append(",\"rule_id\":").append(ruleId);
+            line.append(",\"timestamp\":\"").append(timestamp).append("\"}\n");
+        }
+        encodeLine();
+        recordCount++;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 关闭写入器: 写出缓冲区剩余内容并关闭文件通道
+     * @throws IOException 写入失败时抛出
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * 按CSV规则追加字段: 包含逗号、引号或换行时用双引号包裹，内部引号加倍
+     * @param value 字段值
+     * @return 行缓冲
+     */
+    private StringBuilder appendCsv(String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return line.append(value);
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+    /**
+     * 追加JSON字符串
+     * @param value 字段值，为null时写入null
+     */
+    private void appendJson(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(value, line);
+        line.append('"');
+    }
+
+    /**
+     * 把行缓冲编码到字节缓冲区，缓冲区写满时写出到文件通道
+     * @throws IOException 写入失败时抛出
+     */
+    private void encodeLine() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, byteBuffer, true);
+            if (result.isOverflow()) {
+                flushBuffer();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        encoder.reset();
+        line.setLength(0);
+    }
+
+    /**
+     * 写出字节缓冲区中的内容
+     * @throws IOException 写入失败时抛出
+     */
+    private void flushBuffer() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+}
@@ -0,0 +1,146 @@
+package org.oxff.extractor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 请求体解码器: 在规则之前还原压缩（Content-Encoding: gzip/deflate）或base64包装的请求体
+ * <p>
+ * 解压和解码都以流的方式进行，输出达到字节上限即停止，超大或恶意构造的压缩数据不会被完整展开。
+ * base64只在整个请求体都由base64字符组成、且解码结果以JSON或XML开头时才还原，避免误解码普通文本。
+ */
+public final class BodyDecoder {
+    // 解码结果的最大字节数
+    public static final int MAX_DECODED_BYTES = 1 << 20;
+    // 识别为base64请求体的最短长度
+    private static final int MIN_BASE64_LENGTH = 16;
+    private static final int BUFFER_SIZE = 8192;
+
+    private BodyDecoder() {
+    }
+
+    /**
+     * 按Content-Encoding解压请求体
+     * @param contentEncoding Content-Encoding请求头的值
+     * @param raw 原始请求体字节
+     * @return 解压后的字节（最多MAX_DECODED_BYTES），编码不支持或数据损坏时返回null
+     */
+    public static byte[] decompress(String contentEncoding, byte[] raw) {
+        if (contentEncoding == null || raw.length == 0) {
+            return null;
+        }
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        try {
+            switch (encoding) {
+                case "gzip":
+                case "x-gzip":
+                    return readCapped(new GZIPInputStream(new ByteArrayInputStream(raw), BUFFER_SIZE));
+                case "deflate":
+                    // HTTP的deflate通常带zlib头，部分实现发送裸deflate数据
+                    byte[] inflated = inflate(raw, false);
+                    return inflated != null ? inflated : inflate(raw, true);
+                default:
+                    return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 还原base64包装的请求体: 支持标准和URL安全字母表，解码结果为gzip数据时继续解压
+     * @param body 去除首尾空白的请求体
+     * @return 还原后的文本，请求体不是base64包装的JSON或XML时返回null
+     */
+    public static String decodeBase64Text(String body) {
+        if (body == null || body.length() < MIN_BASE64_LENGTH || !isBase64(body)) {
+            return null;
+        }
+        boolean urlSafe = body.indexOf('-') >= 0 || body.indexOf('_') >= 0;
+        // 只解码上限对应的前缀，截断到4字符对齐
+        int limit = Math.min(body.length(), (MAX_DECODED_BYTES / 3) * 4);
+        String encoded = limit < body.length() ? body.substring(0, limit) : stripPadding(body);
+        try {
+            byte[] decoded = (urlSafe ? Base64.getUrlDecoder() : Base64.getDecoder()).decode(encoded);
+            if (decoded.length > 2 && (decoded[0] & 0xff) == 0x1f && (decoded[1] & 0xff) == 0x8b) {
+                decoded = decompress("gzip", decoded);
+                if (decoded == null) {
+                    return null;
+                }
+            }
+            String text = new String(decoded, StandardCharsets.UTF_8).trim();
+            return looksStructured(text) ? text : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] inflate(byte[] raw, boolean nowrap) {
+        Inflater inflater = new Inflater(nowrap);
+        try {
+            return readCapped(new InflaterInputStream(new ByteArrayInputStream(raw), inflater, BUFFER_SIZE));
+        } catch (IOException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 读取解压流: 达到字节上限即停止，不读取剩余数据
+     */
+    private static byte[] readCapped(InputStream in) throws IOException {
+        try (in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (out.size() < MAX_DECODED_BYTES
+                    && (read = in.read(buffer, 0, Math.min(buffer.length, MAX_DECODED_BYTES - out.size()))) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static boolean isBase64(String body) {
+        int length = body.length();
+        int padding = 0;
+        for (int i = 0; i < length; i++) {
+            char c = body.charAt(i);
+            if (c == '=') {
+                padding++;
+                if (i < length - 2) {
+                    return false;
+                }
+            } else if (padding > 0 || !((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '+' || c == '/' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stripPadding(String body) {
+        int end = body.length();
+        while (end > 0 && body.charAt(end - 1) == '=') {
+            end--;
+        }
+        return body.substring(0, end);
+    }
+
+    private static boolean looksStructured(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return first == '{' || first == '[' || first == '<';
+    }
+}
@@ -0,0 +1,72 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.core.ByteArray;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 字节提取器接口: 直接在请求体字节上提取接口名称，适用于二进制或需要按字节定位的请求体，不把请求体解码为字符串
+ * <p>
+ * 通过提取上下文使用时读取已解压的请求体字节；只有请求体字符串时由字符串转换为字节。
+ */
+public interface ByteExtractor extends InterfaceNameExtractor {
+    /**
+     * 从请求体字节中提取接口名称
+     * @param body 请求体字节，不为空
+     * @param context 提取上下文，用于读取请求头
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    Optional<String> extract(ByteArray body, ExtractionContext context);
+    
+    /**
+     * 从请求体字节中提取所有接口名称: 默认只返回单个名称，一个请求体包含多个消息的提取器覆盖此方法
+     * @param body 请求体字节，不为空
+     * @param context 提取上下文，用于读取请求头
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    default List<String> extractAll(ByteArray body, ExtractionContext context) {
+        return extract(body, context).map(List::of).orElse(List.of());
+    }
+    
+    /**
+     * 从内容中提取接口名称: 只有请求体时没有请求头可用
+     * @param content 需要提取的内容
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    default Optional<String> extract(String content) {
+        if (content == null || content.isEmpty()) {
+            return Optional.empty();
+        }
+        return extract(new ExtractionContext(null, content));
+    }
+    
+    /**
+     * 从提取上下文中提取接口名称: 使用请求体字节
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    default Optional<String> extract(ExtractionContext context) {
+        ByteArray body = context.bodyBytes();
+        if (body == null || body.length() == 0) {
+            return Optional.empty();
+        }
+        return extract(body, context);
+    }
+    
+    /**
+     * 从提取上下文中提取所有接口名称: 使用请求体字节
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    @Override
+    default List<String> extractAll(ExtractionContext context) {
+        ByteArray body = context.bodyBytes();
+        if (body == null || body.length() == 0) {
+            return List.of();
+        }
+        return extractAll(body, context);
+    }
+}
@@ -0,0 +1,194 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.logging.Logging;
+import org.oxff.config.RuleType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 链式提取器: 把多个提取步骤串联起来，上一步的结果作为下一步的输入，用于表单参数中的JSON、JSON字符串字段中的JSON等嵌套载荷
+ * <p>
+ * 规则内容用->分隔各步骤，如data -> $.method或$.payload -> $.method。第一步的类型为规则类型（表单参数或JSON路径），
+ * 后续步骤按前缀识别: $开头为JSON路径，/开头为XPath，regex:前缀为正则表达式，form:前缀或不带前缀为表单参数。
+ * 中间结果只在需要时解码一次: 表单参数已由参数表完成URL解码，JSON字符串字段由解析器完成反转义，
+ * JSON路径得到的对象或数组直接交给下一个JSON路径步骤求值，不会重新序列化为字符串。
+ * 某一步得到多个结果时，每个结果分别进入下一步。
+ */
+public class ChainedExtractor implements InterfaceNameExtractor {
+    // 步骤分隔符
+    public static final String SEPARATOR = "->";
+    private static final String REGEX_PREFIX = "regex:";
+    private static final String FORM_PREFIX = "form:";
+
+    // 第一步的类型
+    private final RuleType firstType;
+    // 第一步为表单参数时的参数名
+    private final String firstParameter;
+    private final List<Stage> stages;
+    private final Logging logger;
+
+    /**
+     * 构造函数: 创建链式提取器并编译所有步骤
+     * @param firstType 第一步的类型，支持表单参数和JSON路径
+     * @param pattern 用->分隔的规则内容
+     * @param logger 日志记录器
+     * @throws IllegalArgumentException 如果第一步类型不支持或某一步为空
+     * @throws RuntimeException 如果某一步的表达式无效
+     */
+    public ChainedExtractor(RuleType firstType, String pattern, Logging logger) {
+        if (firstType != RuleType.FORM && firstType != RuleType.JSON_PATH) {
+            throw new IllegalArgumentException("链式规则的第一步只支持表单参数或JSON路径");
+        }
+        String[] specs = pattern.split(SEPARATOR);
+        if (specs.length < 2) {
+            throw new IllegalArgumentException("链式规则至少需要两步");
+        }
+        this.firstType = firstType;
+        this.logger = logger;
+        this.stages = new ArrayList<>(specs.length);
+        for (int i = 0; i < specs.length; i++) {
+            String spec = specs[i].trim();
+            if (spec.isEmpty()) {
+                throw new IllegalArgumentException("第" + (i + 1) + "步为空");
+            }
+            stages.add(i == 0 ? firstStage(firstType, spec) : stageOf(spec, logger));
+        }
+        this.firstParameter = firstType == RuleType.FORM ? specs[0].trim() : null;
+    }
+
+    /**
+     * 检查规则内容是否为链式规则
+     * @param pattern 规则内容
+     * @return 如果包含步骤分隔符，则返回true，否则返回false
+     */
+    public static boolean isChained(String pattern) {
+        return pattern != null && pattern.contains(SEPARATOR);
+    }
+
+    /**
+     * 从内容中提取接口名称
+     * @param content 需要提取的内容
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(String content) {
+        if (content == null || content.isEmpty()) {
+            return Optional.empty();
+        }
+        List<String> names = new ArrayList<>(1);
+        run(content, 0, names);
+        return names.isEmpty() ? Optional.empty() : Optional.of(names.get(0));
+    }
+
+    /**
+     * 从提取上下文中提取接口名称
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(ExtractionContext context) {
+        List<String> names = extractAll(context);
+        return names.isEmpty() ? Optional.empty() : Optional.of(names.get(0));
+    }
+
+    /**
+     * 从提取上下文中提取所有接口名称: 第一步为表单参数时读取共享的参数表，请求体和查询字符串不会被重复拆分
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    @Override
+    public List<String> extractAll(ExtractionContext context) {
+        List<String> names = new ArrayList<>();
+        if (firstType == RuleType.FORM) {
+            run(context.parameters().get(firstParameter), 1, names);
+        } else {
+            run(context.getBody(), 0, names);
+        }
+        return names;
+    }
+
+    /**
+     * 执行剩余步骤: 多个结果逐个进入下一步，最后一步的结果作为接口名称
+     * @param value 当前步骤的输入
+     * @param index 当前步骤序号
+     * @param names 收集到的名称
+     */
+    private void run(Object value, int index, List<String> names) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                run(element, index, names);
+            }
+            return;
+        }
+        if (index == stages.size()) {
+            String name = value.toString().trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+            return;
+        }
+        try {
+            run(stages.get(index).apply(value), index + 1, names);
+        } catch (Exception e) {
+            if (logger != null) {
+                logger.logToError("链式规则第" + (index + 1) + "步提取异常: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Stage firstStage(RuleType firstType, String spec) {
+        if (firstType == RuleType.FORM) {
+            return formStage(spec);
+        }
+        return jsonPathStage(spec);
+    }
+
+    /**
+     * 按前缀创建后续步骤
+     * @param spec 步骤内容
+     * @param logger 日志记录器
+     * @return 提取步骤
+     */
+    private static Stage stageOf(String spec, Logging logger) {
+        if (spec.startsWith("$")) {
+            return jsonPathStage(spec);
+        }
+        if (spec.startsWith("/")) {
+            XPathExtractor extractor = new XPathExtractor(spec, logger);
+            return input -> input instanceof String ? extractor.extract((String) input).orElse(null) : null;
+        }
+        if (spec.startsWith(REGEX_PREFIX)) {
+            RegexExtractor extractor = new RegexExtractor(spec.substring(REGEX_PREFIX.length()).trim(), logger);
+            return input -> input instanceof String ? extractor.extract((String) input).orElse(null) : null;
+        }
+        return formStage(spec.startsWith(FORM_PREFIX) ? spec.substring(FORM_PREFIX.length()).trim() : spec);
+    }
+
+    /**
+     * JSON路径步骤: 字符串输入先解析，已解析的对象直接求值
+     */
+    private static Stage jsonPathStage(String spec) {
+        JsonPathExtractor extractor = new JsonPathExtractor(spec, null);
+        return input -> input instanceof String || input instanceof Map ? extractor.evaluate(input) : null;
+    }
+
+    /**
+     * 表单参数步骤: 把字符串输入作为URL编码的表单解析
+     */
+    private static Stage formStage(String name) {
+        return input -> input instanceof String ? ParameterMap.parse((String) input, null).get(name) : null;
+    }
+
+    /**
+     * 提取步骤: 输入为字符串或已解析的JSON，输出为单个值、多个值（List）或null
+     */
+    private interface Stage {
+        Object apply(Object input);
+    }
+}
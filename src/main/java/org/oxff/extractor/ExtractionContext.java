@@ -0,0 +1,146 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 提取上下文: 单个请求在一次提取过程中共享的内容，请求体和参数表等派生数据在第一次使用时构建，之后所有规则复用
+ * <p>
+ * 只读取请求头的规则命中时，请求体不会被解码。请求体在第一次使用时经过解码阶段: 按Content-Encoding解压，
+ * 并还原base64包装的JSON或XML，解码结果有字节上限。不是线程安全的，每个请求创建一个实例。
+ */
+public final class ExtractionContext {
+    // 请求，只有请求体时为null
+    private final HttpRequest request;
+    // 请求URL，未知时为null
+    private final String url;
+    // 调用方已读取的原始请求体，未提供时为null
+    private final String rawBody;
+    // 解码并去除首尾空白的请求体，延迟读取
+    private String body;
+    // 请求体字节（已解压），延迟读取
+    private ByteArray bodyBytes;
+    // 按Content-Encoding解压后的字节，未压缩或尚未解压时为null
+    private byte[] decompressed;
+    private boolean decompressAttempted;
+    // 查询字符串和请求体参数，延迟解析
+    private ParameterMap parameters;
+
+    /**
+     * 构造函数: 创建提取上下文
+     * @param url 请求URL，未知时为null
+     * @param body 请求体
+     */
+    public ExtractionContext(String url, String body) {
+        this(null, url, body);
+    }
+
+    private ExtractionContext(HttpRequest request, String url, String rawBody) {
+        this.request = request;
+        this.url = url;
+        this.rawBody = rawBody;
+    }
+
+    /**
+     * 为二进制消息（如WebSocket二进制帧）创建提取上下文: 字节提取器直接使用消息字节，其他规则需要时才按UTF-8解码
+     * @param url 消息所属连接的URL，未知时为null
+     * @param payload 消息字节
+     * @return 提取上下文
+     */
+    public static ExtractionContext ofBytes(String url, ByteArray payload) {
+        ExtractionContext context = new ExtractionContext(null, url, null);
+        context.bodyBytes = payload;
+        return context;
+    }
+
+    /**
+     * 为请求创建提取上下文: 请求体在第一次使用时读取
+     * @param request HTTP请求
+     * @return 提取上下文
+     */
+    public static ExtractionContext of(HttpRequest request) {
+        return new ExtractionContext(request, request.url(), null);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * 获取请求体: 第一次调用时读取、解码并去除首尾空白
+     * @return 请求体
+     */
+    public String getBody() {
+        if (body == null) {
+            String text;
+            byte[] bytes = decompressed();
+            if (bytes != null) {
+                text = new String(bytes, StandardCharsets.UTF_8).trim();
+            } else if (rawBody != null) {
+                text = rawBody;
+            } else if (request != null) {
+                text = request.bodyToString().trim();
+            } else if (bodyBytes != null) {
+                text = new String(bodyBytes.getBytes(), StandardCharsets.UTF_8).trim();
+            } else {
+                text = "";
+            }
+            String unwrapped = BodyDecoder.decodeBase64Text(text);
+            body = unwrapped != null ? unwrapped : text;
+        }
+        return body;
+    }
+
+    /**
+     * 获取请求体字节: 未压缩时直接使用请求的字节数组，不解码为字符串；压缩时为解压后的字节；只有请求体时由字符串转换
+     * @return 请求体字节
+     */
+    public ByteArray bodyBytes() {
+        if (bodyBytes == null) {
+            byte[] bytes = decompressed();
+            if (bytes != null) {
+                bodyBytes = ByteArray.byteArray(bytes);
+            } else {
+                bodyBytes = request != null ? request.body() : ByteArray.byteArray(getBody());
+            }
+        }
+        return bodyBytes;
+    }
+
+    /**
+     * 按Content-Encoding解压请求体: 只在第一次需要请求体时尝试一次
+     * @return 解压后的字节，未压缩、编码不支持或数据损坏时返回null
+     */
+    private byte[] decompressed() {
+        if (!decompressAttempted) {
+            decompressAttempted = true;
+            String contentEncoding = header("Content-Encoding");
+            if (contentEncoding != null) {
+                decompressed = BodyDecoder.decompress(contentEncoding, request.body().getBytes());
+            }
+        }
+        return decompressed;
+    }
+
+    /**
+     * 获取请求头的值
+     * @param name 请求头名称，不区分大小写
+     * @return 请求头的值，不存在或只有请求体时返回null
+     */
+    public String header(String name) {
+        return request != null ? request.headerValue(name) : null;
+    }
+
+    /**
+     * 获取请求参数表: 第一次调用时解析请求体和查询字符串
+     * @return 参数表
+     */
+    public ParameterMap parameters() {
+        if (parameters == null) {
+            parameters = ParameterMap.parse(getBody(), ParameterMap.queryOf(url));
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,326 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.ContentType;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+import org.oxff.config.ConfigManager;
+import org.oxff.config.ExtractionRule;
+import org.oxff.config.HostPartition;
+import org.oxff.config.RuleType;
+import org.oxff.index.NamePool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 提取引擎: 按配置版本缓存已编译的提取器，并判断历史备注是否因规则变更而过期
+ */
+public class ExtractionEngine {
+    // 规则数量达到该值时并行编译
+    private static final int PARALLEL_COMPILE_THRESHOLD = 64;
+    
+    // 日志记录器
+    private final Logging logger;
+    // 配置管理器
+    private final ConfigManager configManager;
+    // 提取器工厂
+    private final ExtractorFactory extractorFactory;
+    // 接口名称驻留池
+    private final NamePool namePool;
+    // 当前配置版本对应的规则快照
+    private volatile RuleSnapshot snapshot;
+    
+    /**
+     * 构造函数: 初始化提取引擎
+     * @param logger 日志记录器
+     * @param configManager 配置管理器
+     * @param namePool 接口名称驻留池
+     */
+    public ExtractionEngine(Logging logger, ConfigManager configManager, NamePool namePool) {
+        this.logger = logger;
+        this.configManager = configManager;
+        this.extractorFactory = new ExtractorFactory();
+        this.namePool = namePool;
+    }
+    
+    /**
+     * 提取接口名称: 只使用不限主机的规则
+     * @param body 请求体
+     * @return 提取结果，如果没有匹配的规则或提取失败，则返回空
+     */
+    public Optional<ExtractionResult> extract(String body) {
+        return extract(body, null);
+    }
+    
+    /**
+     * 提取接口名称: 按优先级和规则顺序依次尝试适用于该主机的已启用规则，返回第一个非空结果，接口名称为驻留池中的规范实例
+     * <p>
+     * 适用的规则通过按主机分组的索引查出，只检查该主机的规则组和不限主机的规则。
+     * @param body 请求体
+     * @param host 请求主机名，未知时为null，此时跳过限定了主机范围的规则
+     * @return 提取结果，如果没有匹配的规则或提取失败，则返回空
+     */
+    public Optional<ExtractionResult> extract(String body, String host) {
+        return extract(new ExtractionContext(null, body), host);
+    }
+    
+    /**
+     * 提取接口名称: 先尝试请求头规则，再按优先级和规则顺序依次尝试适用于该主机的已启用规则，所有规则共享同一个提取上下文
+     * <p>
+     * 批量请求中的所有接口名称由命中的规则在一次扫描中收集，结果按出现顺序去重。
+     * @param context 提取上下文
+     * @param host 请求主机名，未知时为null，此时跳过限定了主机范围的规则
+     * @return 提取结果，如果没有匹配的规则或提取失败，则返回空
+     */
+    public Optional<ExtractionResult> extract(ExtractionContext context, String host) {
+        RuleSnapshot current = currentSnapshot();
+        for (int i : current.partition.indexesFor(host)) {
+            List<String> interfaceNames = current.extractors.get(i).extractAll(context);
+            if (!interfaceNames.isEmpty()) {
+                ExtractionResult result = toResult(interfaceNames, current.ruleIds[i], current.version);
+                if (result != null) {
+                    return Optional.of(result);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * 驻留接口名称: 返回规范实例，供不经过规则的提取路径（如URL规则）使用
+     * @param interfaceName 接口名称
+     * @return 规范实例
+     */
+    public String canonicalName(String interfaceName) {
+        return namePool.canonical(interfaceName);
+    }
+    
+    public NamePool getNamePool() {
+        return namePool;
+    }
+    
+    /**
+     * 获取请求的主机名
+     * @param request HTTP请求
+     * @return 主机名，无法获取时返回null
+     */
+    public static String hostOf(HttpRequest request) {
+        HttpService service = request != null ? request.httpService() : null;
+        return service != null ? service.host() : null;
+    }
+    
+    /**
+     * 创建提取结果: 去除空名称和重复名称，接口名称替换为驻留池中的规范实例
+     * @param interfaceNames 提取到的接口名称
+     * @param ruleId 规则ID
+     * @param version 配置版本号
+     * @return 提取结果，没有非空名称时返回null
+     */
+    private ExtractionResult toResult(List<String> interfaceNames, int ruleId, int version) {
+        if (interfaceNames.size() == 1) {
+            String interfaceName = interfaceNames.get(0);
+            if (interfaceName == null || interfaceName.isEmpty()) {
+                return null;
+            }
+            int nameId = namePool.idOf(interfaceName);
+            String canonical = nameId == NamePool.NO_ID ? interfaceName : namePool.nameOf(nameId);
+            return new ExtractionResult(canonical, nameId, ruleId, version);
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String interfaceName : interfaceNames) {
+            if (interfaceName != null && !interfaceName.isEmpty()) {
+                distinct.add(namePool.canonical(interfaceName));
+            }
+        }
+        if (distinct.isEmpty()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(distinct);
+        return new ExtractionResult(names, namePool.idOf(names.get(0)), ruleId, version);
+    }
+    
+    /**
+     * 判断标记是否过期: 产生结果的规则被修改、禁用或删除，或排在其前面的规则有变更时，结果可能不同
+     * @param ruleId 产生结果的规则ID，未命中时为负数
+     * @param stampVersion 标记时的配置版本号
+     * @return 如果需要重新提取，则返回true，否则返回false
+     */
+    public boolean isStale(int ruleId, int stampVersion) {
+        RuleSnapshot current = currentSnapshot();
+        if (ruleId <= 0) {
+            // 之前未命中: 任意规则在标记之后发生变更都需要重新尝试
+            return current.maxModifiedVersion > stampVersion;
+        }
+        Integer position = current.positions.get(ruleId);
+        if (position == null) {
+            return true;
+        }
+        return current.prefixModifiedVersions[position] > stampVersion;
+    }
+    
+    /**
+     * 判断请求体类型是否可能被当前规则提取: 用于批量处理前的预过滤
+     * @param contentType 请求体类型
+     * @return 如果至少有一条已启用的规则可能处理该类型，则返回true，否则返回false
+     */
+    public boolean acceptsContentType(ContentType contentType) {
+        return contentType == null || currentSnapshot().contentTypes.contains(contentType);
+    }
+    
+    /**
+     * 判断没有请求体的请求是否可能被当前规则提取: 用于批量处理前的预过滤
+     * @return 如果存在读取请求头或查询参数的已启用规则，则返回true，否则返回false
+     */
+    public boolean acceptsEmptyBody() {
+        return currentSnapshot().acceptsEmptyBody;
+    }
+    
+    /**
+     * 获取当前配置版本号
+     * @return 配置版本号
+     */
+    public int getConfigVersion() {
+        return currentSnapshot().version;
+    }
+    
+    /**
+     * 获取当前规则快照: 配置版本变化时重新编译提取器
+     * @return 规则快照
+     */
+    private RuleSnapshot currentSnapshot() {
+        RuleSnapshot current = snapshot;
+        int version = configManager.getConfigVersion();
+        if (current == null || current.version != version) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.version != version) {
+                    current = compile(version);
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 编译规则快照: 请求头规则在前、其余按优先级排序后为每条已启用的规则创建一次提取器，规则较多时并行编译
+     * @param version 配置版本号
+     * @return 规则快照
+     */
+    private RuleSnapshot compile(int version) {
+        List<ExtractionRule> rules = configManager.getExtractionRules();
+        rules.removeIf(rule -> !rule.isEnabled());
+        // 请求头规则不读取请求体，排在最前面；其余按优先级排序，List.sort是稳定排序，相同优先级保持列表顺序
+        rules.sort(Comparator.comparing((ExtractionRule rule) -> rule.getRuleType() != RuleType.HEADER)
+                .thenComparing(Comparator.comparingInt(ExtractionRule::getPriority).reversed()));
+        InterfaceNameExtractor[] compiled = new InterfaceNameExtractor[rules.size()];
+        IntStream indexes = IntStream.range(0, rules.size());
+        if (rules.size() >= PARALLEL_COMPILE_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> compiled[i] = compileRule(rules.get(i)));
+        
+        List<InterfaceNameExtractor> extractors = new ArrayList<>();
+        List<ExtractionRule> compiledRules = new ArrayList<>();
+        List<Integer> prefixVersions = new ArrayList<>();
+        EnumSet<ContentType> contentTypes = EnumSet.noneOf(ContentType.class);
+        boolean acceptsEmptyBody = false;
+        int maxModified = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            ExtractionRule rule = rules.get(i);
+            maxModified = Math.max(maxModified, rule.getModifiedVersion());
+            if (compiled[i] != null) {
+                extractors.add(compiled[i]);
+                compiledRules.add(rule);
+                prefixVersions.add(maxModified);
+                contentTypes.addAll(contentTypesOf(rule));
+                // 请求头规则和同时读取查询参数的表单参数规则不依赖请求体
+                acceptsEmptyBody |= rule.getRuleType() == RuleType.HEADER || rule.getRuleType() == RuleType.FORM;
+            }
+        }
+        return new RuleSnapshot(version, extractors, compiledRules, prefixVersions, contentTypes, acceptsEmptyBody,
+                maxModified);
+    }
+    
+    /**
+     * 编译单条规则: 可以在多个线程上并行调用
+     * @param rule 提取规则
+     * @return 提取器，编译失败时返回null
+     */
+    private InterfaceNameExtractor compileRule(ExtractionRule rule) {
+        try {
+            return extractorFactory.createExtractor(rule);
+        } catch (Exception e) {
+            logger.logToError("编译提取规则失败: " + rule.getPattern() + " - " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 获取规则可能处理的请求体类型: 未声明类型或类型未知的请求体交给规则自行判断
+     * @param rule 提取规则
+     * @return 请求体类型集合
+     */
+    private static EnumSet<ContentType> contentTypesOf(ExtractionRule rule) {
+        switch (rule.getRuleType()) {
+            case JSON_PATH:
+                return EnumSet.of(ContentType.JSON, ContentType.UNKNOWN, ContentType.NONE);
+            case XPATH:
+                return EnumSet.of(ContentType.XML, ContentType.UNKNOWN, ContentType.NONE);
+            case GRAPHQL:
+                return EnumSet.of(ContentType.JSON, ContentType.UNKNOWN, ContentType.NONE);
+            case MULTIPART_FIELD:
+                return EnumSet.of(ContentType.MULTIPART, ContentType.UNKNOWN, ContentType.NONE);
+            case PROTOBUF_FIELD:
+                // application/grpc-web、application/x-protobuf等二进制类型
+                return EnumSet.of(ContentType.UNKNOWN, ContentType.NONE);
+            default:
+                // 正则表达式规则，以及同时读取查询参数的表单参数规则，可能匹配任意类型的请求
+                return EnumSet.allOf(ContentType.class);
+        }
+    }
+    
+    /**
+     * 规则快照: 某一配置版本下已编译的提取器及规则版本信息
+     */
+    private static class RuleSnapshot {
+        private final int version;
+        private final List<InterfaceNameExtractor> extractors;
+        private final int[] ruleIds;
+        // 按主机分组的规则索引，序号与extractors一致
+        private final HostPartition<ExtractionRule> partition;
+        private final int[] prefixModifiedVersions;
+        private final Map<Integer, Integer> positions = new HashMap<>();
+        private final EnumSet<ContentType> contentTypes;
+        // 是否存在不依赖请求体的规则
+        private final boolean acceptsEmptyBody;
+        private final int maxModifiedVersion;
+        
+        RuleSnapshot(int version, List<InterfaceNameExtractor> extractors, List<ExtractionRule> rules,
+                     List<Integer> prefixVersions, EnumSet<ContentType> contentTypes, boolean acceptsEmptyBody,
+                     int maxModifiedVersion) {
+            this.version = version;
+            this.extractors = extractors;
+            this.partition = new HostPartition<>(rules, ExtractionRule::getHostScope);
+            this.ruleIds = new int[rules.size()];
+            this.prefixModifiedVersions = new int[prefixVersions.size()];
+            for (int i = 0; i < this.ruleIds.length; i++) {
+                this.ruleIds[i] = rules.get(i).getId();
+                this.prefixModifiedVersions[i] = prefixVersions.get(i);
+                positions.put(this.ruleIds[i], i);
+            }
+            this.contentTypes = contentTypes;
+            this.acceptsEmptyBody = acceptsEmptyBody;
+            this.maxModifiedVersion = maxModifiedVersion;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.oxff.extractor;
+
+import java.util.List;
+
+/**
+ * 提取结果类: 记录提取到的接口名称（驻留池中的规范实例）、名称ID以及产生该结果的规则ID和配置版本
+ * <p>
+ * 批量请求可以包含多个接口名称，按出现顺序去重保存；第一个名称为主名称，用于接口索引和提取日志。
+ */
+public class ExtractionResult {
+    // 备注中最多列出的接口名称数量，其余以(+N)表示
+    private static final int MAX_ANNOTATION_NAMES = 3;
+    
+    private final List<String> interfaceNames;
+    private final int nameId;
+    private final int ruleId;
+    private final int configVersion;
+    
+    /**
+     * 构造函数: 创建提取结果
+     * @param interfaceName 提取到的接口名称
+     * @param nameId 接口名称ID，驻留池已满时为NamePool.NO_ID
+     * @param ruleId 产生该结果的规则ID
+     * @param configVersion 提取时的配置版本号
+     */
+    public ExtractionResult(String interfaceName, int nameId, int ruleId, int configVersion) {
+        this(List.of(interfaceName), nameId, ruleId, configVersion);
+    }
+    
+    /**
+     * 构造函数: 创建包含多个接口名称的提取结果
+     * @param interfaceNames 去重后的接口名称，至少包含一个
+     * @param nameId 主名称的ID，驻留池已满时为NamePool.NO_ID
+     * @param ruleId 产生该结果的规则ID
+     * @param configVersion 提取时的配置版本号
+     */
+    public ExtractionResult(List<String> interfaceNames, int nameId, int ruleId, int configVersion) {
+        this.interfaceNames = List.copyOf(interfaceNames);
+        this.nameId = nameId;
+        this.ruleId = ruleId;
+        this.configVersion = configVersion;
+    }
+    
+    /**
+     * 获取主名称
+     * @return 第一个接口名称
+     */
+    public String getInterfaceName() {
+        return interfaceNames.get(0);
+    }
+    
+    /**
+     * 获取所有接口名称
+     * @return 按出现顺序去重的接口名称
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+    
+    /**
+     * 获取备注文本: 单个名称时为名称本身，多个名称时如"a, b, c (+7)"
+     * @return 备注文本
+     */
+    public String getAnnotation() {
+        return formatNames(interfaceNames);
+    }
+    
+    public int getNameId() {
+        return nameId;
+    }
+    
+    public int getRuleId() {
+        return ruleId;
+    }
+    
+    public int getConfigVersion() {
+        return configVersion;
+    }
+    
+    /**
+     * 格式化接口名称列表: 列出前几个名称，其余以数量表示
+     * @param names 接口名称
+     * @return 格式化后的文本
+     */
+    public static String formatNames(List<String> names) {
+        if (names.size() == 1) {
+            return names.get(0);
+        }
+        StringBuilder text = new StringBuilder();
+        int shown = Math.min(names.size(), MAX_ANNOTATION_NAMES);
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(names.get(i));
+        }
+        if (names.size() > shown) {
+            text.append(" (+").append(names.size() - shown).append(')');
+        }
+        return text.toString();
+    }
+}
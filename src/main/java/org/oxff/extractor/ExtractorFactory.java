@@ -5,6 +5,9 @@ import burp.api.montoya.logging.Logging;
 import org.oxff.config.ExtractionRule;
 import org.oxff.config.RuleType;
 
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
 /**
  * 提取器工厂类: 根据规则类型创建适当的提取器
  */
@@ -28,7 +31,7 @@ public class ExtractorFactory {
     }
     
     /**
-     * 根据提取规则创建适当的提取器
+     * 根据提取规则创建适当的提取器: 规则的类型选项在这里生效
      * @param rule 提取规则
      * @return 对应类型的提取器
      */
@@ -39,13 +42,30 @@ public class ExtractorFactory {
         
         switch (rule.getRuleType()) {
             case REGEX:
-                return new RegexExtractor(rule.getPattern(), logger);
+                return new RegexExtractor(rule.getPattern(), regexGroupOf(rule),
+                        Boolean.parseBoolean(rule.getOption(RegexExtractor.OPTION_CASE_INSENSITIVE)),
+                        Boolean.parseBoolean(rule.getOption(RegexExtractor.OPTION_MULTIPLE)), logger);
             case JSON_PATH:
+                if (ChainedExtractor.isChained(rule.getPattern())) {
+                    return new ChainedExtractor(RuleType.JSON_PATH, rule.getPattern(), logger);
+                }
                 return new JsonPathExtractor(rule.getPattern(), logger);
             case XPATH:
                 return new XPathExtractor(rule.getPattern(), logger);
             case FORM:
+                if (ChainedExtractor.isChained(rule.getPattern())) {
+                    return new ChainedExtractor(RuleType.FORM, rule.getPattern(), logger);
+                }
                 return new FormExtractor(rule.getPattern(), logger);
+            case HEADER:
+                return new HeaderExtractor(rule.getPattern(), logger);
+            case GRAPHQL:
+                return new GraphQLExtractor(rule.getPattern(), logger);
+            case MULTIPART_FIELD:
+                return new MultipartFieldExtractor(rule.getPattern(), logger);
+            case PROTOBUF_FIELD:
+                return new ProtobufFieldExtractor(rule.getPattern(),
+                        Boolean.parseBoolean(rule.getOption(ProtobufFieldExtractor.OPTION_GRPC_FRAME)), logger);
             default:
                 if (logger != null) {
                     logger.logToError("未知的规则类型: " + rule.getRuleType());
@@ -55,33 +75,81 @@ public class ExtractorFactory {
     }
     
     /**
-     * 根据规则类型和模式创建提取器
-     * @param ruleType 规则类型
-     * @param pattern 提取模式
-     * @return 对应类型的提取器
+     * 校验提取规则: 编译规则的表达式但不创建提取器，可以在多个线程上并行调用
+     * @param rule 提取规则
+     * @return 问题描述，规则有效时返回null
      */
-    public InterfaceNameExtractor createExtractor(RuleType ruleType, String pattern) {
-        if (ruleType == null || pattern == null) {
+    public static String validate(ExtractionRule rule) {
+        String pattern = rule.getPattern();
+        if (pattern == null || pattern.trim().isEmpty()) {
+            return "规则内容为空";
+        }
+        try {
+            switch (rule.getRuleType()) {
+                case REGEX:
+                    new RegexExtractor(pattern, regexGroupOf(rule), false, false, null);
+                    break;
+                case JSON_PATH:
+                case FORM:
+                    if (ChainedExtractor.isChained(pattern)) {
+                        // 编译每一步，包括其中的XPath步骤
+                        validateChain(rule.getRuleType(), pattern);
+                    } else if (rule.getRuleType() == RuleType.JSON_PATH) {
+                        new JsonPathExtractor(pattern, null);
+                    }
+                    break;
+                case XPATH:
+                    XPathFactory.newInstance().newXPath().compile(pattern);
+                    break;
+                case HEADER:
+                    new HeaderExtractor(pattern, null);
+                    break;
+                case GRAPHQL:
+                    GraphQLExtractor.parseQueryField(pattern);
+                    break;
+                case MULTIPART_FIELD:
+                    MultipartFieldExtractor.parseFieldName(pattern);
+                    break;
+                case PROTOBUF_FIELD:
+                    ProtobufFieldExtractor.parsePath(pattern);
+                    break;
+                default:
+                    break;
+            }
             return null;
+        } catch (XPathExpressionException e) {
+            return "无效的XPath表达式: " + pattern;
+        } catch (RuntimeException e) {
+            return "无效的" + rule.getRuleType().getDisplayName() + "规则: " + pattern + " - " + e.getMessage();
         }
-        
-        switch (ruleType) {
-            case REGEX:
-                return new RegexExtractor(pattern, logger);
-            case JSON_PATH:
-                return new JsonPathExtractor(pattern, logger);
-            case XPATH:
-                return new XPathExtractor(pattern, logger);
-            case FORM:
-                return new FormExtractor(pattern, logger);
-            default:
-                if (logger != null) {
-                    logger.logToError("未知的规则类型: " + ruleType);
-                }
-                return null;
+    }
+    
+    /**
+     * 校验链式规则: 编译所有步骤，XPath步骤只在提取时编译，这里单独检查
+     * @param ruleType 第一步的类型
+     * @param pattern 用->分隔的规则内容
+     * @throws XPathExpressionException 如果某一步的XPath表达式无效
+     */
+    private static void validateChain(RuleType ruleType, String pattern) throws XPathExpressionException {
+        new ChainedExtractor(ruleType, pattern, null);
+        for (String spec : pattern.split(ChainedExtractor.SEPARATOR)) {
+            if (spec.trim().startsWith("/")) {
+                XPathFactory.newInstance().newXPath().compile(spec.trim());
+            }
         }
     }
     
+    /**
+     * 解析正则表达式规则的捕获组选项
+     * @param rule 提取规则
+     * @return 捕获组序号，未设置时返回-1
+     * @throws NumberFormatException 如果选项值不是整数
+     */
+    private static int regexGroupOf(ExtractionRule rule) {
+        String group = rule.getOption(RegexExtractor.OPTION_GROUP);
+        return group == null ? -1 : Integer.parseInt(group.trim());
+    }
+    
     /**
      * 创建表单数据提取器
      * @param paramName 参数名称
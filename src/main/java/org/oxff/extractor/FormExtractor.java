@@ -2,19 +2,16 @@ package org.oxff.extractor;
 
 import burp.api.montoya.logging.Logging;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 /**
  * 表单数据提取器: 从表单数据中提取接口名称
+ * <p>
+ * 通过提取上下文使用时读取共享的参数表，请求体和查询字符串都只解析一次，多条表单规则不会重复拆分同一个请求体。
  */
 public class FormExtractor implements InterfaceNameExtractor {
     private final String paramName;
     private final Logging logger;
-    private final Pattern formPattern = Pattern.compile("([^&=]+)=([^&]*)", Pattern.CASE_INSENSITIVE);
     
     /**
      * 构造函数: 创建表单数据提取器
@@ -33,49 +30,29 @@ public class FormExtractor implements InterfaceNameExtractor {
      */
     @Override
     public Optional<String> extract(String content) {
-        try {
-            // 检查内容是否为空
-            if (content == null || content.isEmpty()) {
-                return Optional.empty();
-            }
-            
-            // 检查内容是否是表单格式
-            if (!isFormContent(content)) {
-                return Optional.empty();
-            }
-            
-            // 解析表单数据
-            String[] pairs = content.split("&");
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("=", 2);
-                if (keyValue.length == 2) {
-                    String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8.name());
-                    if (key.equals(paramName)) {
-                        String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8.name());
-                        return Optional.of(value);
-                    }
-                }
-            }
-        } catch (UnsupportedEncodingException e) {
-            if (logger != null) {
-                logger.logToError("表单数据提取失败: " + e.getMessage());
-            }
-        } catch (Exception e) {
-            if (logger != null) {
-                logger.logToError("表单数据提取异常: " + e.getMessage());
-            }
+        // 检查内容是否为空
+        if (content == null || content.isEmpty()) {
+            return Optional.empty();
         }
-        
-        return Optional.empty();
+        return lookup(ParameterMap.parse(content, null));
     }
     
     /**
-     * 检查内容是否是表单格式
-     * @param content 需要检查的内容
-     * @return 如果内容是表单格式，则返回true，否则返回false
+     * 从提取上下文中提取接口名称: 先查请求体参数，再查查询参数
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(ExtractionContext context) {
+        return lookup(context.parameters());
+    }
+    
+    /**
+     * 在参数表中查找参数
+     * @param parameters 参数表
+     * @return 参数值，如果不存在则返回空
      */
-    private boolean isFormContent(String content) {
-        // 简单检查内容是否是表单格式（包含键值对）
-        return formPattern.matcher(content).find();
+    private Optional<String> lookup(ParameterMap parameters) {
+        return Optional.ofNullable(parameters.get(paramName));
     }
-} 
\ No newline at end of file
+}
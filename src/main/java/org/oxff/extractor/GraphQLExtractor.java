@@ -0,0 +1,395 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.logging.Logging;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * GraphQL提取器: 从GraphQL请求中提取操作名称，支持单个请求和批量请求（顶层数组）
+ * <p>
+ * 优先使用operationName字段；没有时读取查询文档的操作头，有操作名称时返回操作名称，匿名操作返回第一个顶层字段。
+ * JSON请求体使用流式解析器扫描，查询文档只用一个最小的词法分析器读到第一个顶层字段为止，不做完整的GraphQL解析。
+ * 规则内容为保存查询文档的JSON字段名，通常为query。请求体不是JSON时按原始查询文档（application/graphql）处理，
+ * 通过提取上下文使用且请求体为空时读取同名的查询参数。批量请求通过extractAll返回所有操作的名称。
+ */
+public class GraphQLExtractor implements InterfaceNameExtractor {
+    // 操作名称字段
+    private static final String OPERATION_NAME = "operationName";
+    // 线程安全，可共享
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // 保存查询文档的字段名
+    private final String queryField;
+    private final Logging logger;
+
+    /**
+     * 构造函数: 创建GraphQL提取器
+     * @param queryField 保存查询文档的字段名，通常为query
+     * @param logger 日志记录器
+     */
+    public GraphQLExtractor(String queryField, Logging logger) {
+        this.queryField = parseQueryField(queryField);
+        this.logger = logger;
+    }
+
+    /**
+     * 解析查询文档字段名: 只允许字母、数字、下划线和连字符，误填JSONPath或查询文档时直接拒绝
+     * @param queryField 保存查询文档的字段名
+     * @return 去掉首尾空白后的字段名
+     * @throws IllegalArgumentException 如果字段名为空或包含其他字符
+     */
+    static String parseQueryField(String queryField) {
+        String field = queryField.trim();
+        if (field.isEmpty()) {
+            throw new IllegalArgumentException("查询字段名为空");
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                throw new IllegalArgumentException("查询字段名只能包含字母、数字、下划线和连字符，例如query");
+            }
+        }
+        return field;
+    }
+
+    /**
+     * 从内容中提取接口名称
+     * @param content 需要提取的内容
+     * @return 提取的接口名称，批量请求返回第一个能提取到名称的操作，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(String content) {
+        List<String> names = new ArrayList<>(1);
+        collect(content, names, false);
+        return names.isEmpty() ? Optional.empty() : Optional.of(names.get(0));
+    }
+
+    /**
+     * 从提取上下文中提取接口名称: 请求体为空时读取GET请求的查询参数
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(ExtractionContext context) {
+        String body = context.getBody();
+        if (!body.isEmpty()) {
+            return extract(body);
+        }
+        return Optional.ofNullable(fromParameters(context.parameters()));
+    }
+
+    /**
+     * 从提取上下文中提取所有接口名称: 批量请求中每个操作的名称
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    @Override
+    public List<String> extractAll(ExtractionContext context) {
+        String body = context.getBody();
+        if (body.isEmpty()) {
+            String name = fromParameters(context.parameters());
+            return name != null ? List.of(name) : List.of();
+        }
+        List<String> names = new ArrayList<>();
+        collect(body, names, true);
+        return names;
+    }
+
+    /**
+     * 收集操作名称: JSON请求体用流式解析器扫描，其余内容按原始查询文档处理
+     * @param content 请求体
+     * @param names 收集到的名称
+     * @param all 是否收集批量请求中的所有操作，为false时找到第一个名称即停止
+     */
+    private void collect(String content, List<String> names, boolean all) {
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        int start = skipIgnored(content, 0);
+        if (start >= content.length()) {
+            return;
+        }
+        char first = content.charAt(start);
+        if (first != '{' && first != '[') {
+            addIfPresent(operationOf(content), names);
+            return;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                addIfPresent(scanOperation(parser), names);
+                return;
+            }
+            // 批量请求: 逐个扫描操作对象
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (token == JsonToken.START_OBJECT) {
+                    addIfPresent(scanOperation(parser), names);
+                    if (!all && !names.isEmpty()) {
+                        return;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            if (logger != null) {
+                logger.logToError("GraphQL提取异常: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从GET请求的查询参数中提取操作名称
+     * @param parameters 参数表
+     * @return 操作名称，无法提取时返回null
+     */
+    private String fromParameters(ParameterMap parameters) {
+        String operationName = parameters.get(OPERATION_NAME);
+        if (operationName != null && !operationName.trim().isEmpty()) {
+            return operationName.trim();
+        }
+        String query = parameters.get(queryField);
+        return query != null ? operationOf(query) : null;
+    }
+
+    private static void addIfPresent(String name, List<String> names) {
+        if (name != null) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * 扫描一个操作对象: 找到operationName后跳过对象的其余部分，查询文档只读取操作头
+     * @param parser 位于START_OBJECT的解析器，返回时位于对应的END_OBJECT
+     * @return 操作名称，无法提取时返回null
+     * @throws IOException 如果JSON格式错误
+     */
+    private String scanOperation(JsonParser parser) throws IOException {
+        String fromQuery = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_STRING && OPERATION_NAME.equals(field)) {
+                String name = parser.getText().trim();
+                if (!name.isEmpty()) {
+                    skipRestOfObject(parser);
+                    return name;
+                }
+            } else if (value == JsonToken.VALUE_STRING && fromQuery == null && queryField.equals(field)) {
+                // 直接读取解析器的字符缓冲区，不为整个查询文档创建字符串
+                fromQuery = operationOf(CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(),
+                        parser.getTextLength()));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fromQuery;
+    }
+
+    private static void skipRestOfObject(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * 读取查询文档的操作名称: 跳过片段定义，返回第一个操作的名称，匿名操作返回其第一个顶层字段
+     * @param document 查询文档
+     * @return 操作名称，无法识别时返回null
+     */
+    static String operationOf(CharSequence document) {
+        int i = 0;
+        while (true) {
+            i = skipIgnored(document, i);
+            if (i >= document.length()) {
+                return null;
+            }
+            if (document.charAt(i) == '{') {
+                return firstFieldOf(document, i + 1);
+            }
+            int end = nameEnd(document, i);
+            if (end == i) {
+                return null;
+            }
+            String keyword = document.subSequence(i, end).toString();
+            i = skipIgnored(document, end);
+            if ("fragment".equals(keyword)) {
+                i = skipSelectionSet(document, i);
+                if (i < 0) {
+                    return null;
+                }
+                continue;
+            }
+            if (!"query".equals(keyword) && !"mutation".equals(keyword) && !"subscription".equals(keyword)) {
+                return null;
+            }
+            int nameEnd = nameEnd(document, i);
+            if (nameEnd > i) {
+                return document.subSequence(i, nameEnd).toString();
+            }
+            // 匿名操作: 跳过变量定义和指令，读取第一个顶层字段
+            i = selectionSetStart(document, i);
+            return i < 0 ? null : firstFieldOf(document, i + 1);
+        }
+    }
+
+    /**
+     * 读取选择集的第一个字段: 有别名时返回实际字段名
+     * @param document 查询文档
+     * @param i 选择集{之后的位置
+     * @return 字段名，第一项不是字段（如片段展开）时返回null
+     */
+    private static String firstFieldOf(CharSequence document, int i) {
+        i = skipIgnored(document, i);
+        int end = nameEnd(document, i);
+        if (end == i) {
+            return null;
+        }
+        int next = skipIgnored(document, end);
+        if (next < document.length() && document.charAt(next) == ':') {
+            int fieldStart = skipIgnored(document, next + 1);
+            int fieldEnd = nameEnd(document, fieldStart);
+            if (fieldEnd > fieldStart) {
+                return document.subSequence(fieldStart, fieldEnd).toString();
+            }
+        }
+        return document.subSequence(i, end).toString();
+    }
+
+    /**
+     * 查找选择集的开始位置: 跳过括号内的变量定义、参数和字符串，其中的对象字面量不算选择集
+     * @param document 查询文档
+     * @param i 开始位置
+     * @return {的位置，不存在时返回-1
+     */
+    private static int selectionSetStart(CharSequence document, int i) {
+        int parenDepth = 0;
+        while (i < document.length()) {
+            char c = document.charAt(i);
+            if (c == '"') {
+                i = skipString(document, i);
+                continue;
+            }
+            if (c == '#') {
+                i = skipIgnored(document, i);
+                continue;
+            }
+            if (c == '(') {
+                parenDepth++;
+            } else if (c == ')') {
+                parenDepth--;
+            } else if (c == '{' && parenDepth <= 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 跳过一个完整的选择集
+     * @param document 查询文档
+     * @param i 开始位置，可以在选择集之前
+     * @return 选择集结束}之后的位置，不完整时返回-1
+     */
+    private static int skipSelectionSet(CharSequence document, int i) {
+        i = selectionSetStart(document, i);
+        if (i < 0) {
+            return -1;
+        }
+        int depth = 0;
+        while (i < document.length()) {
+            char c = document.charAt(i);
+            if (c == '"') {
+                i = skipString(document, i);
+                continue;
+            }
+            if (c == '#') {
+                i = skipIgnored(document, i);
+                continue;
+            }
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 跳过字符串字面量: 支持普通字符串和"""块字符串
+     * @param document 查询文档
+     * @param i 起始引号的位置
+     * @return 字符串之后的位置
+     */
+    private static int skipString(CharSequence document, int i) {
+        int length = document.length();
+        boolean block = i + 2 < length && document.charAt(i + 1) == '"' && document.charAt(i + 2) == '"';
+        i += block ? 3 : 1;
+        while (i < length) {
+            char c = document.charAt(i);
+            if (c == '\\') {
+                i += block && i + 3 < length && document.charAt(i + 1) == '"' ? 4 : 2;
+            } else if (c == '"' && (!block
+                    || (i + 2 < length && document.charAt(i + 1) == '"' && document.charAt(i + 2) == '"'))) {
+                return i + (block ? 3 : 1);
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 跳过GraphQL中可忽略的字符: 空白、逗号、BOM和#注释
+     */
+    private static int skipIgnored(CharSequence document, int i) {
+        int length = document.length();
+        while (i < length) {
+            char c = document.charAt(i);
+            if (c == '#') {
+                while (i < length && document.charAt(i) != '\n' && document.charAt(i) != '\r') {
+                    i++;
+                }
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == '\uFEFF') {
+                i++;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 读取名称的结束位置: 名称由字母、数字和下划线组成，不以数字开头
+     */
+    private static int nameEnd(CharSequence document, int i) {
+        int length = document.length();
+        if (i >= length || !isNameStart(document.charAt(i))) {
+            return i;
+        }
+        i++;
+        while (i < length && isNamePart(document.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9');
+    }
+}
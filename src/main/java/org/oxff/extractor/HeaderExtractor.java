@@ -0,0 +1,76 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.logging.Logging;
+
+import java.util.Optional;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 请求头提取器: 从指定请求头中提取接口名称，不读取请求体
+ * <p>
+ * 规则内容为请求头名称，如SOAPAction；也可以写成"名称:正则表达式"，对请求头的值执行正则表达式，有分组时返回第一个分组。
+ * 不带正则表达式时返回去除首尾空白和引号后的整个值。请求头名称不区分大小写。
+ */
+public class HeaderExtractor implements InterfaceNameExtractor {
+    // 请求头名称
+    private final String headerName;
+    // 应用于请求头值的正则表达式提取器，未配置时为null
+    private final RegexExtractor valueExtractor;
+    
+    /**
+     * 构造函数: 创建请求头提取器
+     * @param pattern 请求头名称，或"名称:正则表达式"
+     * @param logger 日志记录器
+     * @throws IllegalArgumentException 如果请求头名称为空
+     * @throws PatternSyntaxException 如果正则表达式语法错误
+     */
+    public HeaderExtractor(String pattern, Logging logger) {
+        int colon = pattern.indexOf(':');
+        this.headerName = (colon < 0 ? pattern : pattern.substring(0, colon)).trim();
+        if (headerName.isEmpty()) {
+            throw new IllegalArgumentException("请求头名称为空");
+        }
+        String regex = colon < 0 ? "" : pattern.substring(colon + 1).trim();
+        this.valueExtractor = regex.isEmpty() ? null : new RegexExtractor(regex, logger);
+    }
+    
+    /**
+     * 从内容中提取接口名称: 只有请求体时无法读取请求头
+     * @param content 需要提取的内容
+     * @return 始终返回空
+     */
+    @Override
+    public Optional<String> extract(String content) {
+        return Optional.empty();
+    }
+    
+    /**
+     * 从提取上下文中提取接口名称
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果请求头不存在或不匹配则返回空
+     */
+    @Override
+    public Optional<String> extract(ExtractionContext context) {
+        String value = context.header(headerName);
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (valueExtractor != null) {
+            return valueExtractor.extract(value);
+        }
+        String trimmed = stripQuotes(value.trim());
+        return trimmed.isEmpty() ? Optional.empty() : Optional.of(trimmed);
+    }
+    
+    /**
+     * 去除首尾的双引号: SOAPAction等请求头的值通常带引号
+     * @param value 请求头的值
+     * @return 去除引号后的值
+     */
+    private static String stripQuotes(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+}
@@ -1,5 +1,6 @@
 package org.oxff.extractor;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,4 +13,22 @@ public interface InterfaceNameExtractor {
      * @return 提取的接口名称，如果无法提取则返回空
      */
     Optional<String> extract(String content);
-} 
\ No newline at end of file
+    
+    /**
+     * 从提取上下文中提取接口名称: 默认只使用请求体，需要共享派生数据的提取器可以覆盖
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    default Optional<String> extract(ExtractionContext context) {
+        return extract(context.getBody());
+    }
+    
+    /**
+     * 从提取上下文中提取所有接口名称: 默认只返回单个名称，能识别批量请求的提取器覆盖此方法，在一次扫描中收集所有名称
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，可能包含重复，无法提取时返回空列表
+     */
+    default List<String> extractAll(ExtractionContext context) {
+        return extract(context).map(List::of).orElse(List.of());
+    }
+}
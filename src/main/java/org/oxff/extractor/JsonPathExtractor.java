@@ -2,11 +2,16 @@ package org.oxff.extractor;
 
 import burp.api.montoya.logging.Logging;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 
@@ -14,17 +19,21 @@ import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
  * JSON路径提取器: 使用JSON路径从JSON格式的请求体中提取接口名称
  */
 public class JsonPathExtractor implements InterfaceNameExtractor {
-    private final String jsonPath;
+    // 共享的JsonPath配置: 线程安全，避免每次提取都创建ObjectMapper
+    private static final Configuration CONFIGURATION = createConfiguration();
+    
+    private final JsonPath jsonPath;
     private final Logging logger;
-    private final Pattern jsonPattern = Pattern.compile("^\\s*\\{.*}\\s*$", Pattern.DOTALL);
+    private final Pattern jsonPattern = Pattern.compile("^\\s*[{\\[].*[}\\]]\\s*$", Pattern.DOTALL);
     
     /**
      * 构造函数: 创建JSON路径提取器
      * @param jsonPath JSON路径表达式
      * @param logger 日志记录器
+     * @throws InvalidPathException 如果JSON路径表达式语法错误
      */
-    public JsonPathExtractor(String jsonPath, Logging logger) {
-        this.jsonPath = jsonPath;
+    public JsonPathExtractor(String jsonPath, Logging logger) throws InvalidPathException {
+        this.jsonPath = JsonPath.compile(jsonPath);
         this.logger = logger;
     }
     
@@ -35,38 +44,108 @@ public class JsonPathExtractor implements InterfaceNameExtractor {
      */
     @Override
     public Optional<String> extract(String content) {
+        List<String> names = extractAll(content);
+        return names.isEmpty() ? Optional.empty() : Optional.of(names.get(0));
+    }
+    
+    /**
+     * 从提取上下文中提取所有接口名称
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    @Override
+    public List<String> extractAll(ExtractionContext context) {
+        return extractAll(context.getBody());
+    }
+    
+    /**
+     * 提取所有接口名称: 只解析一次JSON，路径结果为数组时返回每个元素
+     * @param content 需要提取的内容
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    private List<String> extractAll(String content) {
         try {
-            // 检查内容是否为空
-            if (content == null || content.isEmpty()) {
-                return Optional.empty();
-            }
-            
-            // 检查内容是否是JSON格式
-            if (!isJsonContent(content)) {
-                return Optional.empty();
-            }
-
-            // 使用 Jackson 解析 JSON 并配置 JsonPath
-            ObjectMapper objectMapper = new ObjectMapper();
-            Configuration configuration = Configuration.builder()
-                    .jsonProvider(new JacksonJsonProvider(objectMapper))
-                    .mappingProvider(new JacksonMappingProvider(objectMapper))
-                    .build();
-
-            // 执行 JsonPath 表达式并获取结果
-            Object result = JsonPath.using(configuration).parse(content).read(jsonPath);
-
-            // 如果结果不为空，返回结果
-            if (result != null) {
-                return Optional.of(result.toString());
-            }
+            List<String> names = new ArrayList<>();
+            collect(evaluate(content), names);
+            return names;
         } catch (Exception e) {
             if (logger != null) {
                 logger.logToError("JSON路径提取异常: " + e.getMessage());
             }
         }
         
-        return Optional.empty();
+        return List.of();
+    }
+    
+    /**
+     * 对JSON求值: 输入为字符串时先解析，为已解析的对象或数组时直接求值，供链式规则传递中间结果而无需重新序列化；
+     * 输入为顶层数组（如JSON-RPC批量请求）且路径在顶层不存在时，对每个元素分别求值
+     * @param input JSON字符串，或已解析的对象（Map）或数组（List）
+     * @return 求值结果，多个结果时为List，输入不是JSON或路径不存在时返回null
+     */
+    Object evaluate(Object input) {
+        Object root = input;
+        if (input instanceof String) {
+            String content = (String) input;
+            // 检查内容是否为空，是否是JSON格式
+            if (content.isEmpty() || !isJsonContent(content)) {
+                return null;
+            }
+            root = CONFIGURATION.jsonProvider().parse(content);
+        } else if (!(input instanceof Map) && !(input instanceof List)) {
+            return null;
+        }
+        Object result = read(root);
+        if (result == null && root instanceof List) {
+            List<Object> results = new ArrayList<>();
+            for (Object element : (List<?>) root) {
+                Object elementResult = read(element);
+                if (elementResult instanceof List) {
+                    results.addAll((List<?>) elementResult);
+                } else if (elementResult != null) {
+                    results.add(elementResult);
+                }
+            }
+            return results.isEmpty() ? null : results;
+        }
+        return result;
+    }
+    
+    /**
+     * 执行预编译的JsonPath表达式
+     * @param json 已解析的JSON
+     * @return 结果，路径不存在时返回null
+     */
+    private Object read(Object json) {
+        try {
+            return jsonPath.read(json, CONFIGURATION);
+        } catch (PathNotFoundException e) {
+            return null;
+        }
+    }
+    
+    private static void collect(Object result, List<String> names) {
+        if (result instanceof List) {
+            for (Object element : (List<?>) result) {
+                if (element != null) {
+                    names.add(element.toString());
+                }
+            }
+        } else if (result != null) {
+            names.add(result.toString());
+        }
+    }
+    
+    /**
+     * 创建使用Jackson解析JSON的JsonPath配置
+     * @return JsonPath配置
+     */
+    private static Configuration createConfiguration() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return Configuration.builder()
+                .jsonProvider(new JacksonJsonProvider(objectMapper))
+                .mappingProvider(new JacksonMappingProvider(objectMapper))
+                .build();
     }
     
     /**
@@ -75,7 +154,7 @@ public class JsonPathExtractor implements InterfaceNameExtractor {
      * @return 如果内容是JSON格式，则返回true，否则返回false
      */
     private boolean isJsonContent(String content) {
-        // 简单检查内容是否是JSON格式（以{开始，以}结束）
+        // 简单检查内容是否是JSON格式（以{或[开始，以}或]结束）
         return jsonPattern.matcher(content.trim()).matches();
     }
     
@@ -0,0 +1,191 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.logging.Logging;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * 多部分表单字段提取器: 从multipart/form-data请求中提取指定字段的值
+ * <p>
+ * 直接在请求体字节上按分隔符逐个定位各部分，只解码各部分的头部和目标字段的值，找到目标字段即停止；
+ * 文件等其他部分的内容只参与分隔符查找，不会被解码为字符串。规则内容为字段名，区分大小写。
+ */
+public class MultipartFieldExtractor implements ByteExtractor {
+    // 单个部分头部的最大字节数，超过时视为格式错误
+    private static final int MAX_PART_HEADER_BYTES = 8192;
+    // 字段值的最大字节数，超过时不视为接口名称
+    private static final int MAX_VALUE_BYTES = 4096;
+    private static final String CRLF = "\r\n";
+
+    // 字段名
+    private final String fieldName;
+    private final Logging logger;
+
+    /**
+     * 构造函数: 创建多部分表单字段提取器
+     * @param fieldName 字段名
+     * @param logger 日志记录器
+     */
+    public MultipartFieldExtractor(String fieldName, Logging logger) {
+        this.fieldName = parseFieldName(fieldName);
+        this.logger = logger;
+    }
+
+    /**
+     * 解析字段名: 字段名出现在Content-Disposition头部的引号中，不能包含引号或控制字符
+     * @param fieldName 字段名
+     * @return 去掉首尾空白后的字段名
+     * @throws IllegalArgumentException 如果字段名为空或包含无效字符
+     */
+    static String parseFieldName(String fieldName) {
+        String name = fieldName.trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("字段名为空");
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || Character.isISOControl(c)) {
+                throw new IllegalArgumentException("字段名不能包含引号或控制字符");
+            }
+        }
+        return name;
+    }
+
+    /**
+     * 从请求体字节中提取接口名称: 分隔符取自Content-Type请求头，没有时从请求体第一行识别
+     * @param body 请求体字节
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(ByteArray body, ExtractionContext context) {
+        try {
+            String boundary = boundaryOf(context.header("Content-Type"));
+            if (boundary == null) {
+                boundary = boundaryFromFirstLine(body);
+            }
+            if (boundary == null) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(findField(body, "--" + boundary));
+        } catch (Exception e) {
+            if (logger != null) {
+                logger.logToError("多部分表单字段提取异常: " + e.getMessage());
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 逐个定位各部分并查找目标字段
+     * @param body 请求体字节
+     * @param delimiter 分隔符（--加boundary）
+     * @return 字段值，不存在时返回null
+     */
+    private String findField(ByteArray body, String delimiter) {
+        int length = body.length();
+        String nextDelimiter = CRLF + delimiter;
+        int position = body.indexOf(delimiter, true, 0, length);
+        while (position >= 0) {
+            int lineStart = position + delimiter.length();
+            // --boundary--表示结束
+            if (lineStart + 1 < length && body.getByte(lineStart) == '-' && body.getByte(lineStart + 1) == '-') {
+                return null;
+            }
+            int lineEnd = body.indexOf(CRLF, true, lineStart, length);
+            if (lineEnd < 0) {
+                return null;
+            }
+            int headerEnd = body.indexOf(CRLF + CRLF, true, lineEnd,
+                    Math.min(length, lineEnd + MAX_PART_HEADER_BYTES));
+            if (headerEnd < 0) {
+                return null;
+            }
+            int contentStart = headerEnd + 4;
+            int contentEnd = body.indexOf(nextDelimiter, true, contentStart, length);
+            if (contentEnd < 0) {
+                contentEnd = length;
+            }
+            // 没有头部的部分: 分隔符行之后紧跟空行
+            String headers = headerEnd > lineEnd ? decode(body, lineEnd + 2, headerEnd, StandardCharsets.UTF_8) : "";
+            if (fieldName.equals(dispositionName(headers))) {
+                int valueLength = contentEnd - contentStart;
+                if (valueLength <= 0 || valueLength > MAX_VALUE_BYTES) {
+                    return null;
+                }
+                String value = decode(body, contentStart, contentEnd, StandardCharsets.UTF_8).trim();
+                return value.isEmpty() ? null : value;
+            }
+            position = contentEnd < length ? contentEnd + 2 : -1;
+        }
+        return null;
+    }
+
+    /**
+     * 从Content-Disposition头中读取字段名
+     * @param headers 部分头部
+     * @return name参数的值，不存在时返回null
+     */
+    static String dispositionName(String headers) {
+        for (String line : headers.split(CRLF)) {
+            int colon = line.indexOf(':');
+            if (colon < 0 || !"content-disposition".equalsIgnoreCase(line.substring(0, colon).trim())) {
+                continue;
+            }
+            for (String parameter : line.substring(colon + 1).split(";")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0 && "name".equalsIgnoreCase(parameter.substring(0, equals).trim())) {
+                    return unquote(parameter.substring(equals + 1).trim());
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从Content-Type请求头中读取boundary参数
+     * @param contentType Content-Type请求头的值
+     * @return boundary，不是多部分表单时返回null
+     */
+    static String boundaryOf(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0 && "boundary".equalsIgnoreCase(parameter.substring(0, equals).trim())) {
+                String boundary = unquote(parameter.substring(equals + 1).trim());
+                return boundary.isEmpty() ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从请求体第一行识别分隔符: 第一行形如--boundary
+     * @param body 请求体字节
+     * @return boundary，无法识别时返回null
+     */
+    private static String boundaryFromFirstLine(ByteArray body) {
+        int lineEnd = body.indexOf(CRLF, true, 0, Math.min(body.length(), 256));
+        if (lineEnd < 3 || body.getByte(0) != '-' || body.getByte(1) != '-') {
+            return null;
+        }
+        return decode(body, 2, lineEnd, StandardCharsets.ISO_8859_1).trim();
+    }
+
+    private static String decode(ByteArray body, int start, int end, Charset charset) {
+        return new String(body.subArray(start, end).getBytes(), charset);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
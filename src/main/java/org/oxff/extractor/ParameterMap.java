@@ -0,0 +1,158 @@
+package org.oxff.extractor;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 请求参数表: 查询字符串和urlencoded请求体中的参数，解析时只解码一次，供所有基于参数的规则共享
+ * <p>
+ * 使用开放寻址的哈希表保存参数名和值，同名参数只保留第一次出现的值；请求体参数先于查询参数加入，同名时以请求体为准。
+ * 不是线程安全的，只在单个请求的提取过程中使用。
+ */
+public final class ParameterMap {
+    // 初始容量，必须是2的幂
+    private static final int INITIAL_CAPACITY = 16;
+
+    // 参数名，空位为null
+    private String[] keys = new String[INITIAL_CAPACITY];
+    // 参数值，与keys一一对应
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    private ParameterMap() {
+    }
+
+    /**
+     * 解析参数: 依次解析请求体和查询字符串中的键值对
+     * @param body 请求体，可以为null
+     * @param query 查询字符串（不含?），可以为null
+     * @return 参数表
+     */
+    public static ParameterMap parse(String body, String query) {
+        ParameterMap parameters = new ParameterMap();
+        if (body != null) {
+            parameters.addPairs(body);
+        }
+        if (query != null) {
+            parameters.addPairs(query);
+        }
+        return parameters;
+    }
+
+    /**
+     * 获取URL中的查询字符串
+     * @param url 请求URL
+     * @return 查询字符串（不含?和片段），没有时返回null
+     */
+    public static String queryOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        int start = url.indexOf('?');
+        if (start < 0) {
+            return null;
+        }
+        int end = url.indexOf('#', start + 1);
+        return url.substring(start + 1, end < 0 ? url.length() : end);
+    }
+
+    /**
+     * 获取参数值
+     * @param name 解码后的参数名，区分大小写
+     * @return 第一次出现的参数值，不存在时返回null
+     */
+    public String get(String name) {
+        if (size == 0 || name == null) {
+            return null;
+        }
+        int mask = keys.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(name)) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取参数数量
+     * @return 不重复的参数名数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 解析以&分隔的键值对: 没有=的片段不是参数，直接跳过
+     * @param content 表单数据或查询字符串
+     */
+    private void addPairs(String content) {
+        int length = content.length();
+        int start = 0;
+        while (start < length) {
+            int end = content.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int equals = content.indexOf('=', start);
+            if (equals > start && equals < end) {
+                putIfAbsent(decode(content, start, equals), decode(content, equals + 1, end));
+            }
+            start = end + 1;
+        }
+    }
+
+    private void putIfAbsent(String key, String value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        values = new String[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = spread(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * 解码片段: 只有包含%或+时才调用URLDecoder，编码无效时保留原文
+     */
+    private static String decode(String content, int start, int end) {
+        String raw = content.substring(start, end);
+        if (raw.indexOf('%') < 0 && raw.indexOf('+') < 0) {
+            return raw;
+        }
+        try {
+            return URLDecoder.decode(raw, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return raw;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
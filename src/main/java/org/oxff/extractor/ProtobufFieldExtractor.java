@@ -0,0 +1,364 @@
+package org.oxff.extractor;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.logging.Logging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Protobuf字段提取器: 按字段编号路径从protobuf编码的请求体中读取字段值，适用于gRPC-Web和protobuf-over-HTTP接口
+ * <p>
+ * 规则内容为用.分隔的字段编号路径，如1.3表示字段1中嵌套消息的字段3。直接在请求体字节上按线格式读取标签，
+ * 不需要.proto定义，路径以外的字段只跳过不解析；路径上的字段重复出现时进入第一个。
+ * 叶子字段为varint或定长数值时返回无符号十进制数，为长度前缀字段时按UTF-8解码，不是有效UTF-8时不视为接口名称。
+ * Content-Type为application/grpc*时（或设置了grpcFrame选项）先拆分gRPC帧: 每帧为1字节标志加4字节大端长度，
+ * 每个数据帧是一条消息，压缩帧按grpc-encoding请求头解压；application/grpc-web-text请求体先做base64解码。
+ */
+public class ProtobufFieldExtractor implements ByteExtractor {
+    // 类型选项: 没有gRPC的Content-Type时也按gRPC帧拆分请求体
+    public static final String OPTION_GRPC_FRAME = "grpcFrame";
+    // 最大字段编号
+    private static final int MAX_FIELD_NUMBER = (1 << 29) - 1;
+    // 字段值的最大字节数，超过时不视为接口名称
+    private static final int MAX_VALUE_BYTES = 4096;
+    // gRPC帧头长度: 1字节标志加4字节长度
+    private static final int FRAME_HEADER_LENGTH = 5;
+    // gRPC帧标志: 压缩帧
+    private static final int FLAG_COMPRESSED = 0x01;
+    // gRPC-Web帧标志: 尾部元数据帧
+    private static final int FLAG_TRAILERS = 0x80;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_FIXED64 = 1;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    private static final int WIRE_FIXED32 = 5;
+
+    // 字段编号路径
+    private final int[] path;
+    // 是否总是按gRPC帧拆分
+    private final boolean grpcFrame;
+    private final Logging logger;
+
+    /**
+     * 构造函数: 创建Protobuf字段提取器
+     * @param fieldPath 用.分隔的字段编号路径
+     * @param grpcFrame 是否总是按gRPC帧拆分请求体
+     * @param logger 日志记录器
+     * @throws IllegalArgumentException 如果字段编号路径无效
+     */
+    public ProtobufFieldExtractor(String fieldPath, boolean grpcFrame, Logging logger) {
+        this.path = parsePath(fieldPath);
+        this.grpcFrame = grpcFrame;
+        this.logger = logger;
+    }
+
+    /**
+     * 从请求体字节中提取接口名称: gRPC请求返回第一条能提取到名称的消息
+     * @param body 请求体字节
+     * @param context 提取上下文
+     * @return 提取的接口名称，如果无法提取则返回空
+     */
+    @Override
+    public Optional<String> extract(ByteArray body, ExtractionContext context) {
+        List<String> names = collect(body, context, false);
+        return names.isEmpty() ? Optional.empty() : Optional.of(names.get(0));
+    }
+
+    /**
+     * 从请求体字节中提取所有接口名称: gRPC流式请求中每条消息的名称
+     * @param body 请求体字节
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    @Override
+    public List<String> extractAll(ByteArray body, ExtractionContext context) {
+        return collect(body, context, true);
+    }
+
+    /**
+     * 收集字段值: 按需拆分gRPC帧后在每条消息上查找字段
+     * @param body 请求体字节
+     * @param context 提取上下文
+     * @param all 是否收集所有消息，为false时找到第一个名称即停止
+     * @return 字段值列表
+     */
+    private List<String> collect(ByteArray body, ExtractionContext context, boolean all) {
+        List<String> names = new ArrayList<>(1);
+        try {
+            String contentType = context.header("Content-Type");
+            String type = contentType != null ? contentType.trim().toLowerCase(Locale.ROOT) : "";
+            if (type.startsWith("application/grpc-web-text")) {
+                body = ByteArray.byteArray(Base64.getMimeDecoder().decode(body.getBytes()));
+            }
+            if (!grpcFrame && !type.startsWith("application/grpc")) {
+                addIfPresent(find(body, 0, body.length()), names);
+                return names;
+            }
+            int length = body.length();
+            int position = 0;
+            while (position + FRAME_HEADER_LENGTH <= length) {
+                int flags = body.getByte(position) & 0xff;
+                long frameLength = ((long) (body.getByte(position + 1) & 0xff) << 24)
+                        | ((body.getByte(position + 2) & 0xff) << 16)
+                        | ((body.getByte(position + 3) & 0xff) << 8)
+                        | (body.getByte(position + 4) & 0xff);
+                int start = position + FRAME_HEADER_LENGTH;
+                if (frameLength > length - start) {
+                    break;
+                }
+                int end = start + (int) frameLength;
+                if ((flags & FLAG_TRAILERS) == 0) {
+                    if ((flags & FLAG_COMPRESSED) == 0) {
+                        addIfPresent(find(body, start, end), names);
+                    } else {
+                        byte[] message = BodyDecoder.decompress(context.header("grpc-encoding"),
+                                body.subArray(start, end).getBytes());
+                        if (message != null) {
+                            ByteArray decompressed = ByteArray.byteArray(message);
+                            addIfPresent(find(decompressed, 0, decompressed.length()), names);
+                        }
+                    }
+                    if (!all && !names.isEmpty()) {
+                        break;
+                    }
+                }
+                position = end;
+            }
+        } catch (Exception e) {
+            if (logger != null) {
+                logger.logToError("Protobuf字段提取异常: " + e.getMessage());
+            }
+        }
+        return names;
+    }
+
+    private static void addIfPresent(String name, List<String> names) {
+        if (name != null) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * 在一条消息中按路径查找字段: 逐层读取标签，跳过路径以外的字段，进入路径上的嵌套消息
+     * @param data 消息所在的字节
+     * @param start 消息开始位置
+     * @param end 消息结束位置
+     * @return 字段值，字段不存在或数据不是有效的protobuf消息时返回null
+     */
+    private String find(ByteArray data, int start, int end) {
+        WireReader reader = new WireReader(data, start, end);
+        for (int depth = 0; depth < path.length; depth++) {
+            boolean found = false;
+            while (reader.hasRemaining()) {
+                long tag = reader.readVarint();
+                if (reader.malformed) {
+                    return null;
+                }
+                long fieldNumber = tag >>> 3;
+                int wireType = (int) (tag & 0x07);
+                if (fieldNumber == 0 || fieldNumber > MAX_FIELD_NUMBER) {
+                    return null;
+                }
+                if (fieldNumber == path[depth]) {
+                    if (depth == path.length - 1) {
+                        return reader.readValue(wireType);
+                    }
+                    if (wireType != WIRE_LENGTH_DELIMITED || !reader.enterMessage()) {
+                        return null;
+                    }
+                    found = true;
+                    break;
+                }
+                if (!reader.skip(wireType)) {
+                    return null;
+                }
+            }
+            if (!found) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析字段编号路径
+     * @param fieldPath 用.分隔的字段编号路径
+     * @return 字段编号数组
+     * @throws IllegalArgumentException 如果路径为空或字段编号无效
+     */
+    static int[] parsePath(String fieldPath) {
+        String[] parts = fieldPath.trim().split("\\.");
+        int[] numbers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            int number;
+            try {
+                number = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的字段编号: " + parts[i]);
+            }
+            if (number < 1 || number > MAX_FIELD_NUMBER) {
+                throw new IllegalArgumentException("字段编号超出范围: " + number);
+            }
+            numbers[i] = number;
+        }
+        return numbers;
+    }
+
+    /**
+     * 线格式读取器: 在字节数组的一个区间内顺序读取，数据截断或格式错误时设置malformed标记而不抛出异常
+     */
+    private static final class WireReader {
+        private final ByteArray data;
+        private int position;
+        private int limit;
+        private boolean malformed;
+
+        private WireReader(ByteArray data, int start, int end) {
+            this.data = data;
+            this.position = start;
+            this.limit = end;
+        }
+
+        private boolean hasRemaining() {
+            return position < limit;
+        }
+
+        private long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    malformed = true;
+                    return 0;
+                }
+                byte b = data.getByte(position++);
+                result |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            malformed = true;
+            return 0;
+        }
+
+        /**
+         * 读取长度前缀字段的长度并检查边界
+         * @return 字段长度，越界或格式错误时返回-1
+         */
+        private int readLength() {
+            long length = readVarint();
+            if (malformed || length < 0 || length > limit - position) {
+                malformed = true;
+                return -1;
+            }
+            return (int) length;
+        }
+
+        /**
+         * 进入嵌套消息: 把读取区间缩小为当前长度前缀字段的内容
+         * @return 如果长度有效，则返回true，否则返回false
+         */
+        private boolean enterMessage() {
+            int length = readLength();
+            if (length < 0) {
+                return false;
+            }
+            limit = position + length;
+            return true;
+        }
+
+        /**
+         * 跳过一个字段的值
+         * @param wireType 线格式类型
+         * @return 如果成功跳过，则返回true，类型不支持或数据截断时返回false
+         */
+        private boolean skip(int wireType) {
+            switch (wireType) {
+                case WIRE_VARINT:
+                    readVarint();
+                    return !malformed;
+                case WIRE_FIXED64:
+                    return advance(8);
+                case WIRE_LENGTH_DELIMITED:
+                    int length = readLength();
+                    return length >= 0 && advance(length);
+                case WIRE_FIXED32:
+                    return advance(4);
+                default:
+                    // 已废弃的分组类型和无效类型
+                    return false;
+            }
+        }
+
+        private boolean advance(int count) {
+            if (count > limit - position) {
+                malformed = true;
+                return false;
+            }
+            position += count;
+            return true;
+        }
+
+        /**
+         * 读取叶子字段的值
+         * @param wireType 线格式类型
+         * @return 字段值的文本形式，无法表示为接口名称时返回null
+         */
+        private String readValue(int wireType) {
+            switch (wireType) {
+                case WIRE_VARINT:
+                    long value = readVarint();
+                    return malformed ? null : Long.toUnsignedString(value);
+                case WIRE_FIXED64:
+                    return position + 8 <= limit ? Long.toUnsignedString(readLittleEndian(8)) : null;
+                case WIRE_FIXED32:
+                    return position + 4 <= limit ? Long.toString(readLittleEndian(4)) : null;
+                case WIRE_LENGTH_DELIMITED:
+                    int length = readLength();
+                    if (length <= 0 || length > MAX_VALUE_BYTES) {
+                        return null;
+                    }
+                    return decodeUtf8(data.subArray(position, position + length).getBytes());
+                default:
+                    return null;
+            }
+        }
+
+        private long readLittleEndian(int count) {
+            long result = 0;
+            for (int i = 0; i < count; i++) {
+                result |= (long) (data.getByte(position++) & 0xff) << (8 * i);
+            }
+            return result;
+        }
+
+        /**
+         * 严格按UTF-8解码: 嵌套消息等二进制内容不是有效UTF-8或包含控制字符时返回null，不产生替换字符
+         */
+        private static String decodeUtf8(byte[] bytes) {
+            try {
+                String text = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(ByteBuffer.wrap(bytes))
+                        .toString()
+                        .trim();
+                for (int i = 0; i < text.length(); i++) {
+                    if (Character.isISOControl(text.charAt(i)) && !Character.isWhitespace(text.charAt(i))) {
+                        return null;
+                    }
+                }
+                return text.isEmpty() ? null : text;
+            } catch (CharacterCodingException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package org.oxff.extractor;
 
 import burp.api.montoya.logging.Logging;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -11,7 +13,18 @@ import java.util.regex.PatternSyntaxException;
  * 正则表达式提取器: 使用正则表达式从请求体中提取接口名称
  */
 public class RegexExtractor implements InterfaceNameExtractor {
+    // 选项: 返回的捕获组序号
+    public static final String OPTION_GROUP = "group";
+    // 选项: 是否忽略大小写
+    public static final String OPTION_CASE_INSENSITIVE = "caseInsensitive";
+    // 选项: 是否收集所有匹配，用于批量请求
+    public static final String OPTION_MULTIPLE = "multiple";
+    
     private final Pattern pattern;
+    // 返回的捕获组序号，-1表示有分组时返回第一个分组，否则返回整个匹配
+    private final int group;
+    // 是否收集所有匹配
+    private final boolean multiple;
     private final Logging logger;
     
     /**
@@ -21,7 +34,28 @@ public class RegexExtractor implements InterfaceNameExtractor {
      * @throws PatternSyntaxException 如果正则表达式语法错误
      */
     public RegexExtractor(String patternString, Logging logger) throws PatternSyntaxException {
-        this.pattern = Pattern.compile(patternString);
+        this(patternString, -1, false, false, logger);
+    }
+    
+    /**
+     * 构造函数: 创建指定捕获组的正则表达式提取器
+     * @param patternString 正则表达式字符串
+     * @param group 返回的捕获组序号，-1表示有分组时返回第一个分组，否则返回整个匹配
+     * @param caseInsensitive 是否忽略大小写
+     * @param multiple 是否收集所有匹配
+     * @param logger 日志记录器
+     * @throws PatternSyntaxException 如果正则表达式语法错误
+     * @throws IllegalArgumentException 如果捕获组序号超出正则表达式的分组数量
+     */
+    public RegexExtractor(String patternString, int group, boolean caseInsensitive, boolean multiple, Logging logger)
+            throws PatternSyntaxException {
+        this.pattern = Pattern.compile(patternString, caseInsensitive ? Pattern.CASE_INSENSITIVE : 0);
+        int groupCount = pattern.matcher("").groupCount();
+        if (group > groupCount) {
+            throw new IllegalArgumentException("捕获组序号" + group + "超出分组数量" + groupCount);
+        }
+        this.group = group;
+        this.multiple = multiple;
         this.logger = logger;
     }
     
@@ -40,12 +74,7 @@ public class RegexExtractor implements InterfaceNameExtractor {
             Matcher matcher = pattern.matcher(content);
             
             if (matcher.find()) {
-                // 如果正则表达式包含分组，返回第一个分组；否则返回整个匹配
-                if (matcher.groupCount() > 0) {
-                    return Optional.of(matcher.group(1));
-                } else {
-                    return Optional.of(matcher.group());
-                }
+                return Optional.ofNullable(valueOf(matcher));
             }
         } catch (Exception e) {
             if (logger != null) {
@@ -55,4 +84,47 @@ public class RegexExtractor implements InterfaceNameExtractor {
         
         return Optional.empty();
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 从提取上下文中提取所有接口名称: 启用multiple选项时在一次扫描中收集所有匹配
+     * @param context 提取上下文
+     * @return 按出现顺序排列的接口名称，无法提取时返回空列表
+     */
+    @Override
+    public List<String> extractAll(ExtractionContext context) {
+        if (!multiple) {
+            return InterfaceNameExtractor.super.extractAll(context);
+        }
+        String content = context.getBody();
+        if (content.isEmpty()) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        try {
+            Matcher matcher = pattern.matcher(content);
+            while (matcher.find()) {
+                String value = valueOf(matcher);
+                if (value != null) {
+                    names.add(value);
+                }
+            }
+        } catch (Exception e) {
+            if (logger != null) {
+                logger.logToError("正则表达式提取失败: " + e.getMessage());
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * 获取匹配的值: 指定了捕获组时返回该组；否则正则表达式包含分组时返回第一个分组，不包含时返回整个匹配
+     * @param matcher 已匹配的匹配器
+     * @return 匹配的值，分组未参与匹配时返回null
+     */
+    private String valueOf(Matcher matcher) {
+        if (group >= 0) {
+            return matcher.group(group);
+        }
+        return matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+    }
+}
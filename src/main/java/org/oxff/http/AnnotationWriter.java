@@ -0,0 +1,152 @@
+package org.oxff.http;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.logging.Logging;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 备注回写器: 收集待写入的备注，在独立线程上按批次、按固定节奏写回Burp，备注未变化时跳过写入
+ * <p>
+ * 提取线程只负责入队，不会阻塞在Burp的界面模型上；同一条记录在写入前被多次提交时只写最后一次。
+ */
+public class AnnotationWriter {
+    // 每批最多写入的数量
+    private static final int BATCH_SIZE = 200;
+    // 两批之间的间隔（毫秒）
+    private static final long FLUSH_INTERVAL_MILLIS = 50;
+    // 等待写入完成时的轮询间隔（毫秒）
+    private static final long DRAIN_POLL_MILLIS = 20;
+    
+    // 日志记录器
+    private final Logging logger;
+    // 待写入的记录顺序
+    private final Queue<Annotations> queue = new ConcurrentLinkedQueue<>();
+    // 待写入的备注内容: 同一记录重复提交时覆盖
+    private final Map<Annotations, String> pending = new ConcurrentHashMap<>();
+    // 写入线程
+    private final ScheduledExecutorService writerThread;
+    // 统计: 实际写入数量
+    private final AtomicLong writtenCount = new AtomicLong();
+    // 统计: 因备注未变化而跳过的数量
+    private final AtomicLong skippedCount = new AtomicLong();
+    
+    /**
+     * 构造函数: 创建备注回写器并启动写入线程
+     * @param logger 日志记录器
+     */
+    public AnnotationWriter(Logging logger) {
+        this(logger, "showMeUCode-annotation-writer");
+    }
+    
+    /**
+     * 构造函数: 创建使用指定线程名的备注回写器，不同来源使用各自的回写器时区分写入线程
+     * @param logger 日志记录器
+     * @param threadName 写入线程名称
+     */
+    public AnnotationWriter(Logging logger, String threadName) {
+        this.logger = logger;
+        this.writerThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writerThread.scheduleWithFixedDelay(this::flushBatch, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 提交备注: 只入队，不会阻塞调用线程
+     * @param annotations 记录的Annotations对象
+     * @param notes 备注内容
+     */
+    public void submit(Annotations annotations, String notes) {
+        if (annotations == null || notes == null) {
+            return;
+        }
+        if (pending.put(annotations, notes) == null) {
+            queue.add(annotations);
+        }
+    }
+    
+    /**
+     * 等待已提交的备注全部写入: 批量任务结束前调用，任务被取消时提前返回
+     * @param cancelled 取消检查，返回true时停止等待
+     */
+    public void awaitDrained(BooleanSupplier cancelled) {
+        while (!pending.isEmpty() && !cancelled.getAsBoolean()) {
+            try {
+                Thread.sleep(DRAIN_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 获取待写入数量
+     * @return 待写入数量
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+    
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+    
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+    
+    /**
+     * 关闭回写器: 写完剩余备注后停止写入线程，由插件卸载处理器调用
+     */
+    public void shutdown() {
+        writerThread.shutdown();
+        try {
+            writerThread.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (!queue.isEmpty()) {
+            flushBatch();
+        }
+        logger.logToOutput("备注回写器已关闭，共写入 " + writtenCount.get() + " 条，跳过未变化 " + skippedCount.get() + " 条");
+    }
+    
+    /**
+     * 写入一批备注: 在写入线程上执行
+     */
+    private void flushBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Annotations annotations = queue.poll();
+            if (annotations == null) {
+                return;
+            }
+            String notes = pending.remove(annotations);
+            if (notes == null) {
+                continue;
+            }
+            try {
+                if (notes.equals(annotations.notes())) {
+                    skippedCount.incrementAndGet();
+                } else {
+                    annotations.setNotes(notes);
+                    writtenCount.incrementAndGet();
+                }
+            } catch (Exception e) {
+                logger.logToError("写入备注时发生错误: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package org.oxff.http;
 
 import burp.api.montoya.MontoyaApi;
-import burp.api.montoya.core.Annotations;
 import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.proxy.ProxyHistoryFilter;
 import burp.api.montoya.proxy.ProxyHttpRequestResponse;
 import burp.api.montoya.logging.Logging;
-import burp.api.montoya.scope.Scope;
 import org.oxff.config.ConfigManager;
 import org.oxff.config.ExtractionRule;
 import org.oxff.config.UrlPattern;
-import org.oxff.extractor.ExtractorFactory;
-import org.oxff.extractor.InterfaceNameExtractor;
+import org.oxff.extractor.ExtractionContext;
+import org.oxff.extractor.ExtractionEngine;
+import org.oxff.extractor.ExtractionResult;
+import org.oxff.coverage.CoverageCatalog;
+import org.oxff.export.ExportWriter;
+import org.oxff.index.ExtractionJournal;
+import org.oxff.index.InterfaceIndex;
+import org.oxff.index.InterfaceInventory;
+import org.oxff.index.InventoryRecorder;
+import org.oxff.index.NamePool;
+import org.oxff.index.ExtractionMetadataStore;
+import org.oxff.job.JobContext;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -28,124 +42,388 @@ public class HistoryProcessor {
     private final Logging logger;
     // 配置管理器
     private final ConfigManager configManager;
-    // 提取器工厂
-    private final ExtractorFactory extractorFactory;
+    // 提取引擎
+    private final ExtractionEngine extractionEngine;
+    // 提取元数据存储: 按历史位置记录备注由哪条规则、哪个配置版本产生以及名称ID、请求体哈希
+    private final ExtractionMetadataStore metadataStore = new ExtractionMetadataStore();
+    // 接口倒排索引: 按接口名称定位历史记录
+    private final InterfaceIndex interfaceIndex;
+    // 历史记录扫描器
+    private final HistoryScanner historyScanner;
+    // 备注回写器
+    private final AnnotationWriter annotationWriter;
+    // 接口清单
+    private final InterfaceInventory interfaceInventory;
+    // 接口覆盖率目录
+    private final CoverageCatalog coverageCatalog;
+    // 提取日志: 打开失败时为null
+    private final ExtractionJournal extractionJournal;
     
     /**
      * 构造函数: 初始化历史记录处理器
      * @param montoyaApi Burp Suite API接口
      * @param configManager 配置管理器
+     * @param extractionEngine 提取引擎
+     * @param annotationWriter 备注回写器
+     * @param interfaceInventory 接口清单
+     * @param coverageCatalog 接口覆盖率目录
+     * @param extractionJournal 提取日志，可以为null
      */
-    public HistoryProcessor(MontoyaApi montoyaApi, ConfigManager configManager) {
+    public HistoryProcessor(MontoyaApi montoyaApi, ConfigManager configManager, ExtractionEngine extractionEngine,
+                            AnnotationWriter annotationWriter, InterfaceInventory interfaceInventory,
+                            CoverageCatalog coverageCatalog, ExtractionJournal extractionJournal) {
         this.montoyaApi = montoyaApi;
         this.logger = montoyaApi.logging();
         this.configManager = configManager;
-        this.extractorFactory = new ExtractorFactory();
+        this.extractionEngine = extractionEngine;
+        this.historyScanner = new HistoryScanner(montoyaApi, extractionEngine);
+        this.annotationWriter = annotationWriter;
+        this.interfaceInventory = interfaceInventory;
+        this.coverageCatalog = coverageCatalog;
+        this.extractionJournal = extractionJournal;
+        this.interfaceIndex = new InterfaceIndex(extractionEngine.getNamePool(), metadataStore);
     }
     
     /**
-     * 批量处理历史记录: 遍历代理历史记录，对满足条件的请求提取接口名称并添加到备注中
+     * 批量处理历史记录: 通过预过滤取回候选记录，对满足条件的请求提取接口名称并添加到备注中
+     * @param context 任务上下文，用于汇报进度和响应取消
      * @return 处理的请求数量
      */
-    public int processHistory() {
-        int processedCount = 0;
-        int foundInterfaceCount = 0;
+    public int processHistory(JobContext context) {
+        AtomicInteger foundInterfaceCount = new AtomicInteger();
         
         try {
             logger.logToOutput("开始批量处理历史记录...");
             
-            // 获取代理历史记录
-            List<ProxyHttpRequestResponse> proxyHistory = montoyaApi.proxy().history();
-            logger.logToOutput("历史记录总数: " + proxyHistory.size());
-            
-            // 获取目标范围
-            Scope scope = montoyaApi.scope();
-            
-            for (ProxyHttpRequestResponse historyItem : proxyHistory) {
-                try {
-                    // 检查是否在目标范围内（如果有定义scope的话）
-                    if (!isInScope(historyItem, scope)) {
-                        continue;
-                    }
-                    
-                    processedCount++;
-                    
-                    // 检查URL是否匹配配置的模式
-                    String url = historyItem.finalRequest().url();
-//                    if (!isUrlMatchPattern(url)) {
-//                        continue;
-//                    }
-                    
-                    // 获取请求体
-                    String body = historyItem.finalRequest().bodyToString().trim();
-                    if (body.isEmpty()) {
-                        continue;
+            // 全量扫描同时重建接口清单
+            InterfaceInventory.Rebuild rebuild = interfaceInventory.beginRebuild(extractionEngine.getConfigVersion());
+            HistoryScanner.ScanResult scanResult;
+            try {
+                scanResult = historyScanner.scan(context, null, (position, historyItem) -> {
+                    if (processHistoryItem(position, historyItem, rebuild)) {
+                        foundInterfaceCount.incrementAndGet();
                     }
-                    
-                    // 检查是否已经有备注了，避免重复处理
-                    // String existingNotes = historyItem.annotations().notes();
-                    // if (existingNotes != null && !existingNotes.trim().isEmpty()) {
-                    //     continue;
-                    // }
-                    
-                    // 尝试提取接口名称
-                    Optional<String> interfaceNameOpt = extractInterfaceName(body);
-                    if (interfaceNameOpt.isPresent()) {
-                        String interfaceName = interfaceNameOpt.get();
-                        
-                        // 设置备注
-                        Annotations annotations = historyItem.annotations();
-                        annotations.setNotes(interfaceName);
-                        
-                        foundInterfaceCount++;
-                        logger.logToOutput("为历史记录 [" + url + "] 添加接口备注: " + interfaceName);
-                    }
-                } catch (Exception e) {
-                    logger.logToError("处理历史记录项时发生错误: " + e.getMessage());
+                });
+                if (scanResult.isComplete()) {
+                    rebuild.commit();
+                    markScanComplete(scanResult);
                 }
+            } finally {
+                rebuild.discard();
             }
+            awaitAnnotationsWritten(context);
             
-            logger.logToOutput("批量处理完成！处理的请求数: " + processedCount + 
-                              ", 找到接口名称的请求数: " + foundInterfaceCount);
+            logger.logToOutput("批量处理完成！处理的请求数: " + scanResult.getCandidateCount() +
+                              ", 找到接口名称的请求数: " + foundInterfaceCount.get());
         } catch (Exception e) {
             logger.logToError("批量处理历史记录时发生错误: " + e.getMessage());
             e.printStackTrace();
         }
         
-        return foundInterfaceCount;
+        return foundInterfaceCount.get();
+    }
+    
+    /**
+     * 增量重新标注: 仅重新处理备注来源规则已变更、之前未命中或尚未处理过的历史记录
+     * @param context 任务上下文，用于汇报进度和响应取消
+     * @return 新增或更新接口名称备注的请求数量
+     */
+    public int processChangedHistory(JobContext context) {
+        AtomicInteger foundInterfaceCount = new AtomicInteger();
+        
+        try {
+            logger.logToOutput("开始增量重新标注历史记录，当前配置版本: " + extractionEngine.getConfigVersion());
+            
+            // 标记仍然有效的记录在预过滤阶段直接跳过
+            HistoryScanner.ScanResult scanResult = historyScanner.scan(context, this::isStampStale,
+                    (position, historyItem) -> {
+                        if (reprocessHistoryItem(position, historyItem)) {
+                            foundInterfaceCount.incrementAndGet();
+                        }
+                    });
+            if (scanResult.isComplete()) {
+                markScanComplete(scanResult);
+            }
+            awaitAnnotationsWritten(context);
+            
+            logger.logToOutput("增量重新标注完成！重新处理的请求数: " + scanResult.getCandidateCount() +
+                              ", 找到接口名称的请求数: " + foundInterfaceCount.get());
+        } catch (Exception e) {
+            logger.logToError("增量重新标注历史记录时发生错误: " + e.getMessage(), e);
+        }
+        
+        return foundInterfaceCount.get();
+    }
+    
+    /**
+     * 等待回写队列中的备注写入完成: 让任务在备注真正写入后才结束，避免重复任务交叉写入
+     * @param context 任务上下文
+     */
+    private void awaitAnnotationsWritten(JobContext context) {
+        long writtenBefore = annotationWriter.getWrittenCount();
+        long skippedBefore = annotationWriter.getSkippedCount();
+        annotationWriter.awaitDrained(context::isCancelled);
+        logger.logToOutput("备注回写: 写入 " + (annotationWriter.getWrittenCount() - writtenBefore) +
+                          " 条, 备注未变化跳过 " + (annotationWriter.getSkippedCount() - skippedBefore) + " 条");
+    }
+    
+    /**
+     * 标记扫描完成: 更新索引覆盖范围并写入提取日志
+     * @param scanResult 扫描结果
+     */
+    private void markScanComplete(HistoryScanner.ScanResult scanResult) {
+        interfaceIndex.markIndexedUpTo(scanResult.getHistorySize());
+        if (extractionJournal != null) {
+            extractionJournal.appendScanComplete(scanResult.getHistorySize(), extractionEngine.getConfigVersion());
+        }
+    }
+    
+    /**
+     * 从提取日志恢复: 回放日志重建规则版本标记、接口索引和接口清单，插件重新加载后无需重新处理历史记录
+     * <p>
+     * 日志只回放每个位置最后一次提取的结果，被重新提取取代的旧名称不会计入接口清单和覆盖率目录。
+     */
+    public void restoreFromJournal() {
+        if (extractionJournal == null) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        InterfaceInventory.Rebuild rebuild = interfaceInventory.beginRebuild(-1);
+        int[] lastScan = {-1, -1};
+        try {
+            int replayed = extractionJournal.replay(new ExtractionJournal.ReplayHandler() {
+                @Override
+                public void onExtraction(int position, long bodyHash, List<String> interfaceNames, int ruleId,
+                                         int configVersion, long timeMillis) {
+                    metadataStore.stamp(position, ruleId, configVersion, bodyHash,
+                            ExtractionMetadataStore.FLAG_RESTORED);
+                    interfaceIndex.putAll(position, nameIdsOf(interfaceNames));
+                    for (String interfaceName : interfaceNames) {
+                        rebuild.record(interfaceName, null, null, timeMillis);
+                        coverageCatalog.markCovered(interfaceName);
+                    }
+                }
+                
+                @Override
+                public void onScanComplete(int historySize, int configVersion) {
+                    lastScan[0] = historySize;
+                    lastScan[1] = configVersion;
+                }
+            }, extractionEngine.getNamePool(), currentHistorySize());
+            
+            if (lastScan[0] >= 0) {
+                interfaceIndex.markIndexedUpTo(lastScan[0]);
+            }
+            // 最后一次完整扫描之后规则未变更时，清单视为完整
+            int currentVersion = extractionEngine.getConfigVersion();
+            rebuild.commit(lastScan[1] == currentVersion ? currentVersion : -1);
+            logger.logToOutput("已从提取日志恢复 " + replayed + " 条历史记录，接口数: " + interfaceInventory.size() +
+                              "，耗时 " + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (Exception e) {
+            logger.logToError("从提取日志恢复时发生错误: " + e.getMessage());
+        } finally {
+            rebuild.discard();
+        }
+    }
+    
+    /**
+     * 统计当前代理历史记录数量: 过滤器只计数、不接受任何记录，Burp不会构造结果列表
+     * @return 代理历史记录数量
+     */
+    private int currentHistorySize() {
+        int[] count = {0};
+        montoyaApi.proxy().history(historyItem -> {
+            count[0]++;
+            return false;
+        });
+        return count[0];
+    }
+    
+    /**
+     * 判断某个历史位置的规则版本标记是否需要重新提取
+     * <p>
+     * 从提取日志恢复的标记在本次加载后第一次扫描时核对请求体哈希: 历史记录被替换或请求被修改时哈希不一致，视为过期；
+     * 哈希一致时清除恢复标志，之后的扫描不再读取请求体。
+     * @param position 代理历史位置
+     * @param historyItem 历史记录项
+     * @return 如果尚未处理过、请求体已变化或标记已过期，则返回true，否则返回false
+     */
+    private boolean isStampStale(int position, ProxyHttpRequestResponse historyItem) {
+        int ruleId = metadataStore.ruleIdAt(position);
+        if (ruleId == ExtractionMetadataStore.NO_STAMP) {
+            return true;
+        }
+        if ((metadataStore.flagsAt(position) & ExtractionMetadataStore.FLAG_RESTORED) != 0) {
+            HttpRequest request = historyItem.finalRequest();
+            if (request == null || ExtractionJournal.hashBody(request.body()) != metadataStore.bodyHashAt(position)) {
+                return true;
+            }
+            metadataStore.clearFlag(position, ExtractionMetadataStore.FLAG_RESTORED);
+        }
+        return extractionEngine.isStale(ruleId, metadataStore.versionAt(position));
+    }
+    
+    /**
+     * 处理单条历史记录: 提取接口名称、设置备注并记录规则版本标记
+     * @param position 代理历史位置
+     * @param historyItem 历史记录项
+     * @param recorder 接口清单记录器
+     * @return 如果提取到接口名称，则返回true，否则返回false
+     */
+    private boolean processHistoryItem(int position, ProxyHttpRequestResponse historyItem,
+                                       InventoryRecorder recorder) {
+        // 请求体哈希在原始字节上计算；请求体只在规则需要时才解码，没有请求体时仍交给提取引擎
+        HttpRequest request = historyItem.finalRequest();
+        long timeMillis = timeOf(historyItem);
+        long bodyHash = ExtractionJournal.hashBody(request.body());
+        
+        // 尝试提取接口名称
+        Optional<ExtractionResult> resultOpt = extractInterfaceName(request);
+        if (resultOpt.isEmpty()) {
+            recordMiss(position, bodyHash, timeMillis);
+            return false;
+        }
+        
+        ExtractionResult result = resultOpt.get();
+        
+        // 提交备注到回写队列；批量请求的每个名称都进入接口索引和提取日志
+        annotationWriter.submit(historyItem.annotations(), result.getAnnotation());
+        metadataStore.stamp(position, result.getRuleId(), result.getConfigVersion(), bodyHash);
+        int[] nameIds = nameIdsOf(result.getInterfaceNames());
+        interfaceIndex.putAll(position, nameIds);
+        if (extractionJournal != null) {
+            extractionJournal.appendExtraction(position, bodyHash, nameIds, result.getInterfaceNames(),
+                    result.getRuleId(), result.getConfigVersion(), timeMillis);
+        }
+        
+        String url = historyItem.finalRequest().url();
+        for (String name : result.getInterfaceNames()) {
+            recordInventory(recorder, name, historyItem, url);
+        }
+        logger.logToOutput("为历史记录 [" + url + "] 添加接口备注: " + result.getAnnotation());
+        return true;
+    }
+    
+    /**
+     * 重新处理单条历史记录: 接口清单只按名称的变化调整，避免同一请求被重复计数
+     * <p>
+     * 之前处理过（命中或未命中）或已进入索引的记录已经计入清单，新名称记录一次命中，不再产生的旧名称撤销一次命中，名称不变时不修改清单。
+     * 从未经过批量处理的记录可能已由实时流量计入清单，位置未知时无法得知旧名称，这两种情况只更新备注、索引和覆盖率。
+     * @param position 代理历史位置
+     * @param historyItem 历史记录项
+     * @return 如果提取到接口名称，则返回true，否则返回false
+     */
+    private boolean reprocessHistoryItem(int position, ProxyHttpRequestResponse historyItem) {
+        Set<String> previousNames = new HashSet<>(interfaceIndex.namesAt(position));
+        boolean counted = position >= 0
+                && (metadataStore.ruleIdAt(position) != ExtractionMetadataStore.NO_STAMP || !previousNames.isEmpty());
+        boolean found = processHistoryItem(position, historyItem, (interfaceName, host, sampleRef, timeMillis) -> {
+            if (!previousNames.remove(interfaceName) && counted) {
+                interfaceInventory.record(interfaceName, host, sampleRef, timeMillis);
+            }
+        });
+        if (counted) {
+            for (String interfaceName : previousNames) {
+                interfaceInventory.forget(interfaceName);
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * 记录未命中: 更新规则版本标记、接口索引和提取日志
+     * @param position 代理历史位置
+     * @param bodyHash 请求体哈希
+     * @param timeMillis 请求时间
+     */
+    private void recordMiss(int position, long bodyHash, long timeMillis) {
+        int configVersion = extractionEngine.getConfigVersion();
+        metadataStore.stamp(position, ExtractionMetadataStore.MISS, configVersion, bodyHash);
+        interfaceIndex.remove(position);
+        if (extractionJournal != null) {
+            extractionJournal.appendExtraction(position, bodyHash, new int[0], Collections.emptyList(),
+                    ExtractionMetadataStore.MISS, configVersion, timeMillis);
+        }
+    }
+    
+    /**
+     * 获取接口名称在驻留池中的ID: 名称已由提取引擎驻留，只查找不分配
+     * @param interfaceNames 接口名称
+     * @return 名称ID数组，与名称一一对应，不在驻留池中的名称为NamePool.NO_ID
+     */
+    private int[] nameIdsOf(List<String> interfaceNames) {
+        NamePool namePool = extractionEngine.getNamePool();
+        int[] nameIds = new int[interfaceNames.size()];
+        for (int i = 0; i < nameIds.length; i++) {
+            nameIds[i] = namePool.find(interfaceNames.get(i));
+        }
+        return nameIds;
+    }
+    
+    /**
+     * 获取历史记录的请求时间
+     * @param historyItem 历史记录项
+     * @return 请求时间，缺失时使用当前时间
+     */
+    private static long timeOf(ProxyHttpRequestResponse historyItem) {
+        return historyItem.time() != null
+                ? historyItem.time().toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+    }
+    
+    /**
+     * 记录到接口清单和覆盖率目录
+     * @param recorder 接口清单记录器
+     * @param interfaceName 接口名称
+     * @param historyItem 历史记录项
+     * @param url 请求URL
+     */
+    private void recordInventory(InventoryRecorder recorder, String interfaceName,
+                                 ProxyHttpRequestResponse historyItem, String url) {
+        long timeMillis = timeOf(historyItem);
+        recorder.record(interfaceName, historyItem.finalRequest().httpService().host(), url, timeMillis);
+        coverageCatalog.markCovered(interfaceName);
     }
     
     /**
      * 从所有历史记录中提取接口名称并去重
+     * @param context 任务上下文，用于汇报进度和响应取消
      * @return 去重后的接口名称集合（保持插入顺序）
      */
-    public Set<String> extractAllInterfaceNames() {
+    public Set<String> extractAllInterfaceNames(JobContext context) {
         Set<String> interfaceNames = new LinkedHashSet<>();
         
         try {
-            logger.logToOutput("开始提取所有历史记录的接口名称...");
+            // 接口清单已按当前规则完整构建时，直接从清单读取
+            if (interfaceInventory.isCompleteFor(extractionEngine.getConfigVersion())) {
+                interfaceNames.addAll(interfaceInventory.names());
+                logger.logToOutput("从接口清单读取到 " + interfaceNames.size() + " 个不重复的接口名称");
+                return interfaceNames;
+            }
             
-            List<ProxyHttpRequestResponse> proxyHistory = montoyaApi.proxy().history();
-            Scope scope = montoyaApi.scope();
+            logger.logToOutput("开始提取所有历史记录的接口名称...");
             
-            for (ProxyHttpRequestResponse historyItem : proxyHistory) {
-                try {
-                    if (!isInScope(historyItem, scope)) {
-                        continue;
-                    }
-                    
-                    String body = historyItem.finalRequest().bodyToString().trim();
-                    if (body.isEmpty()) {
-                        continue;
+            InterfaceInventory.Rebuild rebuild = interfaceInventory.beginRebuild(extractionEngine.getConfigVersion());
+            try {
+                HistoryScanner.ScanResult scanResult = historyScanner.scan(context, null, (position, historyItem) -> {
+                    Optional<ExtractionResult> resultOpt = extractInterfaceName(historyItem.finalRequest());
+                    if (resultOpt.isEmpty()) {
+                        interfaceIndex.remove(position);
+                        return;
                     }
-                    
-                    Optional<String> interfaceNameOpt = extractInterfaceName(body);
-                    if (interfaceNameOpt.isPresent()) {
-                        interfaceNames.add(interfaceNameOpt.get());
+                    ExtractionResult result = resultOpt.get();
+                    interfaceNames.addAll(result.getInterfaceNames());
+                    interfaceIndex.putAll(position, nameIdsOf(result.getInterfaceNames()));
+                    for (String interfaceName : result.getInterfaceNames()) {
+                        recordInventory(rebuild, interfaceName, historyItem, historyItem.finalRequest().url());
                     }
-                } catch (Exception e) {
-                    logger.logToError("提取历史记录接口名称时发生错误: " + e.getMessage());
+                });
+                if (scanResult.isComplete()) {
+                    rebuild.commit();
+                    interfaceIndex.markIndexedUpTo(scanResult.getHistorySize());
                 }
+            } finally {
+                rebuild.discard();
             }
             
             logger.logToOutput("提取完成，共找到 " + interfaceNames.size() + " 个不重复的接口名称");
@@ -157,28 +435,138 @@ public class HistoryProcessor {
         return interfaceNames;
     }
     
+    /**
+     * 导出提取结果: 扫描历史记录，每提取到一个接口名称就写入一条记录，不在内存中累积结果
+     * @param exportWriter 导出写入器
+     * @param context 任务上下文，用于汇报进度和响应取消
+     * @return 导出的记录数量
+     */
+    public long exportHistory(ExportWriter exportWriter, JobContext context) {
+        logger.logToOutput("开始导出历史记录的接口提取结果...");
+        
+        historyScanner.scan(context, null, (position, historyItem) -> {
+            HttpRequest request = historyItem.finalRequest();
+            Optional<ExtractionResult> resultOpt = extractInterfaceName(request);
+            if (resultOpt.isEmpty()) {
+                return;
+            }
+            ExtractionResult result = resultOpt.get();
+            long timeMillis = timeOf(historyItem);
+            try {
+                // 批量请求中的每个接口各导出一条记录
+                for (String interfaceName : result.getInterfaceNames()) {
+                    exportWriter.write(position, request.url(), request.method(), interfaceName, result.getRuleId(),
+                            timeMillis);
+                }
+            } catch (IOException e) {
+                // 写入失败时取消任务，避免继续扫描
+                logger.logToError("写入导出文件失败: " + e.getMessage());
+                context.cancel();
+            }
+        });
+        
+        logger.logToOutput("导出完成，共导出 " + exportWriter.getRecordCount() + " 条记录");
+        return exportWriter.getRecordCount();
+    }
+    
+    /**
+     * 按接口名称过滤代理历史记录: 已建立索引的部分按位置数组直接定位，索引之后新增的记录按备注匹配
+     * @param interfaceName 接口名称
+     * @param context 任务上下文，用于响应取消
+     * @return 按历史顺序排列的匹配记录
+     */
+    public List<ProxyHttpRequestResponse> filterHistoryByName(String interfaceName, JobContext context) {
+        int[] positions = interfaceIndex.positionsOf(interfaceName);
+        int indexedHistorySize = interfaceIndex.getIndexedHistorySize();
+        logger.logToOutput("按接口名称 [" + interfaceName + "] 查找历史记录, 索引命中: " + positions.length +
+                          ", 索引覆盖的历史记录数: " + indexedHistorySize);
+        
+        List<ProxyHttpRequestResponse> matches = montoyaApi.proxy().history(
+                new NameFilter(context, interfaceName, positions, indexedHistorySize));
+        logger.logToOutput("共找到 " + matches.size() + " 条接口 [" + interfaceName + "] 的历史记录");
+        return matches;
+    }
+    
+    /**
+     * 获取接口名称对应的所有历史位置
+     * @param interfaceName 接口名称
+     * @return 升序排列的历史位置数组
+     */
+    public int[] historyPositionsOf(String interfaceName) {
+        return interfaceIndex.positionsOf(interfaceName);
+    }
+    
+    /**
+     * 获取索引中已有历史记录的接口名称
+     * @return 按名称排序的接口名称列表
+     */
+    public List<String> indexedInterfaceNames() {
+        return interfaceIndex.names();
+    }
+    
+    /**
+     * 接口名称过滤器: 按历史顺序计数，索引范围内只比较位置，索引之后的记录比较备注
+     */
+    private class NameFilter implements ProxyHistoryFilter {
+        private final JobContext context;
+        private final String interfaceName;
+        private final int[] positions;
+        private final int indexedHistorySize;
+        private int next = 0;
+        private int position = 0;
+        
+        NameFilter(JobContext context, String interfaceName, int[] positions, int indexedHistorySize) {
+            this.context = context;
+            this.interfaceName = interfaceName;
+            this.positions = positions;
+            this.indexedHistorySize = indexedHistorySize;
+        }
+        
+        @Override
+        public boolean matches(ProxyHttpRequestResponse historyItem) {
+            int current = position++;
+            if (context.isCancelled()) {
+                return false;
+            }
+            if (current < indexedHistorySize) {
+                if (next < positions.length && positions[next] == current) {
+                    next++;
+                    return true;
+                }
+                return false;
+            }
+            try {
+                return interfaceName.equals(historyItem.annotations().notes());
+            } catch (Exception e) {
+                logger.logToError("按接口名称过滤历史记录时发生错误: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+    
     /**
      * 从选中的请求列表中提取接口名称并去重
      * @param selectedRequests 选中的请求列表
+     * @param context 任务上下文，用于汇报进度和响应取消
      * @return 去重后的接口名称集合（保持插入顺序）
      */
-    public Set<String> extractInterfaceNamesFromSelected(List<HttpRequestResponse> selectedRequests) {
+    public Set<String> extractInterfaceNamesFromSelected(List<HttpRequestResponse> selectedRequests,
+                                                         JobContext context) {
         Set<String> interfaceNames = new LinkedHashSet<>();
         
         try {
             logger.logToOutput("开始提取选中请求的接口名称，共 " + selectedRequests.size() + " 个请求...");
             
+            context.setTotal(selectedRequests.size());
+            
             for (HttpRequestResponse requestResponse : selectedRequests) {
+                if (context.isCancelled()) {
+                    break;
+                }
+                context.advance();
                 try {
-                    String body = requestResponse.request().bodyToString().trim();
-                    if (body.isEmpty()) {
-                        continue;
-                    }
-                    
-                    Optional<String> interfaceNameOpt = extractInterfaceName(body);
-                    if (interfaceNameOpt.isPresent()) {
-                        interfaceNames.add(interfaceNameOpt.get());
-                    }
+                    Optional<ExtractionResult> resultOpt = extractInterfaceName(requestResponse.request());
+                    resultOpt.ifPresent(result -> interfaceNames.addAll(result.getInterfaceNames()));
                 } catch (Exception e) {
                     logger.logToError("提取选中请求接口名称时发生错误: " + e.getMessage());
                 }
@@ -196,36 +584,36 @@ public class HistoryProcessor {
     /**
      * 处理选中的请求列表: 对指定的请求列表提取接口名称并添加到备注中
      * @param selectedRequests 选中的请求列表
+     * @param context 任务上下文，用于汇报进度和响应取消
      * @return 成功处理的请求数量
      */
-    public int processSelectedRequests(List<HttpRequestResponse> selectedRequests) {
+    public int processSelectedRequests(List<HttpRequestResponse> selectedRequests, JobContext context) {
         int processedCount = 0;
         int foundInterfaceCount = 0;
         
         try {
             logger.logToOutput("开始处理选中的请求，共 " + selectedRequests.size() + " 个...");
             
+            context.setTotal(selectedRequests.size());
+            
             for (HttpRequestResponse requestResponse : selectedRequests) {
+                if (context.isCancelled()) {
+                    break;
+                }
+                context.advance();
                 try {
                     processedCount++;
                     
                     // 获取请求URL
                     String url = requestResponse.request().url();
                     
-                    // 获取请求体
-                    String body = requestResponse.request().bodyToString().trim();
-                    if (body.isEmpty()) {
-                        continue;
-                    }
-                    
                     // 尝试提取接口名称
-                    Optional<String> interfaceNameOpt = extractInterfaceName(body);
-                    if (interfaceNameOpt.isPresent()) {
-                        String interfaceName = interfaceNameOpt.get();
+                    Optional<ExtractionResult> resultOpt = extractInterfaceName(requestResponse.request());
+                    if (resultOpt.isPresent()) {
+                        String interfaceName = resultOpt.get().getAnnotation();
                         
-                        // 设置备注
-                        Annotations annotations = requestResponse.annotations();
-                        annotations.setNotes(interfaceName);
+                        // 提交备注到回写队列
+                        annotationWriter.submit(requestResponse.annotations(), interfaceName);
                         
                         foundInterfaceCount++;
                         logger.logToOutput("为请求 [" + url + "] 添加接口备注: " + interfaceName);
@@ -235,6 +623,8 @@ public class HistoryProcessor {
                 }
             }
             
+            awaitAnnotationsWritten(context);
+            
             logger.logToOutput("选中请求处理完成！处理的请求数: " + processedCount + 
                               ", 找到接口名称的请求数: " + foundInterfaceCount);
         } catch (Exception e) {
@@ -245,28 +635,6 @@ public class HistoryProcessor {
         return foundInterfaceCount;
     }
     
-    /**
-     * 检查请求是否在目标范围内: 如果没有定义scope则返回true，否则检查是否在scope中
-     * @param historyItem 历史记录项
-     * @param scope 目标范围
-     * @return 是否在范围内
-     */
-    private boolean isInScope(ProxyHttpRequestResponse historyItem, Scope scope) {
-        try {
-            // 如果scope为空或者没有包含任何URL，则处理所有请求
-            if (scope == null) {
-                return true;
-            }
-            
-            // 检查是否在scope范围内，使用URL字符串而不是HttpRequest对象
-            return scope.isInScope(historyItem.request().url());
-        } catch (Exception e) {
-            // 如果出现异常，默认不在范围内
-            logger.logToError("检查scope时发生错误: " + e.getMessage());
-            return false;
-        }
-    }
-    
     /**
      * 检查URL是否匹配配置的模式: 遍历所有启用的URL模式，检查URL是否匹配其中一个
      * @param url 需要检查的URL
@@ -282,22 +650,11 @@ public class HistoryProcessor {
     }
     
     /**
-     * 提取接口名称: 遍历所有启用的提取规则，尝试使用每个规则提取接口名称
-     * @param body 请求体
-     * @return 提取到的接口名称，如果没有匹配的规则或提取失败，则返回空
+     * 提取接口名称: 使用提取引擎按规则顺序提取，请求体在规则第一次需要时才读取和解码
+     * @param request 请求
+     * @return 提取结果，如果没有匹配的规则或提取失败，则返回空
      */
-    private Optional<String> extractInterfaceName(String body) {
-        for (ExtractionRule rule : configManager.getExtractionRules()) {
-            if (rule.isEnabled()) {
-                InterfaceNameExtractor extractor = extractorFactory.createExtractor(rule.getRuleType(), rule.getPattern());
-                if (extractor != null) {
-                    Optional<String> interfaceName = extractor.extract(body);
-                    if (interfaceName.isPresent() && !interfaceName.get().isEmpty()) {
-                        return interfaceName;
-                    }
-                }
-            }
-        }
-        return Optional.empty();
+    private Optional<ExtractionResult> extractInterfaceName(HttpRequest request) {
+        return extractionEngine.extract(ExtractionContext.of(request), ExtractionEngine.hostOf(request));
     }
-} 
\ No newline at end of file
+}
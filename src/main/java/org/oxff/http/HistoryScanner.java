@@ -0,0 +1,192 @@
+package org.oxff.http;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.proxy.ProxyHistoryFilter;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+import org.oxff.extractor.ExtractionEngine;
+import org.oxff.index.IntList;
+import org.oxff.job.JobContext;
+
+import java.util.List;
+
+/**
+ * 历史记录扫描器: 通过ProxyHistoryFilter把廉价的过滤条件下推给Burp，只遍历一次代理历史即取回候选记录，再按固定大小分块处理
+ * <p>
+ * 过滤器在返回候选记录的同时按顺序记录其历史位置，每处理完一块检查一次取消请求。
+ * 历史位置通过过滤器的调用次数计算，依赖Burp按历史顺序逐条调用过滤器，结果数量与候选位置数量不符时放弃位置信息。
+ */
+public class HistoryScanner {
+    // 每块处理的候选记录数量
+    public static final int CHUNK_SIZE = 2000;
+    // 位置未知时使用的标记
+    public static final int UNKNOWN_POSITION = -1;
+    
+    // Burp Suite API
+    private final MontoyaApi montoyaApi;
+    // 日志记录器
+    private final Logging logger;
+    // 提取引擎
+    private final ExtractionEngine extractionEngine;
+    
+    /**
+     * 历史记录处理回调接口: 对每条候选记录调用一次
+     */
+    @FunctionalInterface
+    public interface ItemHandler {
+        /**
+         * 处理候选记录
+         * @param position 代理历史位置，位置不可靠时为UNKNOWN_POSITION
+         * @param historyItem 历史记录项
+         */
+        void handle(int position, ProxyHttpRequestResponse historyItem);
+    }
+    
+    /**
+     * 位置过滤条件接口: 在第一遍过滤中对每条记录调用，返回false的记录不成为候选
+     */
+    @FunctionalInterface
+    public interface PositionFilter {
+        /**
+         * 判断记录是否需要处理
+         * @param position 代理历史位置
+         * @param historyItem 历史记录项
+         * @return 如果需要处理，则返回true，否则返回false
+         */
+        boolean test(int position, ProxyHttpRequestResponse historyItem);
+    }
+    
+    /**
+     * 构造函数: 创建历史记录扫描器
+     * @param montoyaApi Burp Suite API接口
+     * @param extractionEngine 提取引擎
+     */
+    public HistoryScanner(MontoyaApi montoyaApi, ExtractionEngine extractionEngine) {
+        this.montoyaApi = montoyaApi;
+        this.logger = montoyaApi.logging();
+        this.extractionEngine = extractionEngine;
+    }
+    
+    /**
+     * 扫描代理历史记录: 过滤出在范围内、请求体类型可被规则处理的记录，按块交给回调处理；
+     * 没有请求体的记录只在存在请求头或表单参数规则时保留
+     * @param context 任务上下文，用于汇报进度和响应取消
+     * @param positionFilter 位置过滤条件，返回false的位置直接跳过，可以为null
+     * @param handler 候选记录处理回调
+     * @return 扫描结果
+     */
+    public ScanResult scan(JobContext context, PositionFilter positionFilter, ItemHandler handler) {
+        // 一次遍历: 取回候选记录并记录其历史位置
+        ScopeCache scopeCache = new ScopeCache(montoyaApi);
+        CandidateFilter candidateFilter = new CandidateFilter(context, positionFilter, scopeCache);
+        List<ProxyHttpRequestResponse> items = montoyaApi.proxy().history(candidateFilter);
+        IntList candidates = candidateFilter.candidates;
+        logger.logToOutput("历史记录总数: " + candidateFilter.position + ", 候选记录数: " + items.size());
+        logger.logToOutput(scopeCache.stats());
+        
+        // 位置不可靠时扫描不视为完整，避免把未进入索引的位置标记为已覆盖
+        boolean positionsReliable = items.size() == candidates.size();
+        if (!positionsReliable) {
+            logger.logToError("历史记录在扫描期间发生变化，本次扫描不记录历史位置");
+        }
+        
+        context.setTotal(items.size());
+        
+        // 按块处理候选记录，每块开始前检查取消请求
+        for (int chunkStart = 0; chunkStart < items.size(); chunkStart += CHUNK_SIZE) {
+            if (context.isCancelled()) {
+                logger.logToOutput("任务已取消，停止处理剩余历史记录");
+                break;
+            }
+            int chunkEnd = Math.min(chunkStart + CHUNK_SIZE, items.size());
+            for (int i = chunkStart; i < chunkEnd; i++) {
+                if (context.isCancelled()) {
+                    break;
+                }
+                context.advance();
+                int position = positionsReliable ? candidates.get(i) : UNKNOWN_POSITION;
+                try {
+                    handler.handle(position, items.get(i));
+                } catch (Exception e) {
+                    logger.logToError("处理历史记录项时发生错误: " + e.getMessage());
+                }
+            }
+        }
+        
+        return new ScanResult(candidateFilter.position, items.size(), !context.isCancelled() && positionsReliable);
+    }
+    
+    /**
+     * 扫描结果: 历史记录总数、候选记录数量以及扫描是否完整结束；被取消或有记录的历史位置不可靠时不完整
+     */
+    public static class ScanResult {
+        private final int historySize;
+        private final int candidateCount;
+        private final boolean complete;
+        
+        ScanResult(int historySize, int candidateCount, boolean complete) {
+            this.historySize = historySize;
+            this.candidateCount = candidateCount;
+            this.complete = complete;
+        }
+        
+        public int getHistorySize() {
+            return historySize;
+        }
+        
+        public int getCandidateCount() {
+            return candidateCount;
+        }
+        
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+    
+    /**
+     * 候选过滤器: 按历史顺序计数，接受满足条件的记录并按顺序记录其位置
+     */
+    private class CandidateFilter implements ProxyHistoryFilter {
+        private final JobContext context;
+        private final PositionFilter positionFilter;
+        private final ScopeCache scopeCache;
+        private final IntList candidates = new IntList(1024);
+        private int position = 0;
+        
+        CandidateFilter(JobContext context, PositionFilter positionFilter, ScopeCache scopeCache) {
+            this.context = context;
+            this.positionFilter = positionFilter;
+            this.scopeCache = scopeCache;
+        }
+        
+        @Override
+        public boolean matches(ProxyHttpRequestResponse historyItem) {
+            int current = position++;
+            if (context.isCancelled()) {
+                return false;
+            }
+            try {
+                if (positionFilter != null && !positionFilter.test(current, historyItem)) {
+                    return false;
+                }
+                HttpRequest request = historyItem.finalRequest();
+                if (request == null
+                        || request.body().length() == 0 && !extractionEngine.acceptsEmptyBody()) {
+                    return false;
+                }
+                if (!extractionEngine.acceptsContentType(request.contentType())) {
+                    return false;
+                }
+                if (!scopeCache.isInScope(request)) {
+                    return false;
+                }
+                candidates.add(current);
+                return true;
+            } catch (Exception e) {
+                logger.logToError("过滤历史记录时发生错误: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -3,16 +3,19 @@ package org.oxff.http;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.core.Annotations;
 import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.logging.Logging;
 import org.oxff.config.ConfigManager;
-import org.oxff.config.ExtractionRule;
 import org.oxff.config.UrlPattern;
-import org.oxff.extractor.ExtractorFactory;
-import org.oxff.extractor.InterfaceNameExtractor;
+import org.oxff.extractor.ExtractionContext;
+import org.oxff.extractor.ExtractionEngine;
+import org.oxff.extractor.ExtractionResult;
+import org.oxff.coverage.CoverageCatalog;
+import org.oxff.index.InterfaceInventory;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 请求处理器: 负责处理HTTP请求，提取接口名称并返回带有备注的Annotations
@@ -24,8 +27,12 @@ public class RequestProcessor {
     private final Logging logger;
     // 配置管理器
     private final ConfigManager configManager;
-    // 提取器工厂
-    private final ExtractorFactory extractorFactory;
+    // 提取引擎
+    private final ExtractionEngine extractionEngine;
+    // 接口清单: 实时流量增量更新
+    private final InterfaceInventory interfaceInventory;
+    // 接口覆盖率目录
+    private final CoverageCatalog coverageCatalog;
     
     /**
      * 处理结果类: 包含请求和Annotations
@@ -58,16 +65,22 @@ public class RequestProcessor {
      * 构造函数: 初始化请求处理器
      * @param montoyaApi Burp Suite API接口
      * @param configManager 配置管理器
+     * @param extractionEngine 提取引擎
+     * @param interfaceInventory 接口清单
+     * @param coverageCatalog 接口覆盖率目录
      */
-    public RequestProcessor(MontoyaApi montoyaApi, ConfigManager configManager) {
+    public RequestProcessor(MontoyaApi montoyaApi, ConfigManager configManager, ExtractionEngine extractionEngine,
+                            InterfaceInventory interfaceInventory, CoverageCatalog coverageCatalog) {
         this.montoyaApi = montoyaApi;
         this.logger = montoyaApi.logging();
         this.configManager = configManager;
-        this.extractorFactory = new ExtractorFactory();
+        this.extractionEngine = extractionEngine;
+        this.interfaceInventory = interfaceInventory;
+        this.coverageCatalog = coverageCatalog;
     }
     
     /**
-     * 处理HTTP请求: 先尝试从URL提取接口名称，失败则从请求体提取
+     * 处理HTTP请求: 先尝试从URL提取接口名称，失败则从请求头、请求体和查询参数提取
      * @param request 需要处理的HTTP请求
      * @return 处理结果，包含Annotations
      */
@@ -78,32 +91,27 @@ public class RequestProcessor {
             logger.logToOutput("[DEBUG] 处理请求: " + url);
             
             // 第一步：尝试从URL提取接口名称
-            Optional<String> interfaceNameOpt = extractFromUrl(url);
+            Optional<String> interfaceNameOpt = extractFromUrl(url, ExtractionEngine.hostOf(request));
             if (interfaceNameOpt.isPresent()) {
                 String interfaceName = interfaceNameOpt.get();
                 logger.logToOutput("[DEBUG] 从URL提取到接口: " + interfaceName);
+                recordInventory(request, List.of(interfaceName));
                 Annotations annotations = request.annotations().withNotes(interfaceName);
                 return new ProcessResult(request, annotations, true);
             }
             logger.logToOutput("[DEBUG] URL未匹配到接口名称，继续尝试body匹配");
             
-            // 第二步：从URL提取失败，尝试从请求体提取
-            String body = request.bodyToString().trim();
-            if (body.isEmpty()) {
-                logger.logToOutput("[DEBUG] 请求体为空，跳过处理");
-                return new ProcessResult(request, request.annotations(), false);
-            }
-            logger.logToOutput("[DEBUG] 请求体长度: " + body.length());
-            
-            interfaceNameOpt = extractInterfaceName(body);
-            if (interfaceNameOpt.isPresent()) {
-                String interfaceName = interfaceNameOpt.get();
-                logger.logToOutput("[DEBUG] 从body提取到接口: " + interfaceName);
-                Annotations annotations = request.annotations().withNotes(interfaceName);
+            // 第二步：从URL提取失败，依次尝试请求头规则和请求体、查询参数规则，请求体只在需要时读取
+            Optional<ExtractionResult> resultOpt = extractInterfaceName(request);
+            if (resultOpt.isPresent()) {
+                ExtractionResult result = resultOpt.get();
+                logger.logToOutput("[DEBUG] 从请求内容提取到接口: " + result.getAnnotation());
+                recordInventory(request, result.getInterfaceNames());
+                Annotations annotations = request.annotations().withNotes(result.getAnnotation());
                 return new ProcessResult(request, annotations, true);
             }
             
-            logger.logToOutput("[DEBUG] URL和body均未提取到接口名称");
+            logger.logToOutput("[DEBUG] URL和请求内容均未提取到接口名称");
             return new ProcessResult(request, request.annotations(), false);
         } catch (Exception e) {
             logger.logToError("处理请求时发生错误: " + e.getMessage());
@@ -113,50 +121,56 @@ public class RequestProcessor {
     }
     
     /**
-     * 从URL提取接口名称: 使用URL规则的正则捕获组提取
-     * @param url 请求URL
-     * @return 提取到的接口名称，如果没有匹配则返回空
+     * 记录到接口清单和覆盖率目录: 只记录Target范围内的请求，与批量扫描的范围保持一致，批量请求中的每个接口各记录一次
+     * @param request HTTP请求
+     * @param interfaceNames 接口名称
      */
-    private Optional<String> extractFromUrl(String url) {
-        for (UrlPattern urlPattern : configManager.getUrlPatterns()) {
-            if (urlPattern.isEnabled()) {
-                try {
-                    Pattern pattern = Pattern.compile(urlPattern.getPattern());
-                    Matcher matcher = pattern.matcher(url);
-                    if (matcher.find()) {
-                        // 如果有捕获组，返回第一个捕获组的内容
-                        if (matcher.groupCount() > 0) {
-                            String extracted = matcher.group(1);
-                            if (extracted != null && !extracted.isEmpty()) {
-                                return Optional.of(extracted);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.logToError("URL规则匹配出错: " + urlPattern.getPattern() + " - " + e.getMessage());
+    private void recordInventory(HttpRequestToBeSent request, List<String> interfaceNames) {
+        try {
+            if (request.isInScope()) {
+                long timeMillis = System.currentTimeMillis();
+                for (String interfaceName : interfaceNames) {
+                    interfaceInventory.record(interfaceName, request.httpService().host(), request.url(), timeMillis);
+                    coverageCatalog.markCovered(interfaceName);
                 }
             }
+        } catch (Exception e) {
+            logger.logToError("更新接口清单时发生错误: " + e.getMessage());
         }
-        return Optional.empty();
     }
     
     /**
-     * 提取接口名称: 遍历所有启用的提取规则，尝试使用每个规则提取接口名称
-     * @param body 请求体
-     * @return 提取到的接口名称，如果没有匹配的规则或提取失败，则返回空
+     * 从URL提取接口名称: 只对路由器选出的候选规则执行预编译的正则表达式，使用捕获组提取
+     * @param url 请求URL
+     * @param host 请求主机名
+     * @return 提取到的接口名称，如果没有匹配则返回空
      */
-    private Optional<String> extractInterfaceName(String body) {
-        for (ExtractionRule rule : configManager.getExtractionRules()) {
-            if (rule.isEnabled()) {
-                InterfaceNameExtractor extractor = extractorFactory.createExtractor(rule.getRuleType(), rule.getPattern());
-                if (extractor != null) {
-                    Optional<String> interfaceName = extractor.extract(body);
-                    if (interfaceName.isPresent() && !interfaceName.get().isEmpty()) {
-                        return interfaceName;
+    private Optional<String> extractFromUrl(String url, String host) {
+        for (UrlPattern urlPattern : configManager.getUrlRouter().candidatesFor(url, host)) {
+            try {
+                Matcher matcher = urlPattern.matcher(url);
+                if (matcher.find()) {
+                    // 如果有捕获组，返回第一个捕获组的内容
+                    if (matcher.groupCount() > 0) {
+                        String extracted = matcher.group(1);
+                        if (extracted != null && !extracted.isEmpty()) {
+                            return Optional.of(extractionEngine.canonicalName(extracted));
+                        }
                     }
                 }
+            } catch (Exception e) {
+                logger.logToError("URL规则匹配出错: " + urlPattern.getPattern() + " - " + e.getMessage());
             }
         }
         return Optional.empty();
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 提取接口名称: 使用提取引擎按规则顺序提取，所有规则共享同一个提取上下文
+     * @param request 请求，用于读取请求内容和按主机范围筛选规则
+     * @return 提取结果，如果没有匹配的规则或提取失败，则返回空
+     */
+    private Optional<ExtractionResult> extractInterfaceName(HttpRequest request) {
+        return extractionEngine.extract(ExtractionContext.of(request), ExtractionEngine.hostOf(request));
+    }
+}
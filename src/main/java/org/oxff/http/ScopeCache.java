@@ -0,0 +1,181 @@
+package org.oxff.http;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.scope.Scope;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 范围检查缓存: 单次批量任务内按 协议+主机+端口+路径前缀 缓存Target Scope判定结果
+ * <p>
+ * 缓存粒度根据当前Scope配置决定: 规则都不涉及路径时按来源缓存；涉及路径时按路径前缀缓存；
+ * 规则可能依赖查询参数或配置无法解析时，退化为按完整URL检查。非线程安全，每次扫描创建新实例。
+ */
+public class ScopeCache {
+    // 单次任务最多缓存的判定数量
+    private static final int MAX_ENTRIES = 100_000;
+    // 表示"匹配任意路径"的高级模式file表达式
+    private static final String[] ANY_FILE_PATTERNS = {"", ".*", "^.*$", "^.*", "^/.*", "^/.*$", "/.*"};
+    
+    /**
+     * 缓存粒度
+     */
+    enum Granularity {
+        ORIGIN, PATH_PREFIX, FULL_URL
+    }
+    
+    // 日志记录器
+    private final Logging logger;
+    // 目标范围
+    private final Scope scope;
+    // 缓存粒度
+    private final Granularity granularity;
+    // 路径前缀长度，-1表示使用完整路径
+    private final int pathPrefixLength;
+    // 判定结果缓存
+    private final Map<String, Boolean> decisions = new HashMap<>();
+    // 统计: 实际调用Scope API的次数
+    private int lookupCount = 0;
+    
+    /**
+     * 构造函数: 读取当前Scope配置并确定缓存粒度
+     * @param montoyaApi Burp Suite API接口
+     */
+    public ScopeCache(MontoyaApi montoyaApi) {
+        this.logger = montoyaApi.logging();
+        this.scope = montoyaApi.scope();
+        
+        Granularity detected = Granularity.FULL_URL;
+        int prefixLength = -1;
+        try {
+            JsonNode scopeNode = new ObjectMapper()
+                    .readTree(montoyaApi.burpSuite().exportProjectOptionsAsJson("target.scope"))
+                    .path("target").path("scope");
+            boolean advancedMode = scopeNode.path("advanced_mode").asBoolean(false);
+            int[] analysis = {0, -1};
+            boolean includeOk = analyze(scopeNode.path("include"), advancedMode, analysis);
+            boolean excludeOk = analyze(scopeNode.path("exclude"), advancedMode, analysis);
+            if (includeOk && excludeOk) {
+                detected = analysis[0] == 0 ? Granularity.ORIGIN : Granularity.PATH_PREFIX;
+                prefixLength = analysis[1];
+            }
+        } catch (Exception e) {
+            logger.logToError("读取Scope配置失败，按完整URL检查范围: " + e.getMessage());
+        }
+        this.granularity = detected;
+        this.pathPrefixLength = prefixLength;
+    }
+    
+    /**
+     * 检查请求是否在目标范围内
+     * @param request 请求
+     * @return 如果在范围内，则返回true，否则返回false
+     */
+    public boolean isInScope(HttpRequest request) {
+        if (scope == null) {
+            return true;
+        }
+        String key = cacheKey(request);
+        Boolean decision = decisions.get(key);
+        if (decision != null) {
+            return decision;
+        }
+        lookupCount++;
+        boolean inScope = scope.isInScope(request.url());
+        if (decisions.size() < MAX_ENTRIES) {
+            decisions.put(key, inScope);
+        }
+        return inScope;
+    }
+    
+    /**
+     * 获取统计信息
+     * @return 描述缓存粒度和查询次数的文本
+     */
+    public String stats() {
+        return "Scope缓存粒度: " + granularity + ", 缓存条目: " + decisions.size() + ", Scope API调用: " + lookupCount;
+    }
+    
+    /**
+     * 生成缓存键
+     * @param request 请求
+     * @return 缓存键
+     */
+    private String cacheKey(HttpRequest request) {
+        if (granularity == Granularity.FULL_URL) {
+            return request.url();
+        }
+        HttpService service = request.httpService();
+        StringBuilder key = new StringBuilder(64);
+        key.append(service.secure() ? "https://" : "http://").append(service.host()).append(':').append(service.port());
+        if (granularity == Granularity.PATH_PREFIX) {
+            String path = request.pathWithoutQuery();
+            if (pathPrefixLength >= 0 && path.length() > pathPrefixLength) {
+                path = path.substring(0, pathPrefixLength);
+            }
+            key.append(path);
+        }
+        return key.toString();
+    }
+    
+    /**
+     * 分析Scope规则列表: 判断规则是否涉及路径以及是否需要完整URL
+     * @param rules 规则列表节点
+     * @param advancedMode 是否高级模式
+     * @param analysis 分析结果: [0]是否有涉及路径的规则，[1]简单模式下的最长路径前缀长度，-1表示使用完整路径
+     * @return 如果规则可以按来源或路径前缀缓存，则返回true；需要完整URL时返回false
+     */
+    private boolean analyze(JsonNode rules, boolean advancedMode, int[] analysis) {
+        if (!rules.isArray()) {
+            return true;
+        }
+        for (JsonNode rule : rules) {
+            if (!rule.path("enabled").asBoolean(true)) {
+                continue;
+            }
+            if (advancedMode) {
+                String file = rule.path("file").asText("");
+                if (file.contains("?")) {
+                    return false;
+                }
+                if (!isAnyFile(file)) {
+                    // 高级模式的路径表达式无法确定前缀长度，使用完整路径
+                    analysis[0] = 1;
+                    analysis[1] = -1;
+                }
+            } else {
+                String prefix = rule.path("prefix").asText("");
+                if (prefix.contains("?")) {
+                    return false;
+                }
+                int schemeEnd = prefix.indexOf("://");
+                int pathStart = prefix.indexOf('/', schemeEnd < 0 ? 0 : schemeEnd + 3);
+                if (pathStart >= 0 && prefix.length() - pathStart > 1) {
+                    analysis[0] = 1;
+                    analysis[1] = Math.max(analysis[1], prefix.length() - pathStart);
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 判断高级模式的file表达式是否匹配任意路径
+     * @param file file表达式
+     * @return 如果匹配任意路径，则返回true，否则返回false
+     */
+    private static boolean isAnyFile(String file) {
+        for (String pattern : ANY_FILE_PATTERNS) {
+            if (pattern.equals(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,336 @@
+package org.oxff.http;
+
+import burp.api.montoya.core.Annotations;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.proxy.websocket.BinaryMessageReceivedAction;
+import burp.api.montoya.proxy.websocket.BinaryMessageToBeSentAction;
+import burp.api.montoya.proxy.websocket.InterceptedBinaryMessage;
+import burp.api.montoya.proxy.websocket.InterceptedTextMessage;
+import burp.api.montoya.proxy.websocket.ProxyMessageHandler;
+import burp.api.montoya.proxy.websocket.ProxyWebSocketCreation;
+import burp.api.montoya.proxy.websocket.ProxyWebSocketCreationHandler;
+import burp.api.montoya.proxy.websocket.TextMessageReceivedAction;
+import burp.api.montoya.proxy.websocket.TextMessageToBeSentAction;
+import burp.api.montoya.websocket.Direction;
+import org.oxff.coverage.CoverageCatalog;
+import org.oxff.extractor.ExtractionContext;
+import org.oxff.extractor.ExtractionEngine;
+import org.oxff.extractor.ExtractionResult;
+import org.oxff.index.InterfaceInventory;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * WebSocket消息处理器: 为代理中的每个WebSocket连接注册消息处理器，从客户端发往服务器的文本和二进制消息中提取接口名称
+ * <p>
+ * 代理线程只把消息入队并立即放行，不执行任何规则；提取在独立线程上按固定节奏批量进行，复用提取引擎中按配置版本缓存的提取器，
+ * 不会为每条消息创建提取器。每个连接在处理线程上聚合各接口名称的命中次数，按批次写入接口清单和覆盖率目录，
+ * 高频消息流不会逐条竞争清单的锁。待处理消息达到上限时丢弃新消息并计数，不会阻塞代理。
+ * 请求头规则和URL规则不作用于消息，握手请求本身由HTTP处理器处理。
+ */
+public class WebSocketProcessor implements ProxyWebSocketCreationHandler {
+    // 待处理消息的最大数量，超过时丢弃新消息
+    private static final int MAX_PENDING_MESSAGES = 10000;
+    // 单条消息的最大长度（文本为字符数，二进制为字节数），超过时不提取
+    private static final int MAX_MESSAGE_LENGTH = 1 << 20;
+    // 两次处理之间的间隔（毫秒）
+    private static final long DRAIN_INTERVAL_MILLIS = 100;
+
+    // 日志记录器
+    private final Logging logger;
+    // 提取引擎: 与HTTP处理共用已编译的规则
+    private final ExtractionEngine extractionEngine;
+    // 备注回写器: 为代理WebSocket历史中的消息写入备注
+    private final AnnotationWriter annotationWriter;
+    // 接口清单
+    private final InterfaceInventory interfaceInventory;
+    // 接口覆盖率目录
+    private final CoverageCatalog coverageCatalog;
+    // 是否处理消息: 插件启用且选中了代理工具
+    private final BooleanSupplier enabled;
+    // 待处理的消息
+    private final Queue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // 有待写入命中次数或已关闭待结算的连接，只在处理线程上访问
+    private final Set<Connection> dirtyConnections = new LinkedHashSet<>();
+    // 处理线程
+    private final ScheduledExecutorService workerThread;
+    // 统计: 处理的消息数量
+    private final AtomicLong processedCount = new AtomicLong();
+    // 统计: 因队列已满或消息过大而丢弃的数量
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 构造函数: 创建WebSocket消息处理器并启动处理线程
+     * @param logger 日志记录器
+     * @param extractionEngine 提取引擎
+     * @param annotationWriter 备注回写器
+     * @param interfaceInventory 接口清单
+     * @param coverageCatalog 接口覆盖率目录
+     * @param enabled 是否处理消息，在代理线程上调用，必须快速返回
+     */
+    public WebSocketProcessor(Logging logger, ExtractionEngine extractionEngine, AnnotationWriter annotationWriter,
+                              InterfaceInventory interfaceInventory, CoverageCatalog coverageCatalog,
+                              BooleanSupplier enabled) {
+        this.logger = logger;
+        this.extractionEngine = extractionEngine;
+        this.annotationWriter = annotationWriter;
+        this.interfaceInventory = interfaceInventory;
+        this.coverageCatalog = coverageCatalog;
+        this.enabled = enabled;
+        this.workerThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "showMeUCode-websocket");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workerThread.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 处理WebSocket连接创建: 记录握手请求的URL、主机和范围，为连接注册消息处理器
+     * @param creation WebSocket连接创建事件
+     */
+    @Override
+    public void handleWebSocketCreation(ProxyWebSocketCreation creation) {
+        try {
+            HttpRequest upgradeRequest = creation.upgradeRequest();
+            Connection connection = new Connection(upgradeRequest.url(), ExtractionEngine.hostOf(upgradeRequest),
+                    upgradeRequest.isInScope());
+            creation.proxyWebSocket().registerProxyMessageHandler(new ConnectionHandler(connection));
+        } catch (Exception e) {
+            logger.logToError("注册WebSocket消息处理器时发生错误: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭处理器: 处理完剩余消息并结算所有连接后停止处理线程，由插件卸载处理器调用
+     */
+    public void shutdown() {
+        workerThread.shutdown();
+        try {
+            workerThread.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (!queue.isEmpty()) {
+            drain();
+        }
+        drain();
+        logger.logToOutput("WebSocket消息处理器已关闭，共处理 " + processedCount.get() + " 条消息，丢弃 "
+                + droppedCount.get() + " 条");
+    }
+
+    /**
+     * 入队: 在代理线程上调用，只做计数检查，关闭标记不受数量限制
+     * @param message 消息
+     */
+    private void enqueue(Message message) {
+        if (pendingCount.incrementAndGet() > MAX_PENDING_MESSAGES) {
+            pendingCount.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return;
+        }
+        queue.add(message);
+    }
+
+    /**
+     * 处理队列中的消息，然后把各连接聚合的命中次数写入接口清单: 在处理线程上执行
+     */
+    private void drain() {
+        // 每次最多处理一个队列容量的消息，持续的高频消息流也不会推迟命中次数的写入
+        Message message;
+        for (int i = 0; i < MAX_PENDING_MESSAGES && (message = queue.poll()) != null; i++) {
+            if (!message.closing) {
+                pendingCount.decrementAndGet();
+            }
+            try {
+                process(message);
+            } catch (Exception e) {
+                logger.logToError("处理WebSocket消息时发生错误: " + e.getMessage());
+            }
+        }
+        for (Connection connection : dirtyConnections) {
+            try {
+                flush(connection);
+            } catch (Exception e) {
+                logger.logToError("更新接口清单时发生错误: " + e.getMessage());
+            }
+        }
+        dirtyConnections.clear();
+    }
+
+    /**
+     * 提取单条消息: 命中时为消息写入备注，并在连接上累计命中次数
+     * @param message 消息
+     */
+    private void process(Message message) {
+        Connection connection = message.connection;
+        if (message.closing) {
+            connection.closed = true;
+            dirtyConnections.add(connection);
+            return;
+        }
+        processedCount.incrementAndGet();
+        connection.messageCount++;
+        // 不传入连接URL: 握手URL的查询参数对连接上的所有消息都相同，不应被表单参数规则当作消息内容
+        ExtractionContext context = message.text != null
+                ? new ExtractionContext(null, message.text)
+                : ExtractionContext.ofBytes(null, message.binary);
+        ExtractionResult result = extractionEngine.extract(context, connection.host).orElse(null);
+        if (result == null) {
+            return;
+        }
+        connection.extractedCount++;
+        annotationWriter.submit(message.annotations, result.getAnnotation());
+        if (connection.inScope) {
+            for (String interfaceName : result.getInterfaceNames()) {
+                connection.pendingHits.computeIfAbsent(interfaceName, name -> new int[1])[0]++;
+            }
+            connection.lastHitMillis = System.currentTimeMillis();
+            dirtyConnections.add(connection);
+        }
+    }
+
+    /**
+     * 结算连接: 把聚合的命中次数写入接口清单和覆盖率目录，连接已关闭时输出统计
+     * @param connection 连接
+     */
+    private void flush(Connection connection) {
+        for (Map.Entry<String, int[]> entry : connection.pendingHits.entrySet()) {
+            interfaceInventory.record(entry.getKey(), connection.host, connection.url, connection.lastHitMillis,
+                    entry.getValue()[0]);
+            coverageCatalog.markCovered(entry.getKey());
+        }
+        connection.pendingHits.clear();
+        if (connection.closed) {
+            logger.logToOutput("WebSocket连接已关闭: " + connection.url + "，处理 " + connection.messageCount
+                    + " 条消息，提取到接口名称 " + connection.extractedCount + " 条");
+        }
+    }
+
+    /**
+     * 单个连接的消息处理器: 只处理客户端发往服务器的消息，入队后立即放行
+     */
+    private class ConnectionHandler implements ProxyMessageHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public TextMessageReceivedAction handleTextMessageReceived(InterceptedTextMessage interceptedTextMessage) {
+            try {
+                if (interceptedTextMessage.direction() == Direction.CLIENT_TO_SERVER && enabled.getAsBoolean()) {
+                    String payload = interceptedTextMessage.payload();
+                    if (payload.length() > MAX_MESSAGE_LENGTH) {
+                        droppedCount.incrementAndGet();
+                    } else {
+                        enqueue(new Message(connection, payload, null, interceptedTextMessage.annotations()));
+                    }
+                }
+            } catch (Exception e) {
+                logger.logToError("WebSocket文本消息入队失败: " + e.getMessage());
+            }
+            return TextMessageReceivedAction.continueWith(interceptedTextMessage);
+        }
+
+        @Override
+        public TextMessageToBeSentAction handleTextMessageToBeSent(InterceptedTextMessage interceptedTextMessage) {
+            return TextMessageToBeSentAction.continueWith(interceptedTextMessage);
+        }
+
+        @Override
+        public BinaryMessageReceivedAction handleBinaryMessageReceived(
+                InterceptedBinaryMessage interceptedBinaryMessage) {
+            try {
+                if (interceptedBinaryMessage.direction() == Direction.CLIENT_TO_SERVER && enabled.getAsBoolean()) {
+                    ByteArray payload = interceptedBinaryMessage.payload();
+                    if (payload.length() > MAX_MESSAGE_LENGTH) {
+                        droppedCount.incrementAndGet();
+                    } else {
+                        enqueue(new Message(connection, null, payload, interceptedBinaryMessage.annotations()));
+                    }
+                }
+            } catch (Exception e) {
+                logger.logToError("WebSocket二进制消息入队失败: " + e.getMessage());
+            }
+            return BinaryMessageReceivedAction.continueWith(interceptedBinaryMessage);
+        }
+
+        @Override
+        public BinaryMessageToBeSentAction handleBinaryMessageToBeSent(
+                InterceptedBinaryMessage interceptedBinaryMessage) {
+            return BinaryMessageToBeSentAction.continueWith(interceptedBinaryMessage);
+        }
+
+        @Override
+        public void onClose() {
+            // 关闭标记排在该连接的剩余消息之后，保证结算时已处理完所有消息
+            queue.add(new Message(connection));
+        }
+    }
+
+    /**
+     * 连接状态: URL、主机和范围在连接创建时确定，统计和待写入的命中次数只在处理线程上访问
+     */
+    private static class Connection {
+        private final String url;
+        private final String host;
+        private final boolean inScope;
+        // 尚未写入接口清单的命中次数
+        private final Map<String, int[]> pendingHits = new LinkedHashMap<>();
+        private long lastHitMillis;
+        private long messageCount;
+        private long extractedCount;
+        private boolean closed;
+
+        private Connection(String url, String host, boolean inScope) {
+            this.url = url;
+            this.host = host;
+            this.inScope = inScope;
+        }
+    }
+
+    /**
+     * 待处理的消息: 文本和二进制内容二选一，关闭标记两者都为空
+     */
+    private static class Message {
+        private final Connection connection;
+        private final String text;
+        private final ByteArray binary;
+        private final Annotations annotations;
+        private final boolean closing;
+
+        private Message(Connection connection, String text, ByteArray binary,
+                        Annotations annotations) {
+            this.connection = connection;
+            this.text = text;
+            this.binary = binary;
+            this.annotations = annotations;
+            this.closing = false;
+        }
+
+        private Message(Connection connection) {
+            this.connection = connection;
+            this.text = null;
+            this.binary = null;
+            this.annotations = null;
+            this.closing = true;
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package org.oxff.index;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.logging.Logging;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 提取日志: 以追加方式把每条历史记录的提取结果写入内存映射文件，插件重新加载时回放以恢复清单、索引和规则版本标记
+ * <p>
+ * 文件头16字节: 魔数、格式版本、已提交的数据末尾偏移。之后是变长记录，第一个字节为记录类型:
+ * <ul>
+ *     <li>名称定义: 日志内的名称ID和UTF-8编码的接口名称，名称第一次出现时写入</li>
+ *     <li>提取记录: 历史位置、请求体哈希、名称ID、规则ID、配置版本和请求时间</li>
+ *     <li>附加名称: 批量请求中主名称以外的名称ID，紧跟在所属的提取记录之后，与提取记录一起提交</li>
+ *     <li>扫描完成: 完整扫描结束时的历史记录数量和配置版本</li>
+ * </ul>
+ * 日志中的名称ID就是写入时驻留池的ID，回放时通过名称定义重新映射到当前驻留池。
+ */
+public class ExtractionJournal implements Closeable {
+    // 文件魔数: "SMUJ"
+    private static final int MAGIC = 0x534D554A;
+    // 文件格式版本
+    private static final int FORMAT_VERSION = 1;
+    // 文件头长度
+    private static final int HEADER_SIZE = 16;
+    // 文件头中已提交末尾偏移的位置
+    private static final int COMMITTED_END_OFFSET = 8;
+    // 初始映射大小
+    private static final int INITIAL_MAPPING_SIZE = 1 << 20;
+    // 最大映射大小
+    private static final long MAX_MAPPING_SIZE = Integer.MAX_VALUE;
+
+    // 记录类型
+    private static final byte TYPE_NAME = 1;
+    private static final byte TYPE_EXTRACTION = 2;
+    private static final byte TYPE_SCAN_COMPLETE = 3;
+    private static final byte TYPE_EXTRA_NAME = 4;
+    // 提取记录长度: 类型1 + 位置4 + 哈希8 + 名称ID4 + 规则ID4 + 配置版本4 + 时间8
+    private static final int EXTRACTION_RECORD_SIZE = 33;
+    // 附加名称记录长度: 类型1 + 名称ID4
+    private static final int EXTRA_NAME_RECORD_SIZE = 5;
+    // 扫描完成记录长度: 类型1 + 历史记录数量4 + 配置版本4
+    private static final int SCAN_COMPLETE_RECORD_SIZE = 9;
+    // 回放后提取记录数量超过有效位置数量的倍数时压缩日志
+    private static final int COMPACT_RATIO = 2;
+
+    // 日志记录器
+    private final Logging logger;
+    // 日志文件路径
+    private final Path path;
+    // 文件通道
+    private FileChannel channel;
+    // 内存映射缓冲区
+    private MappedByteBuffer buffer;
+    // 已写出名称定义的名称ID
+    private final BitSet writtenNames = new BitSet();
+    // 是否已因错误停用
+    private boolean disabled = false;
+
+    /**
+     * 回放回调接口
+     */
+    public interface ReplayHandler {
+        /**
+         * 回放一个历史位置最后一条提取记录: 被同一位置后续记录取代的记录不会回调
+         * @param position 代理历史位置
+         * @param bodyHash 请求体哈希
+         * @param interfaceNames 接口名称，主名称在前，未命中时为空列表
+         * @param ruleId 规则ID，未命中时为ExtractionMetadataStore.MISS
+         * @param configVersion 提取时的配置版本号
+         * @param timeMillis 请求时间
+         */
+        void onExtraction(int position, long bodyHash, List<String> interfaceNames, int ruleId, int configVersion,
+                          long timeMillis);
+
+        /**
+         * 回放最后一条扫描完成记录: 在所有提取记录回放之后调用
+         * @param historySize 扫描时的历史记录数量
+         * @param configVersion 扫描时的配置版本号
+         */
+        void onScanComplete(int historySize, int configVersion);
+    }
+
+    /**
+     * 构造函数: 打开或创建日志文件
+     * @param path 日志文件路径
+     * @param logger 日志记录器
+     * @throws IOException 打开文件失败或文件格式不正确时抛出
+     */
+    public ExtractionJournal(Path path, Logging logger) throws IOException {
+        this.path = path;
+        this.logger = logger;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        open();
+    }
+
+    /**
+     * 追加一条提取记录: 名称第一次出现时先写入名称定义，主名称以外的名称写为附加名称记录，整组记录一次提交
+     * @param position 代理历史位置
+     * @param bodyHash 请求体哈希
+     * @param nameIds 驻留池中的名称ID，主名称在前，未命中时为空数组；没有ID的名称为NamePool.NO_ID
+     * @param interfaceNames 接口名称，与nameIds一一对应
+     * @param ruleId 规则ID
+     * @param configVersion 配置版本号
+     * @param timeMillis 请求时间
+     */
+    public synchronized void appendExtraction(int position, long bodyHash, int[] nameIds, List<String> interfaceNames,
+                                              int ruleId, int configVersion, long timeMillis) {
+        if (disabled || position < 0) {
+            return;
+        }
+        try {
+            for (int i = 0; i < nameIds.length; i++) {
+                int nameId = nameIds[i];
+                if (nameId != NamePool.NO_ID && !writtenNames.get(nameId)) {
+                    byte[] nameBytes = interfaceNames.get(i).getBytes(StandardCharsets.UTF_8);
+                    ensureCapacity(1 + 4 + 4 + nameBytes.length);
+                    buffer.put(TYPE_NAME).putInt(nameId).putInt(nameBytes.length).put(nameBytes);
+                    writtenNames.set(nameId);
+                }
+            }
+            ensureCapacity(EXTRACTION_RECORD_SIZE + EXTRA_NAME_RECORD_SIZE * Math.max(nameIds.length - 1, 0));
+            buffer.put(TYPE_EXTRACTION).putInt(position).putLong(bodyHash)
+                    .putInt(nameIds.length > 0 ? nameIds[0] : NamePool.NO_ID).putInt(ruleId)
+                    .putInt(configVersion).putLong(timeMillis);
+            for (int i = 1; i < nameIds.length; i++) {
+                if (nameIds[i] != NamePool.NO_ID) {
+                    buffer.put(TYPE_EXTRA_NAME).putInt(nameIds[i]);
+                }
+            }
+            commit();
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * 追加一条扫描完成记录
+     * @param historySize 扫描时的历史记录数量
+     * @param configVersion 配置版本号
+     */
+    public synchronized void appendScanComplete(int historySize, int configVersion) {
+        if (disabled) {
+            return;
+        }
+        try {
+            ensureCapacity(SCAN_COMPLETE_RECORD_SIZE);
+            buffer.put(TYPE_SCAN_COMPLETE).putInt(historySize).putInt(configVersion);
+            commit();
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * 回放日志: 先读完整个日志，再按位置顺序只回调每个位置最后一条提取记录，最后回调最后一条扫描完成记录；
+     * 无效记录较多时压缩日志。位置超出当前历史记录数量或名称定义越界的记录视为损坏，忽略其后的所有记录
+     * @param handler 回放回调
+     * @param namePool 当前的接口名称驻留池
+     * @param historySize 当前代理历史记录数量，合法的位置必须小于该值
+     * @return 回放的历史位置数量
+     */
+    public synchronized int replay(ReplayHandler handler, NamePool namePool, int historySize) {
+        if (disabled) {
+            return 0;
+        }
+        int end = committedEnd();
+        String[] names = new String[16];
+        // 每个位置最后一条提取记录的偏移和接口名称，用于压缩
+        int[] latestOffsets = new int[0];
+        String[][] latestNames = new String[0][];
+        int liveCount = 0;
+        int extractionCount = 0;
+        int lastScanCompleteOffset = -1;
+
+        int offset = HEADER_SIZE;
+        try {
+            while (offset < end) {
+                byte type = buffer.get(offset);
+                if (type == TYPE_NAME) {
+                    int journalNameId = buffer.getInt(offset + 1);
+                    int length = buffer.getInt(offset + 5);
+                    if (journalNameId < 0 || journalNameId >= namePool.getMaxSize()
+                            || length < 0 || length > end - offset - 9) {
+                        logger.logToError("提取日志在偏移 " + offset + " 处损坏，忽略之后的记录");
+                        break;
+                    }
+                    byte[] nameBytes = new byte[length];
+                    buffer.get(offset + 9, nameBytes);
+                    if (journalNameId >= names.length) {
+                        names = Arrays.copyOf(names, Math.max(journalNameId + 1, names.length * 2));
+                    }
+                    names[journalNameId] = namePool.canonical(new String(nameBytes, StandardCharsets.UTF_8));
+                    offset += 9 + length;
+                } else if (type == TYPE_EXTRACTION) {
+                    int position = buffer.getInt(offset + 1);
+                    if (position < 0 || position >= historySize) {
+                        logger.logToError("提取日志在偏移 " + offset + " 处损坏，忽略之后的记录");
+                        break;
+                    }
+                    // 名称在读取时解析: 之后的加载周期可能把同一个日志名称ID重新定义为其他名称
+                    List<String> interfaceNames = new ArrayList<>(1);
+                    addName(names, buffer.getInt(offset + 13), interfaceNames);
+                    int recordEnd = offset + EXTRACTION_RECORD_SIZE;
+                    while (recordEnd < end && buffer.get(recordEnd) == TYPE_EXTRA_NAME) {
+                        addName(names, buffer.getInt(recordEnd + 1), interfaceNames);
+                        recordEnd += EXTRA_NAME_RECORD_SIZE;
+                    }
+
+                    if (position >= latestOffsets.length) {
+                        int capacity = Math.max(position + 1, latestOffsets.length * 2);
+                        latestOffsets = Arrays.copyOf(latestOffsets, capacity);
+                        latestNames = Arrays.copyOf(latestNames, capacity);
+                    }
+                    if (latestOffsets[position] == 0) {
+                        liveCount++;
+                    }
+                    latestOffsets[position] = offset;
+                    latestNames[position] = interfaceNames.toArray(new String[0]);
+                    extractionCount++;
+                    offset = recordEnd;
+                } else if (type == TYPE_SCAN_COMPLETE) {
+                    lastScanCompleteOffset = offset;
+                    offset += SCAN_COMPLETE_RECORD_SIZE;
+                } else {
+                    logger.logToError("提取日志在偏移 " + offset + " 处损坏，忽略之后的记录");
+                    break;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            logger.logToError("提取日志在偏移 " + offset + " 处被截断，忽略之后的记录");
+        }
+
+        // 回放过的名称在驻留池中已有ID，但日志中的名称ID可能不同，后续追加需要重新写入名称定义
+        writtenNames.clear();
+        if (offset != end) {
+            buffer.putInt(COMMITTED_END_OFFSET, offset);
+        }
+        buffer.position(offset);
+
+        for (int position = 0; position < latestOffsets.length; position++) {
+            int latestOffset = latestOffsets[position];
+            if (latestOffset != 0) {
+                handler.onExtraction(position, buffer.getLong(latestOffset + 5), Arrays.asList(latestNames[position]),
+                        buffer.getInt(latestOffset + 17), buffer.getInt(latestOffset + 21),
+                        buffer.getLong(latestOffset + 25));
+            }
+        }
+        if (lastScanCompleteOffset > 0) {
+            handler.onScanComplete(buffer.getInt(lastScanCompleteOffset + 1),
+                    buffer.getInt(lastScanCompleteOffset + 5));
+        }
+
+        if (extractionCount > COMPACT_RATIO * liveCount + 1024) {
+            compact(latestOffsets, latestNames, lastScanCompleteOffset);
+        }
+        return liveCount;
+    }
+
+    /**
+     * 把日志中的名称ID解析为接口名称: 名称定义缺失的ID忽略
+     * @param names 日志名称ID到接口名称的映射
+     * @param journalNameId 日志中的名称ID
+     * @param interfaceNames 解析出的接口名称
+     */
+    private static void addName(String[] names, int journalNameId, List<String> interfaceNames) {
+        if (journalNameId >= 0 && journalNameId < names.length && names[journalNameId] != null) {
+            interfaceNames.add(names[journalNameId]);
+        }
+    }
+
+    /**
+     * 关闭日志: 把映射内容刷到磁盘并关闭文件
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            channel.close();
+        } catch (IOException e) {
+            logger.logToError("关闭提取日志失败: " + e.getMessage());
+        }
+        channel = null;
+        buffer = null;
+        disabled = true;
+    }
+
+    /**
+     * 计算请求体哈希: 在原始字节上计算64位FNV-1a，不需要把请求体解码为字符串
+     * @param body 请求体字节
+     * @return 哈希值
+     */
+    public static long hashBody(ByteArray body) {
+        long hash = 0xcbf29ce484222325L;
+        int length = body.length();
+        for (int i = 0; i < length; i++) {
+            hash ^= body.getByte(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 打开日志文件并建立映射: 新文件写入文件头，已有文件校验文件头
+     * @throws IOException 打开文件失败或文件格式不正确时抛出
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_MAPPING_SIZE));
+        if (size < HEADER_SIZE || buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(COMMITTED_END_OFFSET, HEADER_SIZE);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("不是有效的提取日志文件: " + path);
+        }
+        buffer.position(committedEnd());
+    }
+
+    /**
+     * 读取已提交的数据末尾偏移
+     * @return 末尾偏移
+     */
+    private int committedEnd() {
+        int end = buffer.getInt(COMMITTED_END_OFFSET);
+        return end < HEADER_SIZE || end > buffer.capacity() ? HEADER_SIZE : end;
+    }
+
+    /**
+     * 提交: 把当前写入位置记录到文件头，之前写入的记录在回放时可见
+     */
+    private void commit() {
+        buffer.putInt(COMMITTED_END_OFFSET, buffer.position());
+    }
+
+    /**
+     * 保证映射区域还能写入指定字节数: 不足时按两倍扩大文件并重新映射
+     * @param bytes 需要写入的字节数
+     * @throws IOException 超过最大映射大小或重新映射失败时抛出
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int position = buffer.position();
+        long newSize = Math.max((long) buffer.capacity() * 2, (long) position + bytes);
+        if (newSize > MAX_MAPPING_SIZE) {
+            throw new IOException("提取日志超过最大大小");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        buffer.position(position);
+    }
+
+    /**
+     * 压缩日志: 只保留每个位置最后一条提取记录（连同其附加名称）和最后一条扫描完成记录，写入临时文件后替换
+     * <p>
+     * 不同加载周期写入的名称ID可能指向不同名称，压缩时按回放解析出的名称重新分配名称ID并写入名称定义。
+     * @param latestOffsets 每个位置最后一条提取记录的偏移，0表示没有记录
+     * @param latestNames 每个位置最后一条提取记录的接口名称，主名称在前
+     * @param lastScanCompleteOffset 最后一条扫描完成记录的偏移，没有时为-1
+     */
+    private void compact(int[] latestOffsets, String[][] latestNames, int lastScanCompleteOffset) {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        int end = committedEnd();
+        int compactEnd;
+        try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer temp = tempChannel.map(FileChannel.MapMode.READ_WRITE, 0, end);
+            temp.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(0).putInt(0);
+
+            Map<String, Integer> compactIds = new HashMap<>();
+            for (int position = 0; position < latestOffsets.length; position++) {
+                int latestOffset = latestOffsets[position];
+                if (latestOffset == 0) {
+                    continue;
+                }
+                String[] interfaceNames = latestNames[position];
+                int[] compactNameIds = new int[interfaceNames.length];
+                for (int i = 0; i < interfaceNames.length; i++) {
+                    Integer existing = compactIds.get(interfaceNames[i]);
+                    if (existing == null) {
+                        existing = compactIds.size();
+                        compactIds.put(interfaceNames[i], existing);
+                        byte[] nameBytes = interfaceNames[i].getBytes(StandardCharsets.UTF_8);
+                        temp.put(TYPE_NAME).putInt(existing).putInt(nameBytes.length).put(nameBytes);
+                    }
+                    compactNameIds[i] = existing;
+                }
+                int recordStart = temp.position();
+                copyRecord(temp, latestOffset, EXTRACTION_RECORD_SIZE);
+                temp.putInt(recordStart + 13, compactNameIds.length > 0 ? compactNameIds[0] : NamePool.NO_ID);
+                for (int i = 1; i < compactNameIds.length; i++) {
+                    temp.put(TYPE_EXTRA_NAME).putInt(compactNameIds[i]);
+                }
+            }
+            if (lastScanCompleteOffset > 0) {
+                copyRecord(temp, lastScanCompleteOffset, SCAN_COMPLETE_RECORD_SIZE);
+            }
+            compactEnd = temp.position();
+            temp.putInt(COMMITTED_END_OFFSET, compactEnd);
+            temp.force();
+            tempChannel.truncate(compactEnd);
+        } catch (IOException | RuntimeException e) {
+            logger.logToError("压缩提取日志失败: " + e.getMessage());
+            return;
+        }
+
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            disable(e);
+            return;
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            logger.logToOutput("提取日志已压缩: " + end + " -> " + compactEnd + " 字节");
+        } catch (IOException e) {
+            // 部分平台上已映射的文件不能被替换，保留原日志继续使用
+            logger.logToError("替换压缩后的提取日志失败，继续使用原日志: " + e.getMessage());
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    /**
+     * 把当前日志中的一条记录复制到目标缓冲区
+     * @param target 目标缓冲区
+     * @param offset 记录偏移
+     * @param length 记录长度
+     */
+    private void copyRecord(MappedByteBuffer target, int offset, int length) {
+        byte[] record = new byte[length];
+        buffer.get(offset, record);
+        target.put(record);
+    }
+
+    /**
+     * 停用日志: 发生写入错误后不再写入，避免产生损坏的记录
+     * @param e 错误
+     */
+    private void disable(IOException e) {
+        disabled = true;
+        logger.logToError("提取日志写入失败，已停用: " + e.getMessage());
+    }
+}
@@ -0,0 +1,175 @@
+package org.oxff.index;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 提取元数据存储: 按代理历史位置保存名称ID、规则ID、配置版本、状态标志和请求体哈希
+ * <p>
+ * 每个位置占用一个24字节的定长槽位，槽位按块分配在堆外内存中，每块CHUNK_SLOTS个槽位，按需创建。
+ * 百万级历史记录只占用二十多MB堆外内存，不产生任何按记录分配的Java对象，扩容时也不需要复制已有数据。
+ * 新分配的内存全部为0，因此名称ID加1后存储，0表示没有名称。
+ */
+public class ExtractionMetadataStore {
+    // 未处理过的位置
+    public static final int NO_STAMP = 0;
+    // 处理过但未命中任何规则
+    public static final int MISS = -1;
+
+    // 状态标志: 提取到接口名称
+    public static final int FLAG_MATCHED = 1;
+    // 状态标志: 已处理但未命中
+    public static final int FLAG_MISS = 1 << 1;
+    // 状态标志: 从提取日志恢复，本次加载后请求体哈希尚未与当前历史记录核对
+    public static final int FLAG_RESTORED = 1 << 2;
+
+    // 槽位布局
+    private static final int SLOT_SIZE = 24;
+    private static final int NAME_ID_OFFSET = 0;
+    private static final int RULE_ID_OFFSET = 4;
+    private static final int VERSION_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 12;
+    private static final int BODY_HASH_OFFSET = 16;
+    // 每块的槽位数量
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    // 槽位块，未使用的块为null
+    private ByteBuffer[] chunks = new ByteBuffer[16];
+
+    /**
+     * 记录规则版本标记和状态: 处理一条历史记录后调用，同时清除恢复标志
+     * @param position 代理历史位置
+     * @param ruleId 产生结果的规则ID，未命中时为MISS
+     * @param configVersion 提取时的配置版本号
+     * @param bodyHash 请求体哈希
+     */
+    public void stamp(int position, int ruleId, int configVersion, long bodyHash) {
+        stamp(position, ruleId, configVersion, bodyHash, 0);
+    }
+
+    /**
+     * 记录规则版本标记和状态
+     * @param position 代理历史位置
+     * @param ruleId 产生结果的规则ID，未命中时为MISS
+     * @param configVersion 提取时的配置版本号
+     * @param bodyHash 请求体哈希
+     * @param extraFlags 额外的状态标志
+     */
+    public synchronized void stamp(int position, int ruleId, int configVersion, long bodyHash, int extraFlags) {
+        ByteBuffer chunk = chunkFor(position, true);
+        if (chunk == null) {
+            return;
+        }
+        int base = slotOffset(position);
+        chunk.putInt(base + RULE_ID_OFFSET, ruleId);
+        chunk.putInt(base + VERSION_OFFSET, configVersion);
+        chunk.putInt(base + FLAGS_OFFSET, (ruleId == MISS ? FLAG_MISS : FLAG_MATCHED) | extraFlags);
+        chunk.putLong(base + BODY_HASH_OFFSET, bodyHash);
+    }
+
+    /**
+     * 获取产生结果的规则ID
+     * @param position 代理历史位置
+     * @return 规则ID，未处理过时返回NO_STAMP，未命中时返回MISS
+     */
+    public synchronized int ruleIdAt(int position) {
+        ByteBuffer chunk = chunkFor(position, false);
+        return chunk == null ? NO_STAMP : chunk.getInt(slotOffset(position) + RULE_ID_OFFSET);
+    }
+
+    /**
+     * 获取标记时的配置版本号
+     * @param position 代理历史位置
+     * @return 配置版本号
+     */
+    public synchronized int versionAt(int position) {
+        ByteBuffer chunk = chunkFor(position, false);
+        return chunk == null ? 0 : chunk.getInt(slotOffset(position) + VERSION_OFFSET);
+    }
+
+    /**
+     * 获取状态标志
+     * @param position 代理历史位置
+     * @return 状态标志，未处理过时返回0
+     */
+    public synchronized int flagsAt(int position) {
+        ByteBuffer chunk = chunkFor(position, false);
+        return chunk == null ? 0 : chunk.getInt(slotOffset(position) + FLAGS_OFFSET);
+    }
+
+    /**
+     * 清除状态标志: 恢复的标记核对请求体哈希一致后调用
+     * @param position 代理历史位置
+     * @param flag 需要清除的状态标志
+     */
+    public synchronized void clearFlag(int position, int flag) {
+        ByteBuffer chunk = chunkFor(position, false);
+        if (chunk != null) {
+            int offset = slotOffset(position) + FLAGS_OFFSET;
+            chunk.putInt(offset, chunk.getInt(offset) & ~flag);
+        }
+    }
+
+    /**
+     * 获取请求体哈希
+     * @param position 代理历史位置
+     * @return 请求体哈希，未处理过时返回0
+     */
+    public synchronized long bodyHashAt(int position) {
+        ByteBuffer chunk = chunkFor(position, false);
+        return chunk == null ? 0L : chunk.getLong(slotOffset(position) + BODY_HASH_OFFSET);
+    }
+
+    /**
+     * 获取接口名称ID
+     * @param position 代理历史位置
+     * @return 名称ID，没有名称时返回NamePool.NO_ID
+     */
+    public synchronized int nameIdAt(int position) {
+        ByteBuffer chunk = chunkFor(position, false);
+        return chunk == null ? NamePool.NO_ID : chunk.getInt(slotOffset(position) + NAME_ID_OFFSET) - 1;
+    }
+
+    /**
+     * 设置接口名称ID
+     * @param position 代理历史位置
+     * @param nameId 名称ID，NamePool.NO_ID表示没有名称
+     */
+    public synchronized void setNameId(int position, int nameId) {
+        ByteBuffer chunk = chunkFor(position, nameId != NamePool.NO_ID);
+        if (chunk != null) {
+            chunk.putInt(slotOffset(position) + NAME_ID_OFFSET, nameId + 1);
+        }
+    }
+
+    /**
+     * 获取位置所在的块
+     * @param position 代理历史位置
+     * @param create 块不存在时是否创建
+     * @return 块，位置无效或块不存在且不创建时返回null
+     */
+    private ByteBuffer chunkFor(int position, boolean create) {
+        if (position < 0) {
+            return null;
+        }
+        int chunkIndex = position >>> CHUNK_SHIFT;
+        if (chunkIndex >= chunks.length) {
+            if (!create) {
+                return null;
+            }
+            chunks = Arrays.copyOf(chunks, Math.max(chunkIndex + 1, chunks.length * 2));
+        }
+        ByteBuffer chunk = chunks[chunkIndex];
+        if (chunk == null && create) {
+            chunk = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_SIZE);
+            chunks[chunkIndex] = chunk;
+        }
+        return chunk;
+    }
+
+    private static int slotOffset(int position) {
+        return (position & CHUNK_MASK) * SLOT_SIZE;
+    }
+}
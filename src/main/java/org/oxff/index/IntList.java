@@ -0,0 +1,72 @@
+package org.oxff.index;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的int列表: 使用原始int数组存储，避免Integer装箱
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+    
+    /**
+     * 构造函数: 创建默认容量的列表
+     */
+    public IntList() {
+        this(16);
+    }
+    
+    /**
+     * 构造函数: 创建指定初始容量的列表
+     * @param initialCapacity 初始容量
+     */
+    public IntList(int initialCapacity) {
+        this.values = new int[Math.max(1, initialCapacity)];
+    }
+    
+    /**
+     * 追加元素
+     * @param value 元素值
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+    
+    /**
+     * 获取元素
+     * @param index 下标
+     * @return 元素值
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("下标越界: " + index + ", 大小: " + size);
+        }
+        return values[index];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * 清空列表: 保留已分配的容量
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+    /**
+     * 转换为数组
+     * @return 包含所有元素的新数组
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
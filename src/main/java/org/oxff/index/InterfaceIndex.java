@@ -0,0 +1,252 @@
+package org.oxff.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口倒排索引: 按接口名称ID保存有序的代理历史位置数组，用于按接口名称直接定位历史记录
+ * <p>
+ * 名称ID来自共享的接口名称驻留池，索引本身不保存接口名称字符串。驻留池已满时无法分配ID的名称不进入索引。
+ * <p>
+ * 每个位置的主名称ID保存在提取元数据存储中，批量请求的其余名称ID保存在附加名称表中，同一位置重新提取时先从旧名称的位置数组中移除，
+ * 保证每个位置只属于最近一次提取得到的名称。
+ * 批量扫描按位置递增的顺序写入，追加到数组末尾即可保持有序。
+ */
+public class InterfaceIndex {
+    // 接口名称驻留池
+    private final NamePool namePool;
+    // 名称ID到有序位置数组的映射，数组只使用前postingSizes[id]个元素
+    private int[][] postings = new int[16][];
+    private int[] postingSizes = new int[16];
+    // 提取元数据存储: 保存位置到主名称ID的映射
+    private final ExtractionMetadataStore metadataStore;
+    // 附加名称表: 批量请求的位置到主名称以外的名称ID，只有少数位置有记录
+    private final Map<Integer, int[]> extraNameIds = new HashMap<>();
+    // 已经被完整扫描覆盖的历史记录数量，此后的位置尚未进入索引
+    private int indexedHistorySize = 0;
+
+    /**
+     * 构造函数: 创建接口倒排索引
+     * @param namePool 接口名称驻留池
+     * @param metadataStore 提取元数据存储
+     */
+    public InterfaceIndex(NamePool namePool, ExtractionMetadataStore metadataStore) {
+        this.namePool = namePool;
+        this.metadataStore = metadataStore;
+    }
+
+    /**
+     * 记录某个历史位置的接口名称ID
+     * @param position 代理历史位置
+     * @param nameId 接口名称ID
+     */
+    public synchronized void put(int position, int nameId) {
+        if (position < 0) {
+            return;
+        }
+        if (nameId == NamePool.NO_ID) {
+            remove(position);
+            return;
+        }
+        ensureNameCapacity(nameId + 1);
+        removeExtraNames(position);
+        int previous = metadataStore.nameIdAt(position);
+        if (previous == nameId) {
+            return;
+        }
+        if (previous != NamePool.NO_ID) {
+            removePosting(previous, position);
+        }
+        metadataStore.setNameId(position, nameId);
+        insertPosting(nameId, position);
+    }
+
+    /**
+     * 记录某个历史位置的所有接口名称ID: 批量请求中的每个名称都能定位到该位置
+     * @param position 代理历史位置
+     * @param nameIds 接口名称ID，主名称在前，没有ID的名称（NamePool.NO_ID）忽略
+     */
+    public synchronized void putAll(int position, int[] nameIds) {
+        if (position < 0) {
+            return;
+        }
+        int[] ids = Arrays.stream(nameIds).filter(id -> id != NamePool.NO_ID).distinct().toArray();
+        if (ids.length <= 1) {
+            put(position, ids.length == 0 ? NamePool.NO_ID : ids[0]);
+            return;
+        }
+        remove(position);
+        ensureNameCapacity(Arrays.stream(ids).max().getAsInt() + 1);
+        metadataStore.setNameId(position, ids[0]);
+        for (int id : ids) {
+            insertPosting(id, position);
+        }
+        extraNameIds.put(position, Arrays.copyOfRange(ids, 1, ids.length));
+    }
+
+    /**
+     * 移除某个历史位置的接口名称: 重新提取未命中时调用
+     * @param position 代理历史位置
+     */
+    public synchronized void remove(int position) {
+        if (position < 0) {
+            return;
+        }
+        removeExtraNames(position);
+        int previous = metadataStore.nameIdAt(position);
+        if (previous != NamePool.NO_ID) {
+            removePosting(previous, position);
+            metadataStore.setNameId(position, NamePool.NO_ID);
+        }
+    }
+
+    /**
+     * 移除某个历史位置的附加名称
+     * @param position 代理历史位置
+     */
+    private void removeExtraNames(int position) {
+        if (extraNameIds.isEmpty()) {
+            return;
+        }
+        int[] extras = extraNameIds.remove(position);
+        if (extras != null) {
+            for (int id : extras) {
+                removePosting(id, position);
+            }
+        }
+    }
+
+    /**
+     * 获取某个历史位置当前的接口名称
+     * @param position 代理历史位置
+     * @return 接口名称，主名称在前，没有记录时返回空列表
+     */
+    public synchronized List<String> namesAt(int position) {
+        if (position < 0) {
+            return new ArrayList<>();
+        }
+        int nameId = metadataStore.nameIdAt(position);
+        if (nameId == NamePool.NO_ID) {
+            return new ArrayList<>();
+        }
+        List<String> result = new ArrayList<>();
+        result.add(namePool.nameOf(nameId));
+        int[] extras = extraNameIds.get(position);
+        if (extras != null) {
+            for (int id : extras) {
+                result.add(namePool.nameOf(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取接口名称对应的所有历史位置
+     * @param interfaceName 接口名称
+     * @return 升序排列的历史位置数组，没有记录时返回空数组
+     */
+    public synchronized int[] positionsOf(String interfaceName) {
+        int nameId = namePool.find(interfaceName);
+        if (nameId == NamePool.NO_ID || nameId >= postings.length || postings[nameId] == null) {
+            return new int[0];
+        }
+        return Arrays.copyOf(postings[nameId], postingSizes[nameId]);
+    }
+
+    /**
+     * 获取接口名称对应的历史记录数量
+     * @param interfaceName 接口名称
+     * @return 历史记录数量
+     */
+    public synchronized int countOf(String interfaceName) {
+        int nameId = namePool.find(interfaceName);
+        return nameId == NamePool.NO_ID || nameId >= postingSizes.length ? 0 : postingSizes[nameId];
+    }
+
+    /**
+     * 获取索引中至少有一条历史记录的接口名称
+     * @return 接口名称列表，按名称排序
+     */
+    public synchronized List<String> names() {
+        List<String> result = new ArrayList<>();
+        for (int id = 0; id < postingSizes.length; id++) {
+            if (postingSizes[id] > 0) {
+                result.add(namePool.nameOf(id));
+            }
+        }
+        result.sort(String::compareTo);
+        return result;
+    }
+
+    /**
+     * 标记扫描覆盖范围: 扫描完整结束后调用
+     * @param historySize 扫描时的代理历史记录数量
+     */
+    public synchronized void markIndexedUpTo(int historySize) {
+        indexedHistorySize = Math.max(indexedHistorySize, historySize);
+    }
+
+    /**
+     * 获取已被完整扫描覆盖的历史记录数量
+     * @return 历史记录数量，此后的位置尚未进入索引
+     */
+    public synchronized int getIndexedHistorySize() {
+        return indexedHistorySize;
+    }
+
+    /**
+     * 扩容名称表: 保证可以容纳指定数量的名称ID
+     * @param required 需要的容量
+     */
+    private void ensureNameCapacity(int required) {
+        if (required <= postings.length) {
+            return;
+        }
+        int newCapacity = Math.max(required, postings.length * 2);
+        postings = Arrays.copyOf(postings, newCapacity);
+        postingSizes = Arrays.copyOf(postingSizes, newCapacity);
+    }
+
+    /**
+     * 插入位置并保持有序: 位置大于末尾元素时直接追加
+     * @param nameId 名称ID
+     * @param position 代理历史位置
+     */
+    private void insertPosting(int nameId, int position) {
+        int[] positions = postings[nameId];
+        if (positions == null) {
+            positions = new int[4];
+            postings[nameId] = positions;
+        }
+        int size = postingSizes[nameId];
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size + (size >> 1) + 1);
+            postings[nameId] = positions;
+        }
+        int insertAt = size == 0 || positions[size - 1] < position
+                ? size
+                : -(Arrays.binarySearch(positions, 0, size, position) + 1);
+        System.arraycopy(positions, insertAt, positions, insertAt + 1, size - insertAt);
+        positions[insertAt] = position;
+        postingSizes[nameId] = size + 1;
+    }
+
+    /**
+     * 从名称的位置数组中移除位置
+     * @param nameId 名称ID
+     * @param position 代理历史位置
+     */
+    private void removePosting(int nameId, int position) {
+        int[] positions = postings[nameId];
+        int size = postingSizes[nameId];
+        int index = Arrays.binarySearch(positions, 0, size, position);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        postingSizes[nameId] = size - 1;
+    }
+}
@@ -0,0 +1,384 @@
+package org.oxff.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口清单: 增量维护每个接口名称的命中次数、首次/最近出现时间、主机和少量示例请求
+ * <p>
+ * 数据按槽位存放在并行的原始数组中，接口名称通过共享的驻留池映射为名称ID再定位槽位，主机名统一驻留为int ID，
+ * 导出、复制等查询只需遍历不同的接口名称。
+ * 实时流量由HTTP处理器记录；全量扫描在独立的表中重建，完成后整体替换，避免与实时记录互相干扰。
+ */
+public class InterfaceInventory implements InventoryRecorder {
+    // 每个接口名称最多保留的主机数
+    private static final int MAX_HOSTS_PER_NAME = 8;
+    // 每个接口名称最多保留的示例请求数
+    private static final int MAX_SAMPLES_PER_NAME = 3;
+    
+    // 接口名称驻留池
+    private final NamePool namePool;
+    // 主机名驻留表: 所有表共用
+    private final Map<String, Integer> hostIds = new HashMap<>();
+    private final List<String> hostNames = new ArrayList<>();
+    // 当前生效的清单表
+    private volatile Table current = new Table();
+    // 当前清单表完整覆盖代理历史时对应的配置版本，-1表示尚未完整构建
+    private volatile int completeVersion = -1;
+    // 进行中的重建: 重建期间的实时记录同时写入，避免提交时丢失
+    private final List<Rebuild> activeRebuilds = new ArrayList<>();
+    
+    /**
+     * 构造函数: 创建接口清单
+     * @param namePool 接口名称驻留池
+     */
+    public InterfaceInventory(NamePool namePool) {
+        this.namePool = namePool;
+    }
+    
+    /**
+     * 记录一次接口命中: 用于实时流量
+     * @param interfaceName 接口名称
+     * @param host 主机名
+     * @param sampleRef 示例请求引用（如URL）
+     * @param timeMillis 发生时间
+     */
+    @Override
+    public void record(String interfaceName, String host, String sampleRef, long timeMillis) {
+        record(interfaceName, host, sampleRef, timeMillis, 1);
+    }
+    
+    /**
+     * 记录多次接口命中: 用于按连接聚合后批量写入的WebSocket消息
+     * @param interfaceName 接口名称
+     * @param host 主机名
+     * @param sampleRef 示例请求引用（如URL）
+     * @param timeMillis 最近一次发生时间
+     * @param count 命中次数
+     */
+    public synchronized void record(String interfaceName, String host, String sampleRef, long timeMillis, int count) {
+        int nameId = namePool.idOf(interfaceName);
+        String name = nameId == NamePool.NO_ID ? interfaceName : namePool.nameOf(nameId);
+        int hostId = internHost(host);
+        current.record(name, nameId, hostId, sampleRef, timeMillis, count);
+        for (Rebuild rebuild : activeRebuilds) {
+            rebuild.table.record(name, nameId, hostId, sampleRef, timeMillis, count);
+        }
+    }
+    
+    /**
+     * 撤销一次接口命中: 历史记录重新提取后不再产生该名称时调用，只修改当前清单；命中次数减为0的名称不再出现在查询结果中
+     * @param interfaceName 接口名称
+     */
+    public synchronized void forget(String interfaceName) {
+        current.forget(interfaceName, namePool.find(interfaceName));
+    }
+    
+    /**
+     * 开始重建: 返回独立的记录器，全量扫描期间的记录不影响当前清单
+     * @param configVersion 扫描时的配置版本号
+     * @return 重建记录器
+     */
+    public synchronized Rebuild beginRebuild(int configVersion) {
+        Rebuild rebuild = new Rebuild(configVersion);
+        activeRebuilds.add(rebuild);
+        return rebuild;
+    }
+    
+    /**
+     * 判断清单是否已按指定配置版本完整构建
+     * @param configVersion 配置版本号
+     * @return 如果已完整构建，则返回true，否则返回false
+     */
+    public boolean isCompleteFor(int configVersion) {
+        return completeVersion == configVersion;
+    }
+    
+    /**
+     * 获取所有接口名称: 按首次出现顺序
+     * @return 接口名称列表
+     */
+    public synchronized List<String> names() {
+        Table table = current;
+        List<String> names = new ArrayList<>(table.size);
+        for (int id = 0; id < table.size; id++) {
+            if (table.hits[id] > 0) {
+                names.add(table.names[id]);
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * 获取不同接口名称的数量
+     * @return 接口名称数量
+     */
+    public synchronized int size() {
+        return current.size - current.emptySlots;
+    }
+    
+    /**
+     * 获取清单快照: 用于导出和覆盖率查询
+     * @return 每个接口名称的统计信息
+     */
+    public synchronized List<Entry> entries() {
+        Table table = current;
+        List<Entry> entries = new ArrayList<>(table.size);
+        for (int id = 0; id < table.size; id++) {
+            if (table.hits[id] == 0) {
+                continue;
+            }
+            List<String> hosts = new ArrayList<>();
+            for (int hostId : table.hostIds[id]) {
+                hosts.add(hostNames.get(hostId));
+            }
+            List<String> samples = new ArrayList<>(Arrays.asList(table.samples[id]));
+            entries.add(new Entry(table.names[id], table.hits[id], table.firstSeen[id], table.lastSeen[id],
+                    Collections.unmodifiableList(hosts), Collections.unmodifiableList(samples)));
+        }
+        return entries;
+    }
+    
+    /**
+     * 清空清单
+     */
+    public synchronized void clear() {
+        current = new Table();
+        completeVersion = -1;
+    }
+    
+    /**
+     * 驻留主机名: 相同主机名只保存一份，返回其ID
+     * @param host 主机名
+     * @return 主机ID，主机名为空时返回-1
+     */
+    private int internHost(String host) {
+        if (host == null || host.isEmpty()) {
+            return -1;
+        }
+        Integer id = hostIds.get(host);
+        if (id == null) {
+            id = hostNames.size();
+            hostNames.add(host);
+            hostIds.put(host, id);
+        }
+        return id;
+    }
+    
+    /**
+     * 重建记录器: 全量扫描时在独立的表中记录，完成后调用commit替换当前清单，最终总要调用discard结束重建
+     */
+    public class Rebuild implements InventoryRecorder {
+        private final int configVersion;
+        private final Table table = new Table();
+        
+        private Rebuild(int configVersion) {
+            this.configVersion = configVersion;
+        }
+        
+        @Override
+        public void record(String interfaceName, String host, String sampleRef, long timeMillis) {
+            int nameId = namePool.idOf(interfaceName);
+            String name = nameId == NamePool.NO_ID ? interfaceName : namePool.nameOf(nameId);
+            synchronized (InterfaceInventory.this) {
+                table.record(name, nameId, internHost(host), sampleRef, timeMillis, 1);
+            }
+        }
+        
+        /**
+         * 提交重建结果: 替换当前清单，并标记为已按该配置版本完整构建
+         */
+        public void commit() {
+            commit(configVersion);
+        }
+        
+        /**
+         * 提交重建结果: 替换当前清单，并标记为已按指定配置版本完整构建，用于开始重建时尚不知道版本的情况
+         * @param completeConfigVersion 清单完整对应的配置版本号，-1表示不完整
+         */
+        public void commit(int completeConfigVersion) {
+            synchronized (InterfaceInventory.this) {
+                activeRebuilds.remove(this);
+                current = table;
+                completeVersion = completeConfigVersion;
+            }
+        }
+        
+        /**
+         * 结束重建: 未提交时放弃重建结果，已提交时无副作用
+         */
+        public void discard() {
+            synchronized (InterfaceInventory.this) {
+                activeRebuilds.remove(this);
+            }
+        }
+    }
+    
+    /**
+     * 清单条目快照: 单个接口名称的统计信息
+     */
+    public static class Entry {
+        private final String interfaceName;
+        private final int hits;
+        private final long firstSeen;
+        private final long lastSeen;
+        private final List<String> hosts;
+        private final List<String> samples;
+        
+        Entry(String interfaceName, int hits, long firstSeen, long lastSeen, List<String> hosts,
+              List<String> samples) {
+            this.interfaceName = interfaceName;
+            this.hits = hits;
+            this.firstSeen = firstSeen;
+            this.lastSeen = lastSeen;
+            this.hosts = hosts;
+            this.samples = samples;
+        }
+        
+        public String getInterfaceName() {
+            return interfaceName;
+        }
+        
+        public int getHits() {
+            return hits;
+        }
+        
+        public long getFirstSeen() {
+            return firstSeen;
+        }
+        
+        public long getLastSeen() {
+            return lastSeen;
+        }
+        
+        public List<String> getHosts() {
+            return hosts;
+        }
+        
+        public List<String> getSamples() {
+            return samples;
+        }
+    }
+    
+    /**
+     * 清单表: 按槽位存放的并行数组，名称ID到槽位的映射为int数组，驻留池已满时的名称退回哈希表，调用方负责同步
+     */
+    private static class Table {
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int[] NO_HOSTS = new int[0];
+        private static final String[] NO_SAMPLES = new String[0];
+        
+        // 名称ID到槽位的映射，-1表示该名称尚未出现
+        private int[] slotByNameId = newSlotTable(INITIAL_CAPACITY);
+        // 驻留池已满、没有名称ID的名称到槽位的映射
+        private final Map<String, Integer> overflowSlots = new HashMap<>();
+        private String[] names = new String[INITIAL_CAPACITY];
+        private int[] hits = new int[INITIAL_CAPACITY];
+        private long[] firstSeen = new long[INITIAL_CAPACITY];
+        private long[] lastSeen = new long[INITIAL_CAPACITY];
+        private int[][] hostIds = new int[INITIAL_CAPACITY][];
+        private String[][] samples = new String[INITIAL_CAPACITY][];
+        private int size = 0;
+        // 命中次数已被撤销为0的槽位数量
+        private int emptySlots = 0;
+        
+        void record(String interfaceName, int nameId, int hostId, String sampleRef, long timeMillis, int count) {
+            int id = slotOf(interfaceName, nameId);
+            if (id < 0) {
+                id = add(interfaceName, timeMillis);
+                if (nameId == NamePool.NO_ID) {
+                    overflowSlots.put(interfaceName, id);
+                } else {
+                    slotByNameId[nameId] = id;
+                }
+            } else if (hits[id] == 0 && count > 0) {
+                emptySlots--;
+            }
+            hits[id] += count;
+            firstSeen[id] = Math.min(firstSeen[id], timeMillis);
+            lastSeen[id] = Math.max(lastSeen[id], timeMillis);
+            addHost(id, hostId);
+            addSample(id, sampleRef);
+        }
+        
+        void forget(String interfaceName, int nameId) {
+            int id = slotOf(interfaceName, nameId);
+            if (id >= 0 && hits[id] > 0 && --hits[id] == 0) {
+                emptySlots++;
+            }
+        }
+        
+        private int add(String interfaceName, long timeMillis) {
+            if (size == names.length) {
+                int capacity = names.length * 2;
+                names = Arrays.copyOf(names, capacity);
+                hits = Arrays.copyOf(hits, capacity);
+                firstSeen = Arrays.copyOf(firstSeen, capacity);
+                lastSeen = Arrays.copyOf(lastSeen, capacity);
+                hostIds = Arrays.copyOf(hostIds, capacity);
+                samples = Arrays.copyOf(samples, capacity);
+            }
+            int id = size++;
+            names[id] = interfaceName;
+            firstSeen[id] = timeMillis;
+            lastSeen[id] = timeMillis;
+            hostIds[id] = NO_HOSTS;
+            samples[id] = NO_SAMPLES;
+            return id;
+        }
+        
+        /**
+         * 查找名称所在的槽位
+         * @param interfaceName 接口名称
+         * @param nameId 名称ID，没有ID时为NamePool.NO_ID
+         * @return 槽位，名称尚未出现时返回-1
+         */
+        private int slotOf(String interfaceName, int nameId) {
+            if (nameId == NamePool.NO_ID) {
+                Integer slot = overflowSlots.get(interfaceName);
+                return slot != null ? slot : -1;
+            }
+            if (nameId >= slotByNameId.length) {
+                int oldCapacity = slotByNameId.length;
+                slotByNameId = Arrays.copyOf(slotByNameId, Math.max(nameId + 1, oldCapacity * 2));
+                Arrays.fill(slotByNameId, oldCapacity, slotByNameId.length, -1);
+            }
+            return slotByNameId[nameId];
+        }
+        
+        private static int[] newSlotTable(int capacity) {
+            int[] table = new int[capacity];
+            Arrays.fill(table, -1);
+            return table;
+        }
+        
+        private void addHost(int id, int hostId) {
+            int[] hosts = hostIds[id];
+            if (hostId < 0 || hosts.length >= MAX_HOSTS_PER_NAME) {
+                return;
+            }
+            for (int existing : hosts) {
+                if (existing == hostId) {
+                    return;
+                }
+            }
+            hosts = Arrays.copyOf(hosts, hosts.length + 1);
+            hosts[hosts.length - 1] = hostId;
+            hostIds[id] = hosts;
+        }
+        
+        private void addSample(int id, String sampleRef) {
+            String[] refs = samples[id];
+            if (sampleRef == null || refs.length >= MAX_SAMPLES_PER_NAME) {
+                return;
+            }
+            refs = Arrays.copyOf(refs, refs.length + 1);
+            refs[refs.length - 1] = sampleRef;
+            samples[id] = refs;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.oxff.index;
+
+/**
+ * 接口清单记录器接口: 实时记录和全量重建共用的写入入口
+ */
+public interface InventoryRecorder {
+    /**
+     * 记录一次接口命中
+     * @param interfaceName 接口名称
+     * @param host 主机名
+     * @param sampleRef 示例请求引用（如URL）
+     * @param timeMillis 发生时间
+     */
+    void record(String interfaceName, String host, String sampleRef, long timeMillis);
+}
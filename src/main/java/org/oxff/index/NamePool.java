@@ -0,0 +1,123 @@
+package org.oxff.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口名称驻留池: 为每个不同的接口名称分配一个小整数ID并保存唯一的规范实例
+ * <p>
+ * 查找走ConcurrentHashMap无锁读取，只有分配新ID时才加锁。池容量有上限，超过上限后不再分配新ID，
+ * 调用方继续使用原始字符串，避免规则误配置（例如提取到随机值）时无限增长。
+ */
+public class NamePool {
+    // 未分配ID
+    public static final int NO_ID = -1;
+    // 默认容量上限
+    private static final int DEFAULT_MAX_SIZE = 1 << 18;
+
+    // 容量上限
+    private final int maxSize;
+    // 接口名称到ID的映射
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    // ID到规范实例的映射，扩容时整体替换
+    private volatile String[] names = new String[256];
+    // 已分配的ID数量
+    private volatile int size = 0;
+
+    /**
+     * 构造函数: 使用默认容量上限
+     */
+    public NamePool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * 构造函数: 使用指定容量上限
+     * @param maxSize 容量上限
+     */
+    public NamePool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取或分配接口名称ID
+     * @param name 接口名称
+     * @return 名称ID，名称为空或池已满时返回NO_ID
+     */
+    public int idOf(String name) {
+        if (name == null) {
+            return NO_ID;
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (size >= maxSize) {
+                return NO_ID;
+            }
+            int newId = size;
+            String[] current = names;
+            if (newId == current.length) {
+                current = Arrays.copyOf(current, Math.min(maxSize, current.length * 2));
+            }
+            current[newId] = name;
+            names = current;
+            size = newId + 1;
+            ids.put(name, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * 查找已分配的接口名称ID: 不分配新ID
+     * @param name 接口名称
+     * @return 名称ID，尚未分配时返回NO_ID
+     */
+    public int find(String name) {
+        Integer id = name != null ? ids.get(name) : null;
+        return id != null ? id : NO_ID;
+    }
+
+    /**
+     * 获取规范实例: 相同内容的名称总是返回同一个String对象
+     * @param name 接口名称
+     * @return 规范实例，池已满时返回原始字符串
+     */
+    public String canonical(String name) {
+        int id = idOf(name);
+        return id == NO_ID ? name : nameOf(id);
+    }
+
+    /**
+     * 获取ID对应的接口名称
+     * @param id 名称ID
+     * @return 接口名称，ID无效时返回null
+     */
+    public String nameOf(int id) {
+        // 先读size再读names: 写入方先替换names再更新size，读到的size范围内的元素一定可见
+        int currentSize = size;
+        String[] current = names;
+        return id >= 0 && id < currentSize ? current[id] : null;
+    }
+
+    /**
+     * 获取已分配的ID数量
+     * @return ID数量，所有ID都小于该值
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取容量上限
+     * @return 容量上限，所有可分配的ID都小于该值
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,16 @@
+package org.oxff.job;
+
+/**
+ * 后台任务接口: 定义在任务调度器中执行的操作
+ * @param <T> 任务结果类型
+ */
+@FunctionalInterface
+public interface Job<T> {
+    /**
+     * 执行任务: 实现方应定期检查取消状态并汇报进度
+     * @param context 任务上下文
+     * @return 任务结果
+     * @throws Exception 任务执行失败时抛出
+     */
+    T run(JobContext context) throws Exception;
+}
@@ -0,0 +1,20 @@
+package org.oxff.job;
+
+/**
+ * 任务回调接口: 任务结束时在工作线程上调用
+ * @param <T> 任务结果类型
+ */
+public interface JobCallback<T> {
+    /**
+     * 任务结束: 正常完成或被取消时调用
+     * @param result 任务结果，被取消时为已完成部分的结果
+     * @param progress 最终进度
+     */
+    void onFinished(T result, JobProgress progress);
+    
+    /**
+     * 任务失败: 任务抛出异常时调用
+     * @param e 异常
+     */
+    void onFailed(Exception e);
+}
@@ -0,0 +1,107 @@
+package org.oxff.job;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务上下文: 提供取消状态查询和进度汇报，进度通知按固定间隔限流
+ */
+public class JobContext {
+    // 进度通知的最小间隔（纳秒）
+    private static final long REPORT_INTERVAL_NANOS = 200_000_000L;
+    
+    private final JobType jobType;
+    private final JobProgressListener listener;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger processed = new AtomicInteger();
+    private volatile int total;
+    private volatile boolean cancelled;
+    private volatile long lastReportNanos;
+    
+    /**
+     * 构造函数: 创建任务上下文
+     * @param jobType 任务类型
+     * @param listener 进度监听器，可以为null
+     */
+    public JobContext(JobType jobType, JobProgressListener listener) {
+        this.jobType = jobType;
+        this.listener = listener;
+    }
+    
+    /**
+     * 创建独立上下文: 用于不经过调度器的同步调用，不汇报进度也不会被取消
+     * @param jobType 任务类型
+     * @return 任务上下文
+     */
+    public static JobContext detached(JobType jobType) {
+        return new JobContext(jobType, null);
+    }
+    
+    public JobType getJobType() {
+        return jobType;
+    }
+    
+    /**
+     * 设置需要处理的总数
+     * @param total 总数
+     */
+    public void setTotal(int total) {
+        this.total = total;
+        report(true);
+    }
+    
+    /**
+     * 汇报处理进度: 已处理数量加一
+     */
+    public void advance() {
+        advance(1);
+    }
+    
+    /**
+     * 汇报处理进度
+     * @param count 新处理的数量
+     */
+    public void advance(int count) {
+        processed.addAndGet(count);
+        report(false);
+    }
+    
+    /**
+     * 请求取消任务: 任务在下一次检查取消状态时结束
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    /**
+     * 检查任务是否已被取消
+     * @return 如果已取消，则返回true，否则返回false
+     */
+    public boolean isCancelled() {
+        return cancelled || Thread.currentThread().isInterrupted();
+    }
+    
+    /**
+     * 获取当前进度快照
+     * @return 进度快照
+     */
+    public JobProgress snapshot() {
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+        return new JobProgress(jobType, processed.get(), total, elapsedMillis, cancelled);
+    }
+    
+    /**
+     * 通知进度监听器: 非强制通知时按间隔限流，避免频繁刷新界面
+     * @param force 是否强制通知
+     */
+    void report(boolean force) {
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!force && now - lastReportNanos < REPORT_INTERVAL_NANOS) {
+            return;
+        }
+        lastReportNanos = now;
+        listener.onProgress(snapshot());
+    }
+}
@@ -0,0 +1,97 @@
+package org.oxff.job;
+
+/**
+ * 任务进度快照: 已处理数量、总数、处理速度和预计剩余时间
+ */
+public class JobProgress {
+    private final JobType jobType;
+    private final int processed;
+    private final int total;
+    private final long elapsedMillis;
+    private final boolean cancelled;
+    
+    /**
+     * 构造函数: 创建进度快照
+     * @param jobType 任务类型
+     * @param processed 已处理数量
+     * @param total 总数，未知时为0
+     * @param elapsedMillis 已耗时（毫秒）
+     * @param cancelled 是否已取消
+     */
+    public JobProgress(JobType jobType, int processed, int total, long elapsedMillis, boolean cancelled) {
+        this.jobType = jobType;
+        this.processed = processed;
+        this.total = total;
+        this.elapsedMillis = elapsedMillis;
+        this.cancelled = cancelled;
+    }
+    
+    public JobType getJobType() {
+        return jobType;
+    }
+    
+    public int getProcessed() {
+        return processed;
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * 获取处理速度
+     * @return 每秒处理数量
+     */
+    public double getItemsPerSecond() {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+        return processed * 1000.0 / elapsedMillis;
+    }
+    
+    /**
+     * 获取预计剩余时间
+     * @return 预计剩余秒数，无法估算时返回-1
+     */
+    public long getEtaSeconds() {
+        double rate = getItemsPerSecond();
+        if (total <= 0 || rate <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil((total - processed) / rate);
+    }
+    
+    /**
+     * 获取完成百分比
+     * @return 0到100之间的百分比，总数未知时返回-1
+     */
+    public int getPercent() {
+        if (total <= 0) {
+            return -1;
+        }
+        return (int) Math.min(100, processed * 100L / total);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("已处理 ").append(processed);
+        if (total > 0) {
+            text.append("/").append(total);
+        }
+        text.append(String.format("，%.0f 条/秒", getItemsPerSecond()));
+        long eta = getEtaSeconds();
+        if (eta >= 0) {
+            text.append("，预计剩余 ").append(eta).append(" 秒");
+        }
+        return text.toString();
+    }
+}
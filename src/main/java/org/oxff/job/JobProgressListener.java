@@ -0,0 +1,13 @@
+package org.oxff.job;
+
+/**
+ * 任务进度监听器接口: 接收任务的进度快照
+ */
+@FunctionalInterface
+public interface JobProgressListener {
+    /**
+     * 进度更新: 在工作线程上调用，调用频率已由任务上下文限流
+     * @param progress 进度快照
+     */
+    void onProgress(JobProgress progress);
+}
@@ -0,0 +1,177 @@
+package org.oxff.job;
+
+import burp.api.montoya.logging.Logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务调度器: 使用有界线程池执行后台任务，每种任务类型同一时间只运行一个，写入历史记录的任务之间互斥，支持取消和卸载时关闭
+ */
+public class JobScheduler {
+    // 同时运行的最大任务数
+    private static final int MAX_CONCURRENT_JOBS = 2;
+    // 等待队列容量
+    private static final int QUEUE_CAPACITY = 8;
+    // 关闭时等待任务结束的时间（秒）
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 5;
+    
+    // 日志记录器
+    private final Logging logger;
+    // 线程池
+    private final ThreadPoolExecutor executor;
+    // 正在运行或排队的任务
+    private final Map<JobType, JobContext> activeJobs = new ConcurrentHashMap<>();
+    
+    /**
+     * 构造函数: 创建任务调度器
+     * @param logger 日志记录器
+     */
+    public JobScheduler(Logging logger) {
+        this.logger = logger;
+        this.executor = new ThreadPoolExecutor(MAX_CONCURRENT_JOBS, MAX_CONCURRENT_JOBS,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), new JobThreadFactory());
+    }
+    
+    /**
+     * 提交任务: 同类型任务或与之互斥的写入历史记录任务正在运行时拒绝提交
+     * @param jobType 任务类型
+     * @param job 任务
+     * @param listener 进度监听器，可以为null
+     * @param callback 任务回调
+     * @param <T> 任务结果类型
+     * @return 提交成功时返回任务上下文，同类型或互斥任务正在运行、调度器已关闭时返回null
+     */
+    public <T> JobContext submit(JobType jobType, Job<T> job, JobProgressListener listener, JobCallback<T> callback) {
+        if (executor.isShutdown()) {
+            return null;
+        }
+        JobContext context = new JobContext(jobType, listener);
+        synchronized (activeJobs) {
+            JobType conflict = conflictingJob(jobType);
+            if (conflict != null) {
+                logger.logToOutput("任务 [" + conflict + "] 正在运行，忽略任务 [" + jobType + "] 的提交");
+                return null;
+            }
+            activeJobs.put(jobType, context);
+        }
+        try {
+            executor.execute(() -> runJob(context, job, callback));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobType, context);
+            logger.logToError("任务 [" + jobType + "] 提交失败: 任务队列已满");
+            return null;
+        }
+        return context;
+    }
+    
+    /**
+     * 检查某类型任务是否正在运行
+     * @param jobType 任务类型
+     * @return 如果正在运行或排队，则返回true，否则返回false
+     */
+    public boolean isRunning(JobType jobType) {
+        return activeJobs.containsKey(jobType);
+    }
+    
+    /**
+     * 查找阻止某类型任务提交的正在运行的任务: 同类型任务，或者两者都写入历史记录的任务
+     * @param jobType 任务类型
+     * @return 正在运行的冲突任务类型，没有冲突时返回null
+     */
+    public JobType conflictingJob(JobType jobType) {
+        if (activeJobs.containsKey(jobType)) {
+            return jobType;
+        }
+        if (jobType.writesHistory()) {
+            for (JobType running : activeJobs.keySet()) {
+                if (running.writesHistory()) {
+                    return running;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 取消某类型的任务
+     * @param jobType 任务类型
+     */
+    public void cancel(JobType jobType) {
+        JobContext context = activeJobs.get(jobType);
+        if (context != null) {
+            context.cancel();
+            logger.logToOutput("已请求取消任务: " + jobType);
+        }
+    }
+    
+    /**
+     * 关闭调度器: 取消所有任务并等待工作线程结束，由插件卸载处理器调用
+     */
+    public void shutdown() {
+        for (JobContext context : activeJobs.values()) {
+            context.cancel();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.logToOutput("任务调度器已关闭");
+    }
+    
+    /**
+     * 执行任务: 任务结束后释放任务类型占用并调用回调，任务抛出Error时同样释放，避免该类型任务再也无法提交
+     * @param context 任务上下文
+     * @param job 任务
+     * @param callback 任务回调
+     * @param <T> 任务结果类型
+     */
+    private <T> void runJob(JobContext context, Job<T> job, JobCallback<T> callback) {
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = job.run(context);
+            context.report(true);
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            activeJobs.remove(context.getJobType(), context);
+        }
+        
+        try {
+            if (failure == null) {
+                callback.onFinished(result, context.snapshot());
+            } else {
+                logger.logToError("任务 [" + context.getJobType() + "] 执行失败: " + failure);
+                callback.onFailed(failure instanceof Exception ? (Exception) failure : new RuntimeException(failure));
+            }
+        } catch (Throwable t) {
+            logger.logToError("任务 [" + context.getJobType() + "] 回调执行失败: " + t);
+        }
+    }
+    
+    /**
+     * 任务线程工厂: 创建带名称的守护线程
+     */
+    private static class JobThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "showMeUCode-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
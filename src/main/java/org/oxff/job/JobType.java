@@ -0,0 +1,72 @@
+package org.oxff.job;
+
+/**
+ * 任务类型枚举: 每种类型同一时间最多只允许一个任务运行
+ */
+public enum JobType {
+    /**
+     * 批量处理所有历史记录
+     */
+    BATCH_ALL("批量提取接口名称", true),
+    
+    /**
+     * 增量重新标注历史记录
+     */
+    BATCH_CHANGED("增量重新标注", true),
+    
+    /**
+     * 处理选中的请求
+     */
+    BATCH_SELECTED("提取选中请求接口名称", true),
+    
+    /**
+     * 处理当前请求
+     */
+    SINGLE("提取当前请求接口名称", false),
+    
+    /**
+     * 复制所有接口名称
+     */
+    COPY_ALL("复制所有接口名称", true),
+    
+    /**
+     * 复制选中请求接口名称
+     */
+    COPY_SELECTED("复制选中请求接口名称", false),
+    
+    /**
+     * 按接口名称查找历史记录
+     */
+    FIND_BY_NAME("查找接口的所有请求", false),
+    
+    /**
+     * 导出提取结果到文件
+     */
+    EXPORT("导出接口调用记录", false);
+    
+    private final String displayName;
+    // 是否写入历史记录备注、提取元数据或重建接口清单，这类任务之间互斥
+    private final boolean writesHistory;
+    
+    JobType(String displayName, boolean writesHistory) {
+        this.displayName = displayName;
+        this.writesHistory = writesHistory;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * 检查任务是否写入历史记录: 同一时间最多只允许一个写入历史记录的任务运行
+     * @return 如果写入历史记录备注、提取元数据或重建接口清单，则返回true，否则返回false
+     */
+    public boolean writesHistory() {
+        return writesHistory;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -4,18 +4,23 @@ import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.core.ToolType;
 import burp.api.montoya.logging.Logging;
 import org.oxff.ShowMeUCode;
+import org.oxff.config.ConfigCodec;
+import org.oxff.config.ConfigDocument;
 import org.oxff.config.ConfigManager;
 import org.oxff.config.ExtractionRule;
 import org.oxff.config.RuleType;
 import org.oxff.config.UrlPattern;
+import org.oxff.extractor.ExtractorFactory;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -94,6 +99,13 @@ public class ConfigTab extends JPanel {
         topPanel.add(exportButton);
         topPanel.add(importButton);
         
+        // 添加提取日志目录按钮
+        topPanel.add(Box.createHorizontalStrut(20));
+        JButton journalDirectoryButton = new JButton("提取日志目录...");
+        journalDirectoryButton.setToolTipText("提取结果日志的保存目录，插件重新加载时回放日志，无需重新处理历史记录");
+        journalDirectoryButton.addActionListener(e -> chooseJournalDirectory());
+        topPanel.add(journalDirectoryButton);
+        
         // 创建工具类型面板
         JPanel toolTypePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         toolTypePanel.setBorder(BorderFactory.createTitledBorder("处理工具类型"));
@@ -185,6 +197,7 @@ public class ConfigTab extends JPanel {
                                 Pattern.compile(newPattern);
                                 // 更新规则
                                 pattern.setPattern(newPattern);
+                                configManager.updateUrlPattern(pattern);
                                 logger.logToOutput("已更新URL匹配规则: " + newPattern);
                             } catch (PatternSyntaxException ex) {
                                 // 恢复原值
@@ -200,6 +213,7 @@ public class ConfigTab extends JPanel {
                     } else if (column == 1) { // 状态变化
                         boolean enabled = (Boolean) value;
                         pattern.setEnabled(enabled);
+                        configManager.updateUrlPattern(pattern);
                         logger.logToOutput("已" + (enabled ? "启用" : "禁用") + "URL匹配规则: " + pattern.getPattern());
                     }
                 }
@@ -319,7 +333,13 @@ public class ConfigTab extends JPanel {
                         String typeDisplayName = (String) value;
                         for (RuleType ruleType : RuleType.values()) {
                             if (ruleType.getDisplayName().equals(typeDisplayName)) {
+                                if (!checkExtractionRule(ruleType, rule.getPattern(), rule)) {
+                                    // 恢复原值
+                                    super.setValueAt(rule.getRuleType().getDisplayName(), row, column);
+                                    break;
+                                }
                                 rule.setRuleType(ruleType);
+                                configManager.updateExtractionRule(rule);
                                 logger.logToOutput("已更新提取规则类型: " + typeDisplayName);
                                 break;
                             }
@@ -327,8 +347,14 @@ public class ConfigTab extends JPanel {
                     } else if (column == 1) { // 规则内容变化
                         String newPattern = (String) value;
                         if (newPattern != null && !newPattern.trim().isEmpty()) {
-                            rule.setPattern(newPattern);
-                            logger.logToOutput("已更新提取规则: " + newPattern);
+                            if (checkExtractionRule(rule.getRuleType(), newPattern, rule)) {
+                                rule.setPattern(newPattern);
+                                configManager.updateExtractionRule(rule);
+                                logger.logToOutput("已更新提取规则: " + newPattern);
+                            } else {
+                                // 恢复原值
+                                super.setValueAt(rule.getPattern(), row, column);
+                            }
                         } else {
                             // 恢复原值
                             super.setValueAt(rule.getPattern(), row, column);
@@ -336,6 +362,7 @@ public class ConfigTab extends JPanel {
                     } else if (column == 2) { // 状态变化
                         boolean enabled = (Boolean) value;
                         rule.setEnabled(enabled);
+                        configManager.updateExtractionRule(rule);
                         logger.logToOutput("已" + (enabled ? "启用" : "禁用") + "提取规则: " + rule.getPattern());
                     }
                 }
@@ -396,7 +423,7 @@ public class ConfigTab extends JPanel {
             RuleType ruleType = (RuleType) ruleTypeComboBox.getSelectedItem();
             String pattern = patternTextField.getText().trim();
             
-            if (ruleType != null && !pattern.isEmpty()) {
+            if (ruleType != null && !pattern.isEmpty() && checkExtractionRule(ruleType, pattern, null)) {
                 // 创建新规则
                 ExtractionRule rule = new ExtractionRule(ruleType, pattern, true);
                 configManager.addExtractionRule(rule);
@@ -526,6 +553,21 @@ public class ConfigTab extends JPanel {
         protected abstract void buttonClicked();
     }
     
+    /**
+     * 选择提取日志目录
+     */
+    private void chooseJournalDirectory() {
+        JFileChooser fileChooser = new JFileChooser(configManager.getJournalDirectory());
+        fileChooser.setDialogTitle("选择提取日志目录（当前: " + configManager.getJournalDirectory() + "）");
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            String directory = fileChooser.getSelectedFile().getAbsolutePath();
+            configManager.setJournalDirectory(directory);
+            JOptionPane.showMessageDialog(this, "提取日志目录已设置为: " + directory + "\n重新加载插件后生效。",
+                "设置成功", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
     /**
      * 导出配置到JSON文件
      */
@@ -545,12 +587,9 @@ public class ConfigTab extends JPanel {
                     file = new File(file.getAbsolutePath() + ".json");
                 }
                 
-                // 生成配置JSON字符串
-                String configJson = generateConfigJson();
-                
-                // 写入文件
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-                    writer.write(configJson);
+                // 流式写入配置
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    ConfigCodec.write(configManager.toDocument(false), out, true);
                 }
                 
                 JOptionPane.showMessageDialog(this, "配置已成功导出到: " + file.getAbsolutePath(), 
@@ -583,24 +622,31 @@ public class ConfigTab extends JPanel {
                     "确认导入", JOptionPane.YES_NO_OPTION);
                 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    // 读取文件内容
-                    StringBuilder content = new StringBuilder();
-                    try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            content.append(line).append("\n");
-                        }
+                    // 流式解析配置文件
+                    long startNanos = System.nanoTime();
+                    ConfigDocument document;
+                    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                        document = ConfigCodec.read(in);
                     }
                     
-                    // 解析并应用配置
-                    parseAndApplyConfig(content.toString());
+                    // 并行校验提取规则，有问题的条目由用户决定是否跳过
+                    validateRules(document);
+                    if (!document.getErrors().isEmpty() && !confirmSkipInvalid(document.getErrors())) {
+                        return;
+                    }
+                    
+                    // 一次性替换当前配置
+                    configManager.replaceConfig(document);
+                    long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
                     
                     // 重新加载UI
                     refreshUI();
                     
-                    JOptionPane.showMessageDialog(this, "配置已成功导入", 
+                    JOptionPane.showMessageDialog(this, "配置已成功导入: " + document.getUrlPatterns().size()
+                        + " 条URL匹配规则，" + document.getExtractionRules().size() + " 条提取规则",
                         "导入成功", JOptionPane.INFORMATION_MESSAGE);
-                    logger.logToOutput("配置已从文件导入: " + file.getAbsolutePath());
+                    logger.logToOutput("配置已从文件导入: " + file.getAbsolutePath() + "（格式版本 "
+                        + document.getSchemaVersion() + "，耗时 " + elapsedMillis + " ms）");
                 }
             }
         } catch (Exception e) {
@@ -611,147 +657,66 @@ public class ConfigTab extends JPanel {
     }
     
     /**
-     * 生成配置JSON字符串
-     * @return JSON格式的配置字符串
+     * 校验修改后的提取规则: 规则无效时提示问题，不修改规则本身
+     * @param ruleType 规则类型
+     * @param pattern 规则内容
+     * @param current 被修改的规则，用于沿用其选项；添加新规则时为null
+     * @return 规则有效时返回true
      */
-    private String generateConfigJson() {
-        StringBuilder json = new StringBuilder();
-        json.append("{\n");
-        json.append("  \"enabled\": ").append(configManager.isEnabled()).append(",\n");
-        json.append("  \"urlPatterns\": [\n");
-        
-        // 导出URL匹配规则
-        boolean first = true;
-        for (UrlPattern pattern : configManager.getUrlPatterns()) {
-            if (!first) json.append(",\n");
-            json.append("    {\n");
-            json.append("      \"pattern\": \"").append(escapeJson(pattern.getPattern())).append("\",\n");
-            json.append("      \"enabled\": ").append(pattern.isEnabled()).append("\n");
-            json.append("    }");
-            first = false;
+    private boolean checkExtractionRule(RuleType ruleType, String pattern, ExtractionRule current) {
+        ExtractionRule candidate = new ExtractionRule(ruleType, pattern, true);
+        if (current != null) {
+            candidate.setOptions(current.getOptions());
         }
-        
-        json.append("\n  ],\n");
-        json.append("  \"extractionRules\": [\n");
-        
-        // 导出提取规则
-        first = true;
-        for (ExtractionRule rule : configManager.getExtractionRules()) {
-            if (!first) json.append(",\n");
-            json.append("    {\n");
-            json.append("      \"ruleType\": \"").append(rule.getRuleType().name()).append("\",\n");
-            json.append("      \"pattern\": \"").append(escapeJson(rule.getPattern())).append("\",\n");
-            json.append("      \"enabled\": ").append(rule.isEnabled()).append("\n");
-            json.append("    }");
-            first = false;
+        String problem = ExtractorFactory.validate(candidate);
+        if (problem != null) {
+            JOptionPane.showMessageDialog(this, problem, "错误", JOptionPane.ERROR_MESSAGE);
+            return false;
         }
-        
-        json.append("\n  ]\n");
-        json.append("}");
-        
-        return json.toString();
+        return true;
     }
     
     /**
-     * 解析并应用配置
-     * @param configJson JSON格式的配置字符串
+     * 校验提取规则: 并行编译所有规则的表达式，无效的规则从配置文档中移除并记录问题
+     * @param document 配置文档
      */
-    private void parseAndApplyConfig(String configJson) {
-        // 简单的JSON解析（基于字符串处理）
-        // 在实际项目中，建议使用专业的JSON库如Jackson或Gson
-        
-        // 清空现有配置
-        configManager.clearAllRules();
-        
-        // 解析启用状态
-        if (configJson.contains("\"enabled\": true")) {
-            configManager.setEnabled(true);
-        } else {
-            configManager.setEnabled(false);
-        }
-        
-        // 解析URL模式（简化版本）
-        String[] lines = configJson.split("\n");
-        boolean inUrlPatterns = false;
-        boolean inExtractionRules = false;
-        String currentPattern = null;
-        Boolean currentEnabled = null;
-        String currentRuleType = null;
-        
-        for (String line : lines) {
-            line = line.trim();
-            
-            if (line.contains("\"urlPatterns\"")) {
-                inUrlPatterns = true;
-                inExtractionRules = false;
-                continue;
-            } else if (line.contains("\"extractionRules\"")) {
-                inUrlPatterns = false;
-                inExtractionRules = true;
-                continue;
-            }
-            
-            if (line.startsWith("\"pattern\":")) {
-                currentPattern = extractJsonStringValue(line);
-            } else if (line.startsWith("\"enabled\":")) {
-                currentEnabled = extractJsonBooleanValue(line);
-            } else if (line.startsWith("\"ruleType\":")) {
-                currentRuleType = extractJsonStringValue(line);
-            }
-            
-            // 当读完一个对象时
-            if (line.equals("}") && currentPattern != null && currentEnabled != null) {
-                if (inUrlPatterns) {
-                    UrlPattern urlPattern = new UrlPattern(currentPattern, currentEnabled);
-                    configManager.addUrlPattern(urlPattern);
-                } else if (inExtractionRules && currentRuleType != null) {
-                    try {
-                        RuleType ruleType = RuleType.valueOf(currentRuleType);
-                        ExtractionRule rule = new ExtractionRule(ruleType, currentPattern, currentEnabled);
-                        configManager.addExtractionRule(rule);
-                    } catch (IllegalArgumentException e) {
-                        logger.logToError("无效的规则类型: " + currentRuleType);
-                    }
-                }
-                
-                // 重置变量
-                currentPattern = null;
-                currentEnabled = null;
-                currentRuleType = null;
+    private void validateRules(ConfigDocument document) {
+        List<ExtractionRule> rules = document.getExtractionRules();
+        List<String> problems = rules.parallelStream()
+                .map(ExtractorFactory::validate)
+                .collect(Collectors.toList());
+        List<ExtractionRule> validRules = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            if (problems.get(i) == null) {
+                validRules.add(rules.get(i));
+            } else {
+                document.getErrors().add(problems.get(i));
             }
         }
+        rules.clear();
+        rules.addAll(validRules);
     }
     
     /**
-     * 从JSON行中提取字符串值
-     * @param line JSON行
-     * @return 提取的字符串值
+     * 确认是否跳过无效条目继续导入
+     * @param errors 问题描述列表
+     * @return 如果用户选择继续，则返回true，否则返回false
      */
-    private String extractJsonStringValue(String line) {
-        int start = line.indexOf("\"", line.indexOf(":") + 1) + 1;
-        int end = line.lastIndexOf("\"");
-        if (start > 0 && end > start) {
-            return line.substring(start, end).replace("\\\"", "\"").replace("\\\\", "\\");
+    private boolean confirmSkipInvalid(List<String> errors) {
+        int shown = Math.min(errors.size(), 10);
+        StringBuilder message = new StringBuilder("配置文件中有 " + errors.size() + " 个无效条目:\n");
+        for (int i = 0; i < shown; i++) {
+            message.append("  ").append(errors.get(i)).append('\n');
         }
-        return null;
-    }
-    
-    /**
-     * 从JSON行中提取布尔值
-     * @param line JSON行
-     * @return 提取的布尔值
-     */
-    private Boolean extractJsonBooleanValue(String line) {
-        return line.contains("true");
-    }
-    
-    /**
-     * 转义JSON字符串
-     * @param str 原始字符串
-     * @return 转义后的字符串
-     */
-    private String escapeJson(String str) {
-        return str.replace("\\", "\\\\").replace("\"", "\\\"");
+        if (errors.size() > shown) {
+            message.append("  ...\n");
+        }
+        message.append("\n是否跳过这些条目继续导入？");
+        for (String error : errors) {
+            logger.logToError("导入配置: " + error);
+        }
+        return JOptionPane.showConfirmDialog(this, message.toString(), "配置校验",
+            JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
     }
     
     /**
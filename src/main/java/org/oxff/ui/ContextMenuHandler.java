@@ -3,28 +3,40 @@ package org.oxff.ui;
 import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.core.ToolType;
 import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.logging.Logging;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
 import burp.api.montoya.ui.contextmenu.ContextMenuEvent;
 import burp.api.montoya.ui.contextmenu.ContextMenuItemsProvider;
 import burp.api.montoya.ui.contextmenu.MessageEditorHttpRequestResponse;
 import org.oxff.config.ConfigManager;
-import org.oxff.config.ExtractionRule;
 import org.oxff.config.UrlPattern;
-import org.oxff.extractor.ExtractorFactory;
-import org.oxff.extractor.InterfaceNameExtractor;
+import org.oxff.extractor.ExtractionContext;
+import org.oxff.extractor.ExtractionEngine;
+import org.oxff.extractor.ExtractionResult;
+import org.oxff.export.ExportFormat;
+import org.oxff.export.ExportWriter;
 import org.oxff.http.HistoryProcessor;
+import org.oxff.job.Job;
+import org.oxff.job.JobCallback;
+import org.oxff.job.JobContext;
+import org.oxff.job.JobProgress;
+import org.oxff.job.JobScheduler;
+import org.oxff.job.JobType;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
 /**
  * 右键菜单处理器: 为历史记录页面提供批量处理接口名称的功能
@@ -38,21 +50,28 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
     private final ConfigManager configManager;
     // 历史记录处理器
     private final HistoryProcessor historyProcessor;
-    // 提取器工厂
-    private final ExtractorFactory extractorFactory;
+    // 提取引擎
+    private final ExtractionEngine extractionEngine;
+    // 任务调度器
+    private final JobScheduler jobScheduler;
 
     /**
      * 构造函数: 初始化右键菜单处理器
      * 
-     * @param montoyaApi    Burp Suite API接口
-     * @param configManager 配置管理器
+     * @param montoyaApi       Burp Suite API接口
+     * @param configManager    配置管理器
+     * @param extractionEngine 提取引擎
+     * @param historyProcessor 历史记录处理器
+     * @param jobScheduler     任务调度器
      */
-    public ContextMenuHandler(MontoyaApi montoyaApi, ConfigManager configManager) {
+    public ContextMenuHandler(MontoyaApi montoyaApi, ConfigManager configManager, ExtractionEngine extractionEngine,
+                              HistoryProcessor historyProcessor, JobScheduler jobScheduler) {
         this.montoyaApi = montoyaApi;
         this.logger = montoyaApi.logging();
         this.configManager = configManager;
-        this.historyProcessor = new HistoryProcessor(montoyaApi, configManager);
-        this.extractorFactory = new ExtractorFactory();
+        this.extractionEngine = extractionEngine;
+        this.historyProcessor = historyProcessor;
+        this.jobScheduler = jobScheduler;
     }
 
     /**
@@ -76,6 +95,12 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
         batchProcessItem.addActionListener(new BatchProcessActionListener());
         menuItems.add(batchProcessItem);
 
+        // 添加增量重新标注菜单项
+        JMenuItem changedProcessItem = new JMenuItem("增量重新标注(仅规则变更项)");
+        changedProcessItem.setToolTipText("仅重新处理备注来源规则已修改、之前未命中或尚未处理过的历史请求");
+        changedProcessItem.addActionListener(new ChangedProcessActionListener());
+        menuItems.add(changedProcessItem);
+
         // 获取选中的请求列表
         List<HttpRequestResponse> selectedRequests = event.selectedRequestResponses();
         
@@ -103,6 +128,12 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
         // 添加分隔符
         menuItems.add(new JSeparator());
         
+        // 添加按接口名称查找请求菜单项
+        JMenuItem findByNameItem = new JMenuItem("查看指定接口的所有请求...");
+        findByNameItem.setToolTipText("通过接口索引列出某个接口名称对应的所有历史请求");
+        findByNameItem.addActionListener(new FindByNameActionListener(initialInterfaceName(event, selectedRequests)));
+        menuItems.add(findByNameItem);
+        
         // 添加复制接口名称到剪贴板菜单项（所有请求）
         JMenuItem copyAllToClipboardItem = new JMenuItem("复制所有接口名称到剪贴板(去重)");
         copyAllToClipboardItem.setToolTipText("从所有历史记录中提取接口名称，去重后复制到剪贴板");
@@ -116,57 +147,99 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
             copySelectedToClipboardItem.addActionListener(new CopySelectedToClipboardActionListener(selectedRequests));
             menuItems.add(copySelectedToClipboardItem);
         }
+        
+        // 添加导出到文件菜单项
+        JMenuItem exportItem = new JMenuItem("导出接口调用记录到文件(CSV/JSONL)...");
+        exportItem.setToolTipText("边处理历史记录边写入文件，每条记录包含序号、URL、方法、接口名称、规则ID和时间");
+        exportItem.addActionListener(new ExportActionListener());
+        menuItems.add(exportItem);
 
         return menuItems;
     }
 
+    /**
+     * 获取查找对话框的默认接口名称: 优先使用当前选中请求的备注
+     * @param event 上下文菜单事件
+     * @param selectedRequests 选中的请求列表
+     * @return 默认接口名称，没有时返回空字符串
+     */
+    private String initialInterfaceName(ContextMenuEvent event, List<HttpRequestResponse> selectedRequests) {
+        try {
+            if (selectedRequests != null && !selectedRequests.isEmpty()) {
+                String notes = selectedRequests.get(0).annotations().notes();
+                return notes != null ? notes : "";
+            }
+            if (event.messageEditorRequestResponse().isPresent()) {
+                String notes = event.messageEditorRequestResponse().get().requestResponse().annotations().notes();
+                return notes != null ? notes : "";
+            }
+        } catch (Exception e) {
+            logger.logToError("读取请求备注时发生错误: " + e.getMessage());
+        }
+        return "";
+    }
+
+    /**
+     * 按接口名称查找请求动作监听器: 选择接口名称后在后台通过索引查找并展示结果
+     */
+    private class FindByNameActionListener implements ActionListener {
+        private final String initialInterfaceName;
+
+        public FindByNameActionListener(String initialInterfaceName) {
+            this.initialInterfaceName = initialInterfaceName;
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JComboBox<String> nameComboBox = new JComboBox<>(
+                    historyProcessor.indexedInterfaceNames().toArray(new String[0]));
+            nameComboBox.setEditable(true);
+            nameComboBox.setSelectedItem(initialInterfaceName);
+
+            int option = JOptionPane.showConfirmDialog(
+                    null,
+                    new Object[]{"接口名称（未建立索引的历史记录按备注匹配）：", nameComboBox},
+                    "查看指定接口的所有请求",
+                    JOptionPane.OK_CANCEL_OPTION,
+                    JOptionPane.QUESTION_MESSAGE);
+            Object selected = nameComboBox.getSelectedItem();
+            String interfaceName = selected != null ? selected.toString().trim() : "";
+            if (option != JOptionPane.OK_OPTION || interfaceName.isEmpty()) {
+                return;
+            }
+
+            startJob(JobType.FIND_BY_NAME, true,
+                    context -> historyProcessor.filterHistoryByName(interfaceName, context),
+                    requests -> showInterfaceRequests(interfaceName, requests));
+        }
+    }
+
+    /**
+     * 展示接口对应的请求列表: 在EDT上调用
+     * @param interfaceName 接口名称
+     * @param requests 匹配的历史记录
+     */
+    private void showInterfaceRequests(String interfaceName, List<ProxyHttpRequestResponse> requests) {
+        if (requests.isEmpty()) {
+            JOptionPane.showMessageDialog(
+                    null,
+                    "未找到接口 [" + interfaceName + "] 的请求。\n如果尚未批量提取过，请先执行批量提取或增量重新标注以建立索引。",
+                    "提示",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        new InterfaceRequestsDialog(montoyaApi, interfaceName, requests).setVisible(true);
+    }
+
     /**
      * 复制所有接口名称到剪贴板动作监听器
      */
     private class CopyAllToClipboardActionListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
-                try {
-                    Set<String> interfaceNames = historyProcessor.extractAllInterfaceNames();
-                    
-                    if (interfaceNames.isEmpty()) {
-                        SwingUtilities.invokeLater(() -> {
-                            JOptionPane.showMessageDialog(
-                                    null,
-                                    "未找到任何接口名称。\n请检查历史记录和提取规则配置。",
-                                    "提示",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                        });
-                        return;
-                    }
-                    
-                    // 将接口名称转换为字符串，每行一个
-                    String result = String.join("\n", interfaceNames);
-                    
-                    // 复制到剪贴板
-                    copyToClipboard(result);
-                    
-                    SwingUtilities.invokeLater(() -> {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "已复制 " + interfaceNames.size() + " 个不重复的接口名称到剪贴板！\n可用于检查接口测试覆盖情况。",
-                                "复制成功",
-                                JOptionPane.INFORMATION_MESSAGE);
-                    });
-                    
-                    logger.logToOutput("已复制 " + interfaceNames.size() + " 个接口名称到剪贴板");
-                } catch (Exception ex) {
-                    logger.logToError("复制接口名称到剪贴板时发生错误: " + ex.getMessage());
-                    SwingUtilities.invokeLater(() -> {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "复制过程中发生错误：" + ex.getMessage(),
-                                "错误",
-                                JOptionPane.ERROR_MESSAGE);
-                    });
-                }
-            }).start();
+            startJob(JobType.COPY_ALL, true, historyProcessor::extractAllInterfaceNames,
+                    interfaceNames -> copyInterfaceNames(interfaceNames,
+                            "未找到任何接口名称。\n请检查历史记录和提取规则配置。"));
         }
     }
     
@@ -182,50 +255,75 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
         
         @Override
         public void actionPerformed(ActionEvent e) {
-            new Thread(() -> {
-                try {
-                    Set<String> interfaceNames = historyProcessor.extractInterfaceNamesFromSelected(selectedRequests);
-                    
-                    if (interfaceNames.isEmpty()) {
-                        SwingUtilities.invokeLater(() -> {
-                            JOptionPane.showMessageDialog(
-                                    null,
-                                    "未从选中的请求中找到任何接口名称。\n请检查请求内容和提取规则配置。",
-                                    "提示",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                        });
-                        return;
-                    }
-                    
-                    // 将接口名称转换为字符串，每行一个
-                    String result = String.join("\n", interfaceNames);
-                    
-                    // 复制到剪贴板
-                    copyToClipboard(result);
-                    
-                    SwingUtilities.invokeLater(() -> {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "已复制 " + interfaceNames.size() + " 个不重复的接口名称到剪贴板！\n可用于检查接口测试覆盖情况。",
-                                "复制成功",
-                                JOptionPane.INFORMATION_MESSAGE);
-                    });
-                    
-                    logger.logToOutput("已复制 " + interfaceNames.size() + " 个接口名称到剪贴板");
-                } catch (Exception ex) {
-                    logger.logToError("复制选中请求接口名称到剪贴板时发生错误: " + ex.getMessage());
-                    SwingUtilities.invokeLater(() -> {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "复制过程中发生错误：" + ex.getMessage(),
-                                "错误",
-                                JOptionPane.ERROR_MESSAGE);
-                    });
+            startJob(JobType.COPY_SELECTED, true,
+                    context -> historyProcessor.extractInterfaceNamesFromSelected(selectedRequests, context),
+                    interfaceNames -> copyInterfaceNames(interfaceNames,
+                            "未从选中的请求中找到任何接口名称。\n请检查请求内容和提取规则配置。"));
+        }
+    }
+    
+    /**
+     * 导出接口调用记录动作监听器: 选择文件后在后台扫描历史记录并流式写入
+     */
+    private class ExportActionListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("导出接口调用记录");
+            FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV文件 (*.csv)", "csv");
+            FileNameExtensionFilter jsonlFilter = new FileNameExtensionFilter("JSON Lines文件 (*.jsonl)", "jsonl");
+            fileChooser.addChoosableFileFilter(csvFilter);
+            fileChooser.addChoosableFileFilter(jsonlFilter);
+            fileChooser.setFileFilter(csvFilter);
+            fileChooser.setSelectedFile(new File("showMeUCode-export.csv"));
+            if (fileChooser.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            
+            // 未填写扩展名时按选择的文件类型补全
+            File selectedFile = fileChooser.getSelectedFile();
+            String fileName = selectedFile.getName().toLowerCase();
+            if (!fileName.endsWith(".csv") && !fileName.endsWith(".jsonl") && !fileName.endsWith(".json")) {
+                String extension = fileChooser.getFileFilter() == jsonlFilter ? "jsonl" : "csv";
+                selectedFile = new File(selectedFile.getAbsolutePath() + "." + extension);
+            }
+            File file = selectedFile;
+            ExportFormat format = ExportFormat.fromFileName(file.getName());
+            
+            startJob(JobType.EXPORT, true, context -> {
+                try (ExportWriter exportWriter = new ExportWriter(file.toPath(), format)) {
+                    return historyProcessor.exportHistory(exportWriter, context);
                 }
-            }).start();
+            }, recordCount -> JOptionPane.showMessageDialog(
+                    null,
+                    "导出完成！\n共导出 " + recordCount + " 条记录到: " + file.getAbsolutePath(),
+                    "导出成功",
+                    JOptionPane.INFORMATION_MESSAGE));
         }
     }
     
+    /**
+     * 复制接口名称到剪贴板并提示结果: 在EDT上调用
+     * @param interfaceNames 接口名称集合
+     * @param emptyMessage 没有接口名称时的提示信息
+     */
+    private void copyInterfaceNames(Set<String> interfaceNames, String emptyMessage) {
+        if (interfaceNames.isEmpty()) {
+            JOptionPane.showMessageDialog(null, emptyMessage, "提示", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        // 将接口名称转换为字符串，每行一个，并复制到剪贴板
+        copyToClipboard(String.join("\n", interfaceNames));
+        
+        JOptionPane.showMessageDialog(
+                null,
+                "已复制 " + interfaceNames.size() + " 个不重复的接口名称到剪贴板！\n可用于检查接口测试覆盖情况。",
+                "复制成功",
+                JOptionPane.INFORMATION_MESSAGE);
+        logger.logToOutput("已复制 " + interfaceNames.size() + " 个接口名称到剪贴板");
+    }
+    
     /**
      * 复制文本到系统剪贴板
      * @param text 要复制的文本
@@ -242,53 +340,39 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
     private class BatchProcessActionListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            // 在后台线程中执行批量处理，避免阻塞UI
-            SwingUtilities.invokeLater(() -> {
-                // 显示确认对话框
-                int option = JOptionPane.showConfirmDialog(
-                        null,
-                        "即将批量处理历史记录中的所有请求，提取接口名称并添加到备注中。\n" +
-                                "处理范围：根据Target模块Scope设置（如果未定义则处理所有请求）\n" +
-                                "是否继续？",
-                        "批量处理确认",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.QUESTION_MESSAGE);
-
-                if (option == JOptionPane.YES_OPTION) {
-                    // 显示进度对话框
-                    // JDialog progressDialog = createProgressDialog();
-                    // progressDialog.setVisible(true);
-
-                    // 在后台线程中执行处理
-                    new Thread(() -> {
-                        try {
-                            int processedCount = historyProcessor.processHistory();
-
-                            // 关闭进度对话框
-                            SwingUtilities.invokeLater(() -> {
-                                // progressDialog.dispose();
-
-                                // 显示处理结果
-                                JOptionPane.showMessageDialog(
-                                        null,
-                                        "批量处理完成！\n成功为 " + processedCount + " 个请求添加了接口名称备注。",
-                                        "处理完成",
-                                        JOptionPane.INFORMATION_MESSAGE);
-                            });
-                        } catch (Exception ex) {
-                            logger.logToError("批量处理时发生错误: " + ex.getMessage());
-                            SwingUtilities.invokeLater(() -> {
-                                // progressDialog.dispose();
-                                JOptionPane.showMessageDialog(
-                                        null,
-                                        "处理过程中发生错误：" + ex.getMessage(),
-                                        "错误",
-                                        JOptionPane.ERROR_MESSAGE);
-                            });
-                        }
-                    }).start();
-                }
-            });
+            // 显示确认对话框
+            int option = JOptionPane.showConfirmDialog(
+                    null,
+                    "即将批量处理历史记录中的所有请求，提取接口名称并添加到备注中。\n" +
+                            "处理范围：根据Target模块Scope设置（如果未定义则处理所有请求）\n" +
+                            "是否继续？",
+                    "批量处理确认",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.QUESTION_MESSAGE);
+
+            if (option == JOptionPane.YES_OPTION) {
+                startJob(JobType.BATCH_ALL, true, historyProcessor::processHistory,
+                        processedCount -> JOptionPane.showMessageDialog(
+                                null,
+                                "批量处理完成！\n成功为 " + processedCount + " 个请求添加了接口名称备注。",
+                                "处理完成",
+                                JOptionPane.INFORMATION_MESSAGE));
+            }
+        }
+    }
+
+    /**
+     * 增量重新标注动作监听器: 规则修改后只重新处理受影响的历史记录
+     */
+    private class ChangedProcessActionListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            startJob(JobType.BATCH_CHANGED, true, historyProcessor::processChangedHistory,
+                    processedCount -> JOptionPane.showMessageDialog(
+                            null,
+                            "增量重新标注完成！\n为 " + processedCount + " 个请求添加或更新了接口名称备注。",
+                            "处理完成",
+                            JOptionPane.INFORMATION_MESSAGE));
         }
     }
 
@@ -304,48 +388,30 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            SwingUtilities.invokeLater(() -> {
-                // 显示确认对话框
-                int option = JOptionPane.showConfirmDialog(
-                        null,
-                        "即将处理选中的 " + selectedRequests.size() + " 个请求，提取接口名称并添加到备注中。\n" +
-                                "标记规则：使用配置中已启用的提取规则\n" +
-                                "是否继续？",
-                        "处理选中请求确认",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.QUESTION_MESSAGE);
-
-                if (option == JOptionPane.YES_OPTION) {
-                    // 在后台线程中执行处理
-                    new Thread(() -> {
-                        try {
-                            int processedCount = historyProcessor.processSelectedRequests(selectedRequests);
-
-                            SwingUtilities.invokeLater(() -> {
-                                JOptionPane.showMessageDialog(
-                                        null,
-                                        "处理完成！\n成功为 " + processedCount + " 个请求添加了接口名称备注。",
-                                        "处理完成",
-                                        JOptionPane.INFORMATION_MESSAGE);
-                            });
-                        } catch (Exception ex) {
-                            logger.logToError("处理选中请求时发生错误: " + ex.getMessage());
-                            SwingUtilities.invokeLater(() -> {
-                                JOptionPane.showMessageDialog(
-                                        null,
-                                        "处理过程中发生错误：" + ex.getMessage(),
-                                        "错误",
-                                        JOptionPane.ERROR_MESSAGE);
-                            });
-                        }
-                    }).start();
-                }
-            });
+            // 显示确认对话框
+            int option = JOptionPane.showConfirmDialog(
+                    null,
+                    "即将处理选中的 " + selectedRequests.size() + " 个请求，提取接口名称并添加到备注中。\n" +
+                            "标记规则：使用配置中已启用的提取规则\n" +
+                            "是否继续？",
+                    "处理选中请求确认",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.QUESTION_MESSAGE);
+
+            if (option == JOptionPane.YES_OPTION) {
+                startJob(JobType.BATCH_SELECTED, true,
+                        context -> historyProcessor.processSelectedRequests(selectedRequests, context),
+                        processedCount -> JOptionPane.showMessageDialog(
+                                null,
+                                "处理完成！\n成功为 " + processedCount + " 个请求添加了接口名称备注。",
+                                "处理完成",
+                                JOptionPane.INFORMATION_MESSAGE));
+            }
         }
     }
 
     /**
-     * 单个请求处理动作监听器: 处理单个请求的接口名称提取
+     * 单个请求处理动作监听器: 在后台线程中处理单个请求的接口名称提取，避免在EDT上执行提取
      */
     private class SingleProcessActionListener implements ActionListener {
         private final ContextMenuEvent event;
@@ -356,128 +422,157 @@ public class ContextMenuHandler implements ContextMenuItemsProvider {
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            try {
-                MessageEditorHttpRequestResponse messageEditor = event.messageEditorRequestResponse().orElse(null);
-                if (messageEditor == null) {
-                    return;
-                }
+            MessageEditorHttpRequestResponse messageEditor = event.messageEditorRequestResponse().orElse(null);
+            if (messageEditor == null) {
+                return;
+            }
+            startJob(JobType.SINGLE, false, context -> processSingleRequest(messageEditor),
+                    message -> JOptionPane.showMessageDialog(null, message.text, message.title, message.messageType));
+        }
+    }
 
-                // 获取当前请求
-                String url = messageEditor.requestResponse().request().url();
-                String body = messageEditor.requestResponse().request().bodyToString().trim();
+    /**
+     * 处理单个请求: 提取接口名称并设置备注，在工作线程上调用
+     * 
+     * @param messageEditor 消息编辑器中的请求
+     * @return 需要展示给用户的提示信息
+     */
+    private DialogMessage processSingleRequest(MessageEditorHttpRequestResponse messageEditor) {
+        // 获取当前请求
+        String url = messageEditor.requestResponse().request().url();
+
+        // 检查URL是否匹配配置的模式
+        if (!isUrlMatchPattern(url, ExtractionEngine.hostOf(messageEditor.requestResponse().request()))) {
+            return new DialogMessage("当前请求URL不匹配配置的处理规则。\n请检查插件配置中的URL匹配模式。", "提示",
+                    JOptionPane.INFORMATION_MESSAGE);
+        }
 
-                if (body.isEmpty()) {
-                    JOptionPane.showMessageDialog(
-                            null,
-                            "当前请求没有请求体，无法提取接口名称。",
-                            "提示",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    return;
-                }
+        // 尝试提取接口名称
+        Optional<String> interfaceNameOpt = extractInterfaceName(messageEditor.requestResponse().request());
+        if (interfaceNameOpt.isEmpty()) {
+            return new DialogMessage("未能从当前请求中提取到接口名称。\n请检查请求体格式和插件配置中的提取规则。", "提取失败",
+                    JOptionPane.WARNING_MESSAGE);
+        }
 
-                // 检查URL是否匹配配置的模式
-                if (!isUrlMatchPattern(url)) {
-                    JOptionPane.showMessageDialog(
-                            null,
-                            "当前请求URL不匹配配置的处理规则。\n请检查插件配置中的URL匹配模式。",
-                            "提示",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    return;
-                }
+        String interfaceName = interfaceNameOpt.get();
 
-                // 尝试提取接口名称
-                Optional<String> interfaceNameOpt = extractInterfaceName(body);
-                if (interfaceNameOpt.isPresent()) {
-                    String interfaceName = interfaceNameOpt.get();
+        // 设置备注
+        messageEditor.requestResponse().annotations().setNotes(interfaceName);
 
-                    // 设置备注
-                    messageEditor.requestResponse().annotations().setNotes(interfaceName);
+        logger.logToOutput("为请求 [" + url + "] 添加接口备注: " + interfaceName);
+        return new DialogMessage("成功提取接口名称！\n接口名称: " + interfaceName + "\n已添加到请求备注中。", "提取成功",
+                    JOptionPane.INFORMATION_MESSAGE);
+    }
 
-                    logger.logToOutput("为请求 [" + url + "] 添加接口备注: " + interfaceName);
-                    JOptionPane.showMessageDialog(
-                            null,
-                            "成功提取接口名称！\n接口名称: " + interfaceName + "\n已添加到请求备注中。",
-                            "提取成功",
-                            JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(
-                            null,
-                            "未能从当前请求中提取到接口名称。\n请检查请求体格式和插件配置中的提取规则。",
-                            "提取失败",
-                            JOptionPane.WARNING_MESSAGE);
-                }
-            } catch (Exception ex) {
-                logger.logToError("处理单个请求时发生错误: " + ex.getMessage());
-                JOptionPane.showMessageDialog(
+    /**
+     * 提示信息: 后台任务生成、在EDT上展示的对话框内容
+     */
+    private static class DialogMessage {
+        private final String text;
+        private final String title;
+        private final int messageType;
+
+        DialogMessage(String text, String title, int messageType) {
+            this.text = text;
+            this.title = title;
+            this.messageType = messageType;
+        }
+    }
+
+    /**
+     * 启动后台任务: 通过任务调度器执行，同类型或互斥任务正在运行时给出提示，需在EDT上调用
+     * 
+     * @param jobType      任务类型
+     * @param showProgress 是否显示进度对话框
+     * @param job          任务
+     * @param onSuccess    任务正常完成后在EDT上执行的操作
+     * @param <T>          任务结果类型
+     */
+    private <T> void startJob(JobType jobType, boolean showProgress, Job<T> job, Consumer<T> onSuccess) {
+        JobProgressDialog progressDialog = showProgress
+                ? new JobProgressDialog(jobType.getDisplayName(), () -> jobScheduler.cancel(jobType))
+                : null;
+
+        JobContext context = jobScheduler.submit(jobType, job, progressDialog, new JobCallback<T>() {
+            @Override
+            public void onFinished(T result, JobProgress progress) {
+                closeProgressDialog(progressDialog);
+                SwingUtilities.invokeLater(() -> {
+                    if (progress.isCancelled()) {
+                        JOptionPane.showMessageDialog(
+                                null,
+                                "任务 [" + jobType + "] 已取消。\n" + progress,
+                                "已取消",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        onSuccess.accept(result);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailed(Exception ex) {
+                closeProgressDialog(progressDialog);
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(
                         null,
                         "处理过程中发生错误：" + ex.getMessage(),
                         "错误",
-                        JOptionPane.ERROR_MESSAGE);
+                        JOptionPane.ERROR_MESSAGE));
             }
+        });
+
+        if (context == null) {
+            if (progressDialog != null) {
+                progressDialog.dispose();
+            }
+            JobType conflict = jobScheduler.conflictingJob(jobType);
+            JOptionPane.showMessageDialog(
+                    null,
+                    "任务 [" + (conflict != null ? conflict : jobType) + "] 正在运行中，请等待其完成或取消后再试。",
+                    "提示",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        if (progressDialog != null) {
+            progressDialog.setVisible(true);
         }
     }
 
     /**
-     * 检查URL是否匹配配置的模式: 复用HistoryProcessor中的逻辑
+     * 关闭进度对话框
      * 
-     * @param url 需要检查的URL
-     * @return 如果URL匹配配置的模式，则返回true，否则返回false
+     * @param progressDialog 进度对话框，可以为null
      */
-    private boolean isUrlMatchPattern(String url) {
-        for (UrlPattern urlPattern : configManager.getUrlPatterns()) {
-            if (urlPattern.isEnabled() && Pattern.matches(urlPattern.getPattern(), url)) {
-                return true;
-            }
+    private void closeProgressDialog(JobProgressDialog progressDialog) {
+        if (progressDialog != null) {
+            progressDialog.close();
         }
-        return false;
     }
 
     /**
-     * 提取接口名称: 复用HistoryProcessor中的逻辑
+     * 检查URL是否匹配配置的模式: 只检查路由器选出的候选规则
      * 
-     * @param body 请求体
-     * @return 提取到的接口名称，如果没有匹配的规则或提取失败，则返回空
+     * @param url 需要检查的URL
+     * @param host 请求主机名
+     * @return 如果URL匹配配置的模式，则返回true，否则返回false
      */
-    private Optional<String> extractInterfaceName(String body) {
-        for (ExtractionRule rule : configManager.getExtractionRules()) {
-            if (rule.isEnabled()) {
-                InterfaceNameExtractor extractor = extractorFactory.createExtractor(rule.getRuleType(),
-                        rule.getPattern());
-                if (extractor != null) {
-                    Optional<String> interfaceName = extractor.extract(body);
-                    if (interfaceName.isPresent() && !interfaceName.get().isEmpty()) {
-                        return interfaceName;
-                    }
-                }
+    private boolean isUrlMatchPattern(String url, String host) {
+        for (UrlPattern urlPattern : configManager.getUrlRouter().candidatesFor(url, host)) {
+            if (urlPattern.matcher(url).matches()) {
+                return true;
             }
         }
-        return Optional.empty();
+        return false;
     }
 
     /**
-     * 创建进度对话框: 显示批量处理进度
+     * 提取接口名称: 复用共享的提取引擎，请求体在规则第一次需要时才读取和解码
      * 
-     * @return 进度对话框
+     * @param request 请求
+     * @return 备注文本，批量请求时包含多个接口名称，如果没有匹配的规则或提取失败，则返回空
      */
-    private JDialog createProgressDialog() {
-        JDialog dialog = new JDialog((Frame) null, "批量处理中", true);
-        dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
-        dialog.setSize(300, 100);
-        dialog.setLocationRelativeTo(null);
-
-        JPanel panel = new JPanel(new BorderLayout());
-        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-
-        JLabel label = new JLabel("正在批量处理历史记录，请稍候...");
-        label.setHorizontalAlignment(SwingConstants.CENTER);
-        panel.add(label, BorderLayout.CENTER);
-
-        JProgressBar progressBar = new JProgressBar();
-        progressBar.setIndeterminate(true);
-        panel.add(progressBar, BorderLayout.SOUTH);
-
-        dialog.add(panel);
-
-        return dialog;
+    private Optional<String> extractInterfaceName(HttpRequest request) {
+        return extractionEngine.extract(ExtractionContext.of(request), ExtractionEngine.hostOf(request))
+                .map(ExtractionResult::getAnnotation);
     }
-}
\ No newline at end of file
+}
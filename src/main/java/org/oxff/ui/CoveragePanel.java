@@ -0,0 +1,176 @@
+package org.oxff.ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.logging.Logging;
+import org.oxff.coverage.CatalogParser;
+import org.oxff.coverage.CoverageCatalog;
+import org.oxff.index.InterfaceInventory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 覆盖率面板: 导入预期接口目录，实时展示已覆盖、未覆盖和目录外的接口
+ */
+public class CoveragePanel extends JPanel {
+    // 刷新检查间隔（毫秒）
+    private static final int REFRESH_INTERVAL_MS = 1000;
+    private static final String VIEW_UNCOVERED = "未覆盖";
+    private static final String VIEW_COVERED = "已覆盖";
+    private static final String VIEW_UNEXPECTED = "目录外接口";
+
+    // 日志记录器
+    private final Logging logger;
+    // 覆盖率目录
+    private final CoverageCatalog coverageCatalog;
+    // 接口清单: 导入目录时用于初始化覆盖状态
+    private final InterfaceInventory interfaceInventory;
+
+    // UI组件
+    private final JLabel statsLabel = new JLabel();
+    private final JComboBox<String> viewComboBox = new JComboBox<>(
+            new String[]{VIEW_UNCOVERED, VIEW_COVERED, VIEW_UNEXPECTED});
+    private final DefaultListModel<String> listModel = new DefaultListModel<>();
+    // 上次刷新时目录的修改计数
+    private long lastModCount = -1;
+
+    /**
+     * 构造函数: 创建覆盖率面板
+     * @param montoyaApi Burp Suite API接口
+     * @param coverageCatalog 覆盖率目录
+     * @param interfaceInventory 接口清单
+     */
+    public CoveragePanel(MontoyaApi montoyaApi, CoverageCatalog coverageCatalog,
+                         InterfaceInventory interfaceInventory) {
+        this.logger = montoyaApi.logging();
+        this.coverageCatalog = coverageCatalog;
+        this.interfaceInventory = interfaceInventory;
+
+        setLayout(new BorderLayout(0, 10));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JButton importButton = new JButton("导入接口目录...");
+        importButton.setToolTipText("支持纯文本（每行一个接口名称）或OpenAPI/Swagger文档（JSON/YAML，读取operationId）");
+        importButton.addActionListener(e -> importCatalog());
+        JButton copyButton = new JButton("复制当前列表");
+        copyButton.addActionListener(e -> copyCurrentList());
+        JButton clearButton = new JButton("清空目录");
+        clearButton.addActionListener(e -> clearCatalog());
+        viewComboBox.addActionListener(e -> refresh(true));
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        toolbar.add(importButton);
+        toolbar.add(clearButton);
+        toolbar.add(new JLabel("显示:"));
+        toolbar.add(viewComboBox);
+        toolbar.add(copyButton);
+
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(toolbar, BorderLayout.NORTH);
+        topPanel.add(statsLabel, BorderLayout.SOUTH);
+
+        add(topPanel, BorderLayout.NORTH);
+        add(new JScrollPane(new JList<>(listModel)), BorderLayout.CENTER);
+
+        // 覆盖状态由流量持续更新，定时检查修改计数，只有变化时才刷新列表
+        new Timer(REFRESH_INTERVAL_MS, e -> refresh(false)).start();
+        refresh(true);
+    }
+
+    /**
+     * 刷新统计信息和列表
+     * @param force 是否忽略修改计数强制刷新
+     */
+    private void refresh(boolean force) {
+        long modCount = coverageCatalog.getModCount();
+        if (!force && modCount == lastModCount) {
+            return;
+        }
+        lastModCount = modCount;
+
+        int size = coverageCatalog.size();
+        int coveredCount = coverageCatalog.getCoveredCount();
+        if (size == 0) {
+            statsLabel.setText("尚未导入接口目录");
+        } else {
+            statsLabel.setText(String.format("目录接口: %d, 已覆盖: %d (%.1f%%), 未覆盖: %d, 目录外接口: %d",
+                    size, coveredCount, coveredCount * 100.0 / size, size - coveredCount,
+                    coverageCatalog.getUnexpected().size()));
+        }
+
+        listModel.clear();
+        listModel.addAll(currentList());
+    }
+
+    /**
+     * 获取当前视图对应的接口列表
+     * @return 接口名称列表
+     */
+    private List<String> currentList() {
+        Object view = viewComboBox.getSelectedItem();
+        if (VIEW_COVERED.equals(view)) {
+            return coverageCatalog.getCovered();
+        }
+        if (VIEW_UNEXPECTED.equals(view)) {
+            return coverageCatalog.getUnexpected();
+        }
+        return coverageCatalog.getUncovered();
+    }
+
+    /**
+     * 导入接口目录: 解析文件后替换当前目录，并用已观察到的接口初始化覆盖状态
+     */
+    private void importCatalog() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("导入接口目录");
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        try {
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            List<String> interfaceNames = CatalogParser.parse(content);
+            if (interfaceNames.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "未从文件中解析到任何接口名称。", "导入失败",
+                        JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            coverageCatalog.importCatalog(interfaceNames, interfaceInventory.names());
+            refresh(true);
+            JOptionPane.showMessageDialog(this,
+                    "已导入 " + coverageCatalog.size() + " 个接口，当前已覆盖 " + coverageCatalog.getCoveredCount() + " 个。",
+                    "导入成功", JOptionPane.INFORMATION_MESSAGE);
+        } catch (Exception e) {
+            logger.logToError("导入接口目录失败: " + e.getMessage());
+            JOptionPane.showMessageDialog(this, "导入接口目录失败: " + e.getMessage(), "导入失败",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * 清空接口目录
+     */
+    private void clearCatalog() {
+        int confirm = JOptionPane.showConfirmDialog(this, "确定要清空接口目录吗？", "确认清空",
+                JOptionPane.YES_NO_OPTION);
+        if (confirm == JOptionPane.YES_OPTION) {
+            coverageCatalog.clear();
+            refresh(true);
+        }
+    }
+
+    /**
+     * 复制当前列表到剪贴板，每行一个
+     */
+    private void copyCurrentList() {
+        List<String> names = currentList();
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
+                new StringSelection(String.join("\n", names)), null);
+        logger.logToOutput("已复制 " + names.size() + " 个接口名称到剪贴板");
+    }
+}
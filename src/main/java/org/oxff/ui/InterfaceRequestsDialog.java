@@ -0,0 +1,167 @@
+package org.oxff.ui;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.HighlightColor;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 接口请求列表对话框: 展示某个接口名称对应的所有代理历史记录，支持高亮、发送到Repeater和复制URL
+ */
+public class InterfaceRequestsDialog extends JDialog {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final MontoyaApi montoyaApi;
+    private final String interfaceName;
+    private final List<ProxyHttpRequestResponse> requests;
+    private final JTable table;
+
+    /**
+     * 构造函数: 创建非模态请求列表对话框
+     * @param montoyaApi Burp Suite API接口
+     * @param interfaceName 接口名称
+     * @param requests 匹配的历史记录
+     */
+    public InterfaceRequestsDialog(MontoyaApi montoyaApi, String interfaceName,
+                                   List<ProxyHttpRequestResponse> requests) {
+        super((Frame) null, "接口 [" + interfaceName + "] 的所有请求 (" + requests.size() + "个)", false);
+        this.montoyaApi = montoyaApi;
+        this.interfaceName = interfaceName;
+        this.requests = requests;
+
+        table = new JTable(new RequestTableModel());
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(50);
+        table.getColumnModel().getColumn(1).setPreferredWidth(70);
+        table.getColumnModel().getColumn(2).setPreferredWidth(480);
+        table.getColumnModel().getColumn(3).setPreferredWidth(150);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    sendSelectedToRepeater();
+                }
+            }
+        });
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(createButton("全选", e -> table.selectAll()));
+        buttonPanel.add(createButton("高亮选中请求", e -> highlightSelected()));
+        buttonPanel.add(createButton("发送到Repeater", e -> sendSelectedToRepeater()));
+        buttonPanel.add(createButton("复制URL", e -> copySelectedUrls()));
+        buttonPanel.add(createButton("关闭", e -> dispose()));
+
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(new JLabel("双击行发送到Repeater；高亮后可在Proxy历史中按颜色筛选这些请求"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
+        add(panel);
+        setSize(860, 480);
+        setLocationRelativeTo(null);
+    }
+
+    private JButton createButton(String text, ActionListener listener) {
+        JButton button = new JButton(text);
+        button.addActionListener(listener);
+        return button;
+    }
+
+    /**
+     * 获取选中的行，未选中任何行时视为全部
+     * @return 选中的行下标
+     */
+    private int[] selectedRows() {
+        int[] rows = table.getSelectedRows();
+        if (rows.length > 0) {
+            return rows;
+        }
+        int[] all = new int[requests.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * 高亮选中的请求: 便于在Proxy历史中按高亮颜色筛选
+     */
+    private void highlightSelected() {
+        int[] rows = selectedRows();
+        for (int row : rows) {
+            requests.get(row).annotations().setHighlightColor(HighlightColor.CYAN);
+        }
+        JOptionPane.showMessageDialog(this, "已高亮 " + rows.length + " 个请求。", "提示",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * 发送选中的请求到Repeater: 标签页名称使用接口名称
+     */
+    private void sendSelectedToRepeater() {
+        for (int row : table.getSelectedRows()) {
+            montoyaApi.repeater().sendToRepeater(requests.get(row).finalRequest(), interfaceName);
+        }
+    }
+
+    /**
+     * 复制选中请求的URL到剪贴板，每行一个
+     */
+    private void copySelectedUrls() {
+        StringJoiner urls = new StringJoiner("\n");
+        for (int row : selectedRows()) {
+            urls.add(requests.get(row).finalRequest().url());
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(urls.toString()), null);
+    }
+
+    /**
+     * 请求表格模型
+     */
+    private class RequestTableModel extends AbstractTableModel {
+        private final String[] columnNames = {"序号", "方法", "URL", "时间"};
+
+        @Override
+        public int getRowCount() {
+            return requests.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ProxyHttpRequestResponse item = requests.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return rowIndex + 1;
+                case 1:
+                    return item.finalRequest().method();
+                case 2:
+                    return item.finalRequest().url();
+                case 3:
+                    return item.time() != null ? TIME_FORMATTER.format(item.time()) : "";
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.oxff.ui;
+
+import org.oxff.job.JobProgress;
+import org.oxff.job.JobProgressListener;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * 任务进度对话框: 显示后台任务的处理进度、速度和预计剩余时间，并提供取消按钮
+ */
+public class JobProgressDialog extends JDialog implements JobProgressListener {
+    private final JLabel statusLabel;
+    private final JProgressBar progressBar;
+    private final JButton cancelButton;
+    
+    /**
+     * 构造函数: 创建非模态进度对话框
+     * @param title 对话框标题
+     * @param onCancel 点击取消按钮时执行的操作
+     */
+    public JobProgressDialog(String title, Runnable onCancel) {
+        super((Frame) null, title, false);
+        setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        
+        statusLabel = new JLabel("正在准备任务，请稍候...");
+        statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        panel.add(statusLabel, BorderLayout.NORTH);
+        
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        panel.add(progressBar, BorderLayout.CENTER);
+        
+        cancelButton = new JButton("取消");
+        cancelButton.addActionListener(e -> {
+            cancelButton.setEnabled(false);
+            statusLabel.setText("正在取消...");
+            onCancel.run();
+        });
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.add(cancelButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        add(panel);
+        setSize(420, 160);
+        setLocationRelativeTo(null);
+    }
+    
+    /**
+     * 进度更新: 从工作线程调用，切换到EDT刷新界面
+     * @param progress 进度快照
+     */
+    @Override
+    public void onProgress(JobProgress progress) {
+        SwingUtilities.invokeLater(() -> {
+            int percent = progress.getPercent();
+            if (percent >= 0) {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(percent);
+            }
+            if (cancelButton.isEnabled()) {
+                statusLabel.setText(progress.toString());
+            }
+        });
+    }
+    
+    /**
+     * 关闭对话框: 可以从任意线程调用
+     */
+    public void close() {
+        SwingUtilities.invokeLater(this::dispose);
+    }
+}